@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.shared.artifact.filter.collection.FilterArtifacts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the dependency filtering of the run goals for various project sizes and
+ * rule sets.
+ * 依赖过滤基准测试
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DependencyFilterBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	public int artifactCount;
+
+	@Param({ MojoFixture.RULES_NONE, MojoFixture.RULES_EXCLUDE_GROUP_IDS, MojoFixture.RULES_EXACT,
+			MojoFixture.RULES_PATTERNS })
+	public String rules;
+
+	private MojoFixture fixture;
+
+	private FilterArtifacts filters;
+
+	@Setup
+	public void setup() throws MojoExecutionException {
+		this.fixture = new MojoFixture(this.artifactCount, this.rules);
+		this.filters = this.fixture.getMojo().getFilters();
+	}
+
+	@Benchmark
+	public Set<Artifact> filterDependencies() throws MojoExecutionException {
+		return this.fixture.getMojo().filterDependencies(this.fixture.getArtifacts(), this.filters);
+	}
+
+	@Benchmark
+	public FilterArtifacts getFilters() throws MojoExecutionException {
+		//规则已由之前的目标编译,只测量缓存命中
+		return this.fixture.getMojo().getFilters();
+	}
+
+	@Benchmark
+	public FilterArtifacts compileFilters() throws MojoExecutionException {
+		//每次都重新编译规则
+		DependencyMatcher.clearCache();
+		return this.fixture.getMojo().getFilters();
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the steps that build the command line of a forked application: the
+ * classpath, the JVM arguments and the environment variables.
+ * 启动路径基准测试（类路径、JVM参数、环境变量）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LaunchPathBenchmark {
+
+	private static final String JVM_ARGUMENTS = "-Xms256m -Xmx1g -XX:+UseG1GC -Dspring.profiles.active=dev "
+			+ "-Dapp.banner=\"Hello World\" -agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=5005";
+
+	@Param({ "100", "1000", "10000" })
+	public int artifactCount;
+
+	private MojoFixture fixture;
+
+	private List<File> classpath;
+
+	private Map<String, String> environment;
+
+	private EnvVariables envVariables;
+
+	@Setup
+	public void setup() throws Exception {
+		this.fixture = new MojoFixture(this.artifactCount, MojoFixture.RULES_NONE);
+		this.classpath = new ArrayList<>();
+		for (URL url : this.fixture.getMojo().getClassPathUrls()) {
+			this.classpath.add(new File(url.toURI()));
+		}
+		this.environment = new LinkedHashMap<>();
+		for (int i = 0; i < 20; i++) {
+			this.environment.put("YLZ_VARIABLE_" + i, (i % 5 == 0) ? null : "value-" + i);
+		}
+		this.envVariables = new EnvVariables(this.environment);
+	}
+
+	@Benchmark
+	public URL[] getClassPathUrls() throws MojoExecutionException {
+		return this.fixture.getMojo().getClassPathUrls();
+	}
+
+	@Benchmark
+	public List<String> addClasspath() throws MojoExecutionException {
+		List<String> args = new ArrayList<>(2);
+		this.fixture.getMojo().addClasspath(args, this.classpath);
+		return args;
+	}
+
+	@Benchmark
+	public String[] parseRunArguments() {
+		return new RunArguments(JVM_ARGUMENTS).asArray();
+	}
+
+	@Benchmark
+	public String[] parseEnvVariables() {
+		return new EnvVariables(this.environment).asArray();
+	}
+
+	@Benchmark
+	public String[] envVariablesAsArray() {
+		return this.envVariables.asArray();
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * A {@link RunMojo} configured the way Maven injects its parameters, against a synthetic
+ * project with the requested number of dependencies. Every tenth dependency has the
+ * test scope and every twenty-fifth one a classifier. The jars do not need to exist.
+ * 基准测试用的mojo（模拟Maven注入参数,依赖为合成数据）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+final class MojoFixture {
+
+	/**
+	 * No dependency rule.
+	 */
+	static final String RULES_NONE = "none";
+
+	/**
+	 * A few excluded groupIds.
+	 */
+	static final String RULES_EXCLUDE_GROUP_IDS = "excludeGroupIds";
+
+	/**
+	 * One exact exclude for every twentieth dependency.
+	 */
+	static final String RULES_EXACT = "exact";
+
+	/**
+	 * An include glob plus groupId prefix, glob and regular expression excludes.
+	 */
+	static final String RULES_PATTERNS = "patterns";
+
+	private static final int DEPENDENCIES_PER_GROUP = 20;
+
+	private final RunMojo mojo = new RunMojo();
+
+	private final MavenProject project = new MavenProject();
+
+	private final Set<Artifact> artifacts;
+
+	/**
+	 * Create a new fixture.
+	 * @param artifactCount the number of dependencies of the project
+	 * @param rules the rule set, one of the {@code RULES_*} constants
+	 */
+	MojoFixture(int artifactCount, String rules) {
+		File buildDirectory = new File(System.getProperty("java.io.tmpdir"), "ylz-benchmarks");
+		this.project.getBuild().setDirectory(buildDirectory.getAbsolutePath());
+		this.artifacts = createArtifacts(artifactCount, new File(buildDirectory, "repository"));
+		this.project.setArtifacts(this.artifacts);
+		this.mojo.setLog(new NoOpLog());
+		set("project", this.project);
+		set("classesDirectory", new File(buildDirectory, "classes"));
+		set("folders", new String[0]);
+		set("useTestClasspath", Boolean.FALSE);
+		configureRules(artifactCount, rules);
+	}
+
+	private static Set<Artifact> createArtifacts(int count, File repository) {
+		int groups = Math.max(1, count / DEPENDENCIES_PER_GROUP);
+		Set<Artifact> artifacts = new LinkedHashSet<>(count * 4 / 3 + 1);
+		DefaultArtifactHandler handler = new DefaultArtifactHandler("jar");
+		for (int i = 0; i < count; i++) {
+			String groupId = "com.example.g" + (i % groups);
+			String artifactId = "artifact-" + i;
+			String scope = (i % 10 == 0) ? Artifact.SCOPE_TEST
+					: (i % 10 == 1) ? Artifact.SCOPE_RUNTIME : Artifact.SCOPE_COMPILE;
+			String classifier = (i % 25 == 0) ? "tests" : null;
+			Artifact artifact = new DefaultArtifact(groupId, artifactId, "1.0", scope, "jar", classifier, handler);
+			artifact.setFile(new File(repository,
+					groupId.replace('.', '/') + "/" + artifactId + "/1.0/" + artifactId + "-1.0.jar"));
+			artifacts.add(artifact);
+		}
+		return artifacts;
+	}
+
+	private void configureRules(int artifactCount, String rules) {
+		if (RULES_EXCLUDE_GROUP_IDS.equals(rules)) {
+			set("excludeGroupIds", "com.example.g1,com.example.g2,com.example.g3,com.example.g4,com.example.g5");
+		}
+		else if (RULES_EXACT.equals(rules)) {
+			int groups = Math.max(1, artifactCount / DEPENDENCIES_PER_GROUP);
+			List<Exclude> excludes = new ArrayList<>();
+			for (int i = 0; i < artifactCount; i += DEPENDENCIES_PER_GROUP) {
+				excludes.add(dependency(new Exclude(), "com.example.g" + (i % groups), "artifact-" + i, null));
+			}
+			set("excludes", excludes);
+		}
+		else if (RULES_PATTERNS.equals(rules)) {
+			List<Include> includes = new ArrayList<>();
+			includes.add(dependency(new Include(), "com.example.*", "*", null));
+			List<Exclude> excludes = new ArrayList<>();
+			excludes.add(dependency(new Exclude(), "com.example.g1*", "*", null));
+			excludes.add(dependency(new Exclude(), "com.example.g2", "artifact-*9", null));
+			excludes.add(dependency(new Exclude(), "com.example.g3", "/artifact-[0-9]{2}/", null));
+			excludes.add(dependency(new Exclude(), "*", "*", "tests"));
+			set("includes", includes);
+			set("excludes", excludes);
+		}
+		else if (!RULES_NONE.equals(rules)) {
+			throw new IllegalArgumentException("Unknown rule set '" + rules + "'");
+		}
+	}
+
+	private static <T extends FilterableDependency> T dependency(T dependency, String groupId, String artifactId,
+			String classifier) {
+		dependency.setGroupId(groupId);
+		dependency.setArtifactId(artifactId);
+		dependency.setClassifier(classifier);
+		return dependency;
+	}
+
+	/**
+	 * Set a parameter of the mojo, as Maven does.
+	 * @param name the name of the field
+	 * @param value the value to inject
+	 */
+	private void set(String name, Object value) {
+		for (Class<?> type = this.mojo.getClass(); type != null; type = type.getSuperclass()) {
+			try {
+				Field field = type.getDeclaredField(name);
+				field.setAccessible(true);
+				field.set(this.mojo, value);
+				return;
+			}
+			catch (NoSuchFieldException ex) {
+				// Declared by a super class
+			}
+			catch (IllegalAccessException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+		throw new IllegalArgumentException("Unknown parameter '" + name + "'");
+	}
+
+	RunMojo getMojo() {
+		return this.mojo;
+	}
+
+	Set<Artifact> getArtifacts() {
+		return this.artifacts;
+	}
+
+	/**
+	 * A {@link Log} that discards everything, so that the output of the mojo does not
+	 * distort the measurements.
+	 */
+	private static final class NoOpLog implements Log {
+
+		@Override
+		public boolean isDebugEnabled() {
+			return false;
+		}
+
+		@Override
+		public void debug(CharSequence content) {
+		}
+
+		@Override
+		public void debug(CharSequence content, Throwable error) {
+		}
+
+		@Override
+		public void debug(Throwable error) {
+		}
+
+		@Override
+		public boolean isInfoEnabled() {
+			return false;
+		}
+
+		@Override
+		public void info(CharSequence content) {
+		}
+
+		@Override
+		public void info(CharSequence content, Throwable error) {
+		}
+
+		@Override
+		public void info(Throwable error) {
+		}
+
+		@Override
+		public boolean isWarnEnabled() {
+			return false;
+		}
+
+		@Override
+		public void warn(CharSequence content) {
+		}
+
+		@Override
+		public void warn(CharSequence content, Throwable error) {
+		}
+
+		@Override
+		public void warn(Throwable error) {
+		}
+
+		@Override
+		public boolean isErrorEnabled() {
+			return false;
+		}
+
+		@Override
+		public void error(CharSequence content) {
+		}
+
+		@Override
+		public void error(CharSequence content, Throwable error) {
+		}
+
+		@Override
+		public void error(Throwable error) {
+		}
+
+	}
+
+}
@@ -16,6 +16,11 @@
 
 package com.jerrylz.ylz_maven_plugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -42,7 +47,9 @@ public abstract class AbstractDependencyFilterMojo extends AbstractMojo {
 	 * Collection of artifact definitions to include. The {@link Include} element defines
 	 * a {@code groupId} and {@code artifactId} mandatory properties and an optional
 	 * 要包含的artifact集合
-	 * {@code classifier} property.
+	 * {@code classifier} property. Since 0.0.1, a value containing {@code *} or
+	 * {@code ?} is a glob and a value enclosed in slashes, such as {@code /spring-.*}/},
+	 * is a regular expression. Such values were previously matched literally.
 	 * @since 1.2.0
 	 *
 	 */
@@ -53,7 +60,9 @@ public abstract class AbstractDependencyFilterMojo extends AbstractMojo {
 	 * Collection of artifact definitions to exclude. The {@link Exclude} element defines
 	 * 要排除的artifact集合
 	 * a {@code groupId} and {@code artifactId} mandatory properties and an optional
-	 * {@code classifier} property.
+	 * {@code classifier} property. Since 0.0.1, a value containing {@code *} or
+	 * {@code ?} is a glob and a value enclosed in slashes, such as {@code /spring-.*}/},
+	 * is a regular expression. Such values were previously matched literally.
 	 * @since 1.1.0
 	 */
 	@Parameter(property = "spring-boot.excludes")
@@ -67,6 +76,18 @@ public abstract class AbstractDependencyFilterMojo extends AbstractMojo {
 	@Parameter(property = "spring-boot.excludeGroupIds", defaultValue = "")
 	private String excludeGroupIds;
 
+	/**
+	 * File of additional artifact definitions, one {@code groupId:artifactId[:classifier]}
+	 * per line. Lines starting with {@code +} are includes, the other ones are excludes
+	 * and lines starting with {@code #} are ignored. As for {@code includes} and
+	 * {@code excludes}, each coordinate can be a glob or a regular expression enclosed in
+	 * slashes, which may contain {@code :} but not {@code /:}.
+	 * 依赖过滤规则文件（每行一个坐标,以+开头为包含,否则为排除）
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.dependencyFilterFile")
+	private File dependencyFilterFile;
+
 	/**
 	 * 设置Excludes
 	 * @param excludes
@@ -92,24 +113,52 @@ public abstract class AbstractDependencyFilterMojo extends AbstractMojo {
 	}
 
 	/**
-	 * 过滤项目依赖
-	 * @param dependencies
-	 * @param filters
-	 * @return
-	 * @throws MojoExecutionException
+	 * Filter the dependencies in a single pass, preserving their order. Each artifact is
+	 * checked against the filters in turn until one rejects it.
+	 * 过滤项目依赖（单次遍历,保持顺序）
+	 * @param dependencies the dependencies to filter
+	 * @param filters the filters to apply
+	 * @return the dependencies accepted by all the filters
+	 * @throws MojoExecutionException if a filter failed
 	 */
 	protected Set<Artifact> filterDependencies(Set<Artifact> dependencies, FilterArtifacts filters)
 			throws MojoExecutionException {
+		List<ArtifactsFilter> chain = filters.getFilters();
+		int[] rejected = new int[chain.size()];
+		Set<Artifact> filtered = new LinkedHashSet<>(dependencies.size() * 4 / 3 + 1);
 		try {
-			Set<Artifact> filtered = new LinkedHashSet<>(dependencies);
-			//获取项目依赖与过滤后的依赖集合的交集
-			filtered.retainAll(filters.filter(dependencies));
-			//返回两者交集
-			return filtered;
+			for (Artifact artifact : dependencies) {
+				if (isIncluded(chain, artifact, rejected)) {
+					filtered.add(artifact);
+				}
+			}
 		}
 		catch (ArtifactFilterException ex) {
 			throw new MojoExecutionException(ex.getMessage(), ex);
 		}
+		if (getLog().isDebugEnabled()) {
+			StringBuilder message = new StringBuilder();
+			message.append("Kept ").append(filtered.size()).append(" of ").append(dependencies.size())
+					.append(" dependencies");
+			for (int i = 0; i < rejected.length; i++) {
+				message.append(i == 0 ? ", rejected by " : ", ").append(chain.get(i).getClass().getSimpleName())
+						.append(": ").append(rejected[i]);
+			}
+			getLog().debug(message);
+		}
+		return filtered;
+	}
+
+	private boolean isIncluded(List<ArtifactsFilter> chain, Artifact artifact, int[] rejected)
+			throws ArtifactFilterException {
+		for (int i = 0; i < chain.size(); i++) {
+			//第一个拒绝的过滤器即终止
+			if (!chain.get(i).isArtifactIncluded(artifact)) {
+				rejected[i]++;
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -117,8 +166,10 @@ public abstract class AbstractDependencyFilterMojo extends AbstractMojo {
 	 * 获取该mojo配置的Artifacts过滤器
 	 * @param additionalFilters optional additional filters to apply
 	 * @return the filters
+	 * @throws MojoExecutionException if the dependency filter file cannot be read
 	 */
-	protected final FilterArtifacts getFilters(ArtifactsFilter... additionalFilters) {
+	protected final FilterArtifacts getFilters(ArtifactsFilter... additionalFilters)
+			throws MojoExecutionException {
 		//Artifacts过滤器
 		FilterArtifacts filters = new FilterArtifacts();
 		for (ArtifactsFilter additionalFilter : additionalFilters) {
@@ -127,17 +178,126 @@ public abstract class AbstractDependencyFilterMojo extends AbstractMojo {
 		}
 		//添加排除GroupIds过滤器
 		filters.addFilter(new MatchingGroupIdFilter(cleanFilterConfig(this.excludeGroupIds)));
-		if (this.includes != null && !this.includes.isEmpty()) {
+		List<Include> allIncludes = new ArrayList<>();
+		List<Exclude> allExcludes = new ArrayList<>();
+		if (this.includes != null) {
+			allIncludes.addAll(this.includes);
+		}
+		if (this.excludes != null) {
+			allExcludes.addAll(this.excludes);
+		}
+		if (this.dependencyFilterFile != null) {
+			//读取规则文件
+			readDependencyFilterFile(allIncludes, allExcludes);
+		}
+		if (!allIncludes.isEmpty()) {
 			//添加包含Artifacts过滤器
-			filters.addFilter(new IncludeFilter(this.includes));
+			filters.addFilter(new IncludeFilter(allIncludes));
 		}
-		if (this.excludes != null && !this.excludes.isEmpty()) {
+		if (!allExcludes.isEmpty()) {
 			//添加排除Artifacts过滤器
-			filters.addFilter(new ExcludeFilter(this.excludes));
+			filters.addFilter(new ExcludeFilter(allExcludes));
 		}
 		return filters;
 	}
 
+	private void readDependencyFilterFile(List<Include> includes, List<Exclude> excludes)
+			throws MojoExecutionException {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(this.dependencyFilterFile.toPath(), StandardCharsets.UTF_8);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to read dependency filter file " + this.dependencyFilterFile,
+					ex);
+		}
+		for (String line : lines) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			boolean include = line.startsWith("+");
+			if (include || line.startsWith("-")) {
+				line = line.substring(1).trim();
+			}
+			List<String> coordinates = splitCoordinates(line);
+			if (coordinates.size() < 2 || coordinates.size() > 3) {
+				throw new MojoExecutionException("Invalid dependency '" + line + "' in " + this.dependencyFilterFile
+						+ ", expected groupId:artifactId[:classifier]");
+			}
+			FilterableDependency dependency = include ? new Include() : new Exclude();
+			dependency.setGroupId(coordinates.get(0));
+			dependency.setArtifactId(coordinates.get(1));
+			dependency.setClassifier((coordinates.size() == 3) ? coordinates.get(2) : null);
+			if (include) {
+				includes.add((Include) dependency);
+			}
+			else {
+				excludes.add((Exclude) dependency);
+			}
+		}
+	}
+
+	/**
+	 * Split the specified coordinates on {@code :}, except in the regular expressions
+	 * enclosed in slashes.
+	 * @param line the coordinates
+	 * @return the coordinates
+	 */
+	static List<String> splitCoordinates(String line) {
+		List<String> coordinates = new ArrayList<>();
+		int start = 0;
+		while (true) {
+			int end = -1;
+			if (line.startsWith("/", start)) {
+				//正则表达式到下一个"/:"或行尾的"/"为止
+				end = line.indexOf("/:", start + 1);
+				if (end != -1) {
+					end++;
+				}
+				else if (line.length() - 1 > start && line.endsWith("/")) {
+					end = line.length();
+				}
+			}
+			if (end == -1) {
+				end = line.indexOf(':', start);
+				if (end == -1) {
+					end = line.length();
+				}
+			}
+			coordinates.add(line.substring(start, end));
+			if (end == line.length()) {
+				return coordinates;
+			}
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Add the filter configuration of this MOJO to the specified {@link Fingerprint}.
+	 * 将过滤器配置添加到指纹中
+	 * @param fingerprint the fingerprint to update
+	 */
+	protected void addFilterConfiguration(Fingerprint fingerprint) {
+		fingerprint.add(this.excludeGroupIds);
+		addDependencies(fingerprint, "includes", this.includes);
+		addDependencies(fingerprint, "excludes", this.excludes);
+		if (this.dependencyFilterFile != null) {
+			fingerprint.add(this.dependencyFilterFile);
+		}
+	}
+
+	private void addDependencies(Fingerprint fingerprint, String name,
+			List<? extends FilterableDependency> dependencies) {
+		fingerprint.add(name);
+		if (dependencies != null) {
+			for (FilterableDependency dependency : dependencies) {
+				fingerprint.add(dependency.getGroupId()).add(dependency.getArtifactId())
+						.add(dependency.getClassifier());
+			}
+		}
+	}
+
 	/**
 	 * 去除以逗号相隔的字符串前后空格
 	 * @param content
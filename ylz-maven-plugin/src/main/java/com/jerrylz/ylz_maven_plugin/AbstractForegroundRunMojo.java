@@ -0,0 +1,739 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.management.InstanceNotFoundException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import org.springframework.boot.loader.tools.JavaExecutable;
+
+import com.jerrylz.ylz_maven_plugin.JvmPool.PooledJvm;
+
+/**
+ * Base class of the goals that run an executable archive application in the
+ * foreground. It declares no forked lifecycle, so that each goal decides what to build
+ * before the application is run.
+ * 前台运行应用的指令基类
+ *
+ * @author Phillip Webb
+ * @author Dmytro Nosan
+ * @author Stephane Nicoll
+ * @author Andy Wilkinson
+ * @since 1.0.0
+ */
+public abstract class AbstractForegroundRunMojo extends AbstractRunMojo {
+
+	private static final int EXIT_CODE_SIGINT = 130;
+
+	private static final long READY_WAIT = 100;
+
+	private static final int READY_MAX_ATTEMPTS = 1200;
+
+	private static final String RESTARTER_CLASS_LOCATION = "org/springframework/boot/devtools/restart/Restarter.class";
+
+	/**
+	 * Devtools presence flag to avoid checking for it several times per execution.
+	 */
+	private Boolean hasDevtools;
+
+	/**
+	 * Whether the JVM's launch should be optimized.
+	 * @since 2.2.0
+	 */
+	@Parameter(property = "spring-boot.run.optimizedLaunch", defaultValue = "true")
+	private boolean optimizedLaunch;
+
+	/**
+	 * The launch preset of the forked JVM: {@code fast-startup}, {@code throughput},
+	 * {@code low-latency} or {@code low-memory}. A preset adds a set of JVM arguments
+	 * sized for the processors and memory of the host and replaces
+	 * {@code optimizedLaunch}. Options also set in {@code jvmArguments} take precedence
+	 * over the preset.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.launchPreset")
+	private String launchPreset;
+
+	/**
+	 * Whether the application should be launched in a pre-warmed JVM. Idle JVMs are
+	 * booted in the background with the JVM arguments, agents and classpath of the
+	 * application and wait for the next run. Idle JVMs started for a different
+	 * configuration are shut down. The output of the application is written to
+	 * {@code output.log} as for a forked process but {@code readyPattern} is not used.
+	 * The exit status is {@code 1} if the main method fails and {@code 0} otherwise: a
+	 * status the application passes to {@code System.exit} cannot be observed, so an
+	 * application that exits with an error this way does not fail the build.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.pool", defaultValue = "false")
+	private boolean pool;
+
+	/**
+	 * The number of idle JVMs to keep when {@code pool} is enabled.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.poolSize", defaultValue = "1")
+	private int poolSize;
+
+	/**
+	 * The number of seconds after which an idle JVM of the pool exits.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.poolIdleTimeout", defaultValue = "1800")
+	private int poolIdleTimeout;
+
+	/**
+	 * Whether the application should be restarted in the Maven JVM when the classes
+	 * directory or the additional folders change. The dependencies are loaded once and
+	 * only the project classes are loaded again on restart. Does not require
+	 * {@code spring-boot-devtools}. Implies that fork is disabled.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.watch", defaultValue = "false")
+	private boolean watch;
+
+	/**
+	 * The number of milliseconds without changes to wait for before restarting the
+	 * application when {@code watch} is enabled.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.watchQuietPeriod", defaultValue = "400")
+	private long watchQuietPeriod;
+
+	/**
+	 * The number of milliseconds to wait for the application to stop before restarting it
+	 * when {@code watch} is enabled.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.watchStopTimeout", defaultValue = "10000")
+	private long watchStopTimeout;
+
+	/**
+	 * The port to use to expose the platform MBeanServer of the forked process when
+	 * {@code startupReport} is enabled and the process cannot be attached by pid.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.jmxPort", defaultValue = "9001")
+	private int jmxPort;
+
+	/**
+	 * The number of instances of the application to fork. When more than one instance is
+	 * started, each instance gets its own free {@code server.port} and a round-robin TCP
+	 * proxy listening on {@code proxyPort} spreads the connections over them.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.instances", defaultValue = "1")
+	private int instances;
+
+	/**
+	 * The port of the round-robin proxy in front of the instances when {@code instances}
+	 * is greater than one.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.proxyPort", defaultValue = "8080")
+	private int proxyPort;
+
+	/**
+	 * The address the round-robin proxy binds to. The proxy only accepts local
+	 * connections by default, set {@code 0.0.0.0} to accept connections from other
+	 * hosts.
+	 * 代理绑定的地址（默认只监听本机）
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.proxyHost")
+	private String proxyHost;
+
+	@Override
+	protected boolean isFork() {
+		return super.isFork() && !this.watch;
+	}
+
+	@Override
+	@Deprecated
+	protected boolean enableForkByDefault() {
+		return super.enableForkByDefault() || hasDevtools();
+	}
+
+	@Override
+	protected void logDisabledFork() {
+		super.logDisabledFork();
+		if (hasDevtools()) {
+			getLog().warn("Fork mode disabled, devtools will be disabled");
+		}
+	}
+
+	@Override
+	protected RunArguments resolveJvmArguments() {
+		RunArguments jvmArguments = super.resolveJvmArguments();
+		if (!isFork()) {
+			return jvmArguments;
+		}
+		List<String> presetArguments = new ArrayList<>();
+		LaunchPreset preset = getLaunchPreset();
+		if (preset != null) {
+			presetArguments.addAll(preset.getJvmArguments());
+		}
+		else if (this.optimizedLaunch) {
+			if (!isJava13OrLater()) {
+				presetArguments.add("-Xverify:none");
+			}
+			presetArguments.add("-XX:TieredStopAtLevel=1");
+		}
+		//预设参数在前,与用户参数冲突时以用户参数为准
+		return new RunArguments(
+				LaunchPreset.merge(presetArguments, jvmArguments.getArgs()).toArray(new String[0]));
+	}
+
+	private LaunchPreset getLaunchPreset() {
+		if (this.launchPreset == null || this.launchPreset.trim().isEmpty()) {
+			return null;
+		}
+		return LaunchPreset.fromName(this.launchPreset);
+	}
+
+	@Override
+	protected void addLaunchConfiguration(Fingerprint fingerprint) {
+		super.addLaunchConfiguration(fingerprint);
+		fingerprint.add(Boolean.toString(this.optimizedLaunch)).add(String.valueOf(this.launchPreset));
+		if (getLaunchPreset() != null) {
+			//预设参数取决于处理器数量与内存大小
+			LaunchPreset.Host host = LaunchPreset.Host.current();
+			fingerprint.add(String.valueOf(host.getProcessors())).add(String.valueOf(host.getMemory()));
+		}
+	}
+
+	private boolean isJava13OrLater() {
+		for (Method method : String.class.getMethods()) {
+			if (method.getName().equals("stripIndent")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected void runWithForkedJvm(File workingDirectory, LaunchPlan plan)
+			throws MojoExecutionException, MojoFailureException {
+		if (this.instances > 1) {
+			runInstances(workingDirectory, plan);
+			return;
+		}
+		if (isStartupReport()) {
+			runWithStartupReport(workingDirectory, plan);
+			return;
+		}
+		if (!this.pool) {
+			super.runWithForkedJvm(workingDirectory, plan);
+			return;
+		}
+		List<String> jvmArguments = new ArrayList<>(plan.getJvmArguments());
+		addClasspath(jvmArguments, plan.getClasspath());
+		JvmPool jvmPool = new JvmPool(new File(getWorkDirectory(), "pool"),
+				fingerprintPool(workingDirectory, jvmArguments, plan), getLog());
+		PhaseMetrics.Phase spawn = getPhaseMetrics().start(PhaseMetrics.SPAWN);
+		PooledJvm jvm = jvmPool.claim(TimeUnit.SECONDS.toMillis(30));
+		spawn.close();
+		try {
+			//为下一次运行预热新的JVM
+			jvmPool.fill(this.poolSize, workingDirectory, jvmArguments, plan.getEnvironment(),
+					(int) TimeUnit.SECONDS.toMillis(this.poolIdleTimeout));
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to start idle JVM: " + ex.getMessage());
+		}
+		if (jvm == null) {
+			getLog().info("No idle JVM available, forking a new one");
+			super.runWithForkedJvm(workingDirectory, plan);
+			return;
+		}
+		getLog().info("Launching application in a pre-warmed JVM");
+		runInPooledJvm(jvm, plan.getStartClass(), Collections.emptyList(), plan.getApplicationArguments());
+	}
+
+	/**
+	 * Launch the application in a claimed JVM and copy its output until it exits.
+	 * @param jvm the claimed JVM
+	 * @param startClassName the class to run
+	 * @param classpath the classpath entries the JVM was not started with
+	 * @param applicationArguments the application arguments
+	 * @throws MojoExecutionException if the application failed
+	 */
+	void runInPooledJvm(PooledJvm jvm, String startClassName, List<File> classpath,
+			List<String> applicationArguments) throws MojoExecutionException {
+		if (getReadyPattern() != null) {
+			getLog().warn("readyPattern is not used when the application is launched in a pre-warmed JVM");
+		}
+		//与fork进程相同,输出写入控制台与日志文件
+		ProcessOutput output = createProcessOutput("output.log");
+		Thread closer = new Thread(new PooledJvmCloser(jvm));
+		Runtime.getRuntime().addShutdownHook(closer);
+		try {
+			int exitCode = jvm.run(startClassName, classpath, applicationArguments,
+					getPhaseMetrics().recordFirstOutput(output));
+			Runtime.getRuntime().removeShutdownHook(closer);
+			checkExitCode(exitCode);
+		}
+		catch (EOFException ex) {
+			Runtime.getRuntime().removeShutdownHook(closer);
+			throw new MojoExecutionException("Application terminated without reporting an exit code");
+		}
+		catch (IOException ex) {
+			// The connection is closed when the build is interrupted
+			getLog().debug("Connection to pre-warmed JVM closed (" + ex.getMessage() + ")");
+		}
+		finally {
+			closeQuietly(jvm);
+			closeQuietly(output);
+		}
+	}
+
+	private void runWithStartupReport(File workingDirectory, LaunchPlan plan) throws MojoExecutionException {
+		List<String> args = getCommandLine(withStartupRecording(plan));
+		//就绪状态通过SpringApplicationAdmin MBean获取
+		args.add(ForkedApplication.ENABLE_MBEAN_PROPERTY);
+		args.add(ForkedApplication.JMX_NAME_PROPERTY_PREFIX + SpringApplicationAdminClient.DEFAULT_OBJECT_NAME);
+		ForkedApplication application = startApplication(workingDirectory, args, plan.getEnvironment(),
+				this.jmxPort, SpringApplicationAdminClient.DEFAULT_OBJECT_NAME, "output.log");
+		Runtime.getRuntime().addShutdownHook(new Thread(application::kill));
+		long timeToReady = application.waitForReady(READY_WAIT, READY_MAX_ATTEMPTS);
+		recordReady(application, timeToReady);
+		try {
+			reportStartup(application.getConnection(), plan, timeToReady);
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to create startup report: " + ex.getMessage());
+		}
+		finally {
+			application.disconnect();
+		}
+		checkExitCode(application.waitForExit(Long.MAX_VALUE));
+	}
+
+	private void runInstances(File workingDirectory, LaunchPlan plan) throws MojoExecutionException {
+		if (this.pool || isStartupReport()) {
+			getLog().warn("Pre-warmed JVMs and startup report are not used when several instances are started");
+		}
+		InetSocketAddress proxyAddress = getProxyAddress();
+		List<Integer> ports;
+		try {
+			//每个实例一个服务端口,JMX端口在fork时分配
+			ports = RoundRobinProxy.allocatePorts(this.instances);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to allocate ports for " + this.instances + " instances", ex);
+		}
+		List<ForkedApplication> applications = new ArrayList<>();
+		List<InetSocketAddress> backends = new ArrayList<>();
+		try {
+			for (int i = 0; i < this.instances; i++) {
+				int serverPort = ports.get(i);
+				List<String> args = getCommandLine(plan);
+				args.add("--server.port=" + serverPort);
+				args.add(ForkedApplication.ENABLE_MBEAN_PROPERTY);
+				args.add(ForkedApplication.JMX_NAME_PROPERTY_PREFIX + SpringApplicationAdminClient.DEFAULT_OBJECT_NAME);
+				//每个实例单独的输出日志文件
+				ForkedApplication application = startApplication(workingDirectory, args, plan.getEnvironment(), 0,
+						SpringApplicationAdminClient.DEFAULT_OBJECT_NAME, "output-" + (i + 1) + ".log");
+				Runtime.getRuntime().addShutdownHook(new Thread(application::kill));
+				applications.add(application);
+				backends.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), serverPort));
+				getLog().info("Starting instance " + (i + 1) + " on port " + serverPort);
+			}
+			long timeToAllReady = 0;
+			for (int i = 0; i < applications.size(); i++) {
+				long timeToReady = applications.get(i).waitForReady(READY_WAIT, READY_MAX_ATTEMPTS);
+				applications.get(i).disconnect();
+				getLog().info("Instance " + (i + 1) + " ready in " + timeToReady + "ms");
+				timeToAllReady = Math.max(timeToAllReady, timeToReady);
+			}
+			getPhaseMetrics().record(PhaseMetrics.READY, timeToAllReady);
+		}
+		catch (MojoExecutionException ex) {
+			applications.forEach(ForkedApplication::kill);
+			throw ex;
+		}
+		RoundRobinProxy proxy = new RoundRobinProxy(proxyAddress, backends, getLog());
+		try {
+			proxy.start();
+		}
+		catch (IOException ex) {
+			applications.forEach(ForkedApplication::kill);
+			throw new MojoExecutionException("Unable to start proxy on " + proxyAddress, ex);
+		}
+		getLog().info("Round-robin proxy listening on " + proxyAddress + " in front of " + this.instances
+				+ " instances");
+		List<Integer> exitCodes = new ArrayList<>();
+		try {
+			for (ForkedApplication application : applications) {
+				exitCodes.add(application.waitForExit(Long.MAX_VALUE));
+			}
+		}
+		finally {
+			closeQuietly(proxy);
+			getLog().info("Connections per instance: " + Arrays.toString(proxy.getConnectionCounts()));
+		}
+		for (int exitCode : exitCodes) {
+			checkExitCode(exitCode);
+		}
+	}
+
+	/**
+	 * Check if a single instance of the application is launched without a startup
+	 * report.
+	 * @return {@code true} if a single plain launch is requested
+	 */
+	boolean isSingleLaunch() {
+		return this.instances <= 1 && !isStartupReport();
+	}
+
+	private String fingerprintPool(File workingDirectory, List<String> jvmArguments, LaunchPlan plan) {
+		Fingerprint fingerprint = new Fingerprint();
+		fingerprint.add(new JavaExecutable().toString()).add(JvmPool.getLauncherLocation());
+		fingerprint.add(workingDirectory.getAbsolutePath());
+		for (String argument : jvmArguments) {
+			fingerprint.add(argument);
+		}
+		for (File entry : plan.getClasspath()) {
+			//目录中的类在启动后才加载,只需关注jar文件
+			fingerprint.add(entry.isFile() ? entry.getAbsolutePath() + "@" + entry.lastModified() + ":" + entry.length()
+					: entry.getAbsolutePath());
+		}
+		for (Map.Entry<String, String> entry : plan.getEnvironment().entrySet()) {
+			fingerprint.add(entry.getKey()).add(entry.getValue());
+		}
+		return fingerprint.toHex();
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
+	@Override
+	protected void runWithForkedJvm(File workingDirectory, List<String> args, Map<String, String> environmentVariables)
+			throws MojoExecutionException {
+		checkExitCode(forkJvm(workingDirectory, args, environmentVariables));
+	}
+
+	private void checkExitCode(int exitCode) throws MojoExecutionException {
+		if (exitCode == 0 || exitCode == EXIT_CODE_SIGINT) {
+			return;
+		}
+		throw new MojoExecutionException("Application finished with exit code: " + exitCode);
+	}
+
+	private InetSocketAddress getProxyAddress() throws MojoExecutionException {
+		if (this.proxyHost == null || this.proxyHost.trim().isEmpty()) {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), this.proxyPort);
+		}
+		InetSocketAddress address = new InetSocketAddress(this.proxyHost.trim(), this.proxyPort);
+		if (address.isUnresolved()) {
+			throw new MojoExecutionException("Unable to resolve proxy host " + this.proxyHost);
+		}
+		return address;
+	}
+
+	private int forkJvm(File workingDirectory, List<String> args, Map<String, String> environmentVariables)
+			throws MojoExecutionException {
+		//输出由独立线程读取,控制台较慢时不会阻塞应用
+		ForkedProcess process = forkProcess(workingDirectory, args, environmentVariables, "output.log");
+		Runtime.getRuntime().addShutdownHook(new Thread(process::kill));
+		Pattern readyPattern = getReadyPattern();
+		if (readyPattern != null) {
+			watchReadiness(process, readyPattern);
+		}
+		try {
+			return process.waitFor();
+		}
+		finally {
+			closeQuietly(process);
+			if (process.getTimeToFirstOutput() >= 0) {
+				getPhaseMetrics().record(PhaseMetrics.FIRST_OUTPUT, process.getTimeToFirstOutput());
+			}
+		}
+	}
+
+	/**
+	 * Watch the output of the application for the ready pattern in the background and
+	 * record the time it took to appear.
+	 * @param process the forked process
+	 * @param readyPattern the pattern the application logs once it is ready
+	 */
+	private void watchReadiness(ForkedProcess process, Pattern readyPattern) {
+		long startTime = System.nanoTime();
+		Thread thread = new Thread(() -> {
+			try (LogPatternScanner scanner = new LogPatternScanner(process.getLogFile(), readyPattern)) {
+				while (process.getProcess().isAlive()) {
+					if (scanner.scan()) {
+						long timeToReady = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+						getPhaseMetrics().record(PhaseMetrics.READY, timeToReady);
+						if (scanner.getReportedStartupTime() >= 0) {
+							getPhaseMetrics().record(PhaseMetrics.REPORTED_STARTUP, scanner.getReportedStartupTime());
+						}
+						getLog().info("Application is ready (" + timeToReady + "ms)");
+						return;
+					}
+					Thread.sleep(READY_WAIT);
+				}
+			}
+			catch (Exception ex) {
+				//仅用于统计,失败时忽略
+				getLog().debug("Unable to detect readiness: " + ex.getMessage());
+			}
+		}, "ylz-readiness");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	protected void runWithMavenJvm(String startClassName, String... arguments) throws MojoExecutionException {
+		if (this.watch) {
+			runWithRestarts(startClassName, arguments);
+			return;
+		}
+		if (isClassLoaderCacheEnabled()) {
+			runWithCachedDependencies(startClassName, arguments);
+			return;
+		}
+		IsolatedThreadGroup threadGroup = new IsolatedThreadGroup(startClassName);
+		Thread launchThread = new Thread(threadGroup, new LaunchRunner(startClassName, arguments), "main");
+		launchThread.setContextClassLoader(createClassLoader(getClassPathUrls()));
+		launchThread.start();
+		join(threadGroup);
+		threadGroup.rethrowUncaughtException();
+	}
+
+	private void runWithCachedDependencies(String startClassName, String... arguments)
+			throws MojoExecutionException {
+		//依赖类加载器跨执行复用,只重新加载项目的类
+		try (DependencyClassLoaderCache.Lease lease = acquireDependencyClassLoader();
+				URLClassLoader projectClassLoader = createProjectClassLoader(lease.getClassLoader())) {
+			IsolatedThreadGroup threadGroup = new IsolatedThreadGroup(startClassName);
+			Thread launchThread = new Thread(threadGroup, new LaunchRunner(startClassName, arguments), "main");
+			launchThread.setContextClassLoader(projectClassLoader);
+			launchThread.start();
+			join(threadGroup);
+			threadGroup.rethrowUncaughtException();
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to close the class loader of the application", ex);
+		}
+	}
+
+	private void runWithRestarts(String startClassName, String... arguments) throws MojoExecutionException {
+		URL[] restartUrls = getRestartClassPathUrls();
+		List<String> applicationArguments = new ArrayList<>(Arrays.asList(arguments));
+		//通过SpringApplicationAdmin MBean停止应用,不依赖devtools
+		applicationArguments.add(ForkedApplication.ENABLE_MBEAN_PROPERTY);
+		applicationArguments.add(
+				ForkedApplication.JMX_NAME_PROPERTY_PREFIX + SpringApplicationAdminClient.DEFAULT_OBJECT_NAME);
+		try (ResourceOverlay overlay = createResourceOverlay();
+				DependencyClassLoaderCache.Lease lease = acquireDependencyClassLoader();
+				ClassPathWatcher watcher = new ClassPathWatcher(toDirectories(restartUrls), this.watchQuietPeriod)) {
+			if (overlay != null) {
+				overlay.watch();
+			}
+			while (true) {
+				//资源覆盖层在重启之间复用
+				try (RestartClassLoader restartClassLoader = new RestartClassLoader(restartUrls,
+						lease.getClassLoader(), overlay)) {
+					IsolatedThreadGroup threadGroup = new IsolatedThreadGroup(startClassName);
+					Thread launchThread = new Thread(threadGroup,
+							new LaunchRunner(startClassName, applicationArguments.toArray(new String[0])), "main");
+					launchThread.setContextClassLoader(restartClassLoader);
+					launchThread.start();
+					Set<Path> changes = watcher.waitForChanges();
+					getLog().info("Restarting application, " + changes.size() + " change(s) detected");
+					if (getLog().isDebugEnabled()) {
+						changes.forEach((change) -> getLog().debug("Changed: " + change));
+					}
+					try (PhaseMetrics.Phase phase = getPhaseMetrics().start(PhaseMetrics.SHUTDOWN)) {
+						stop(threadGroup);
+					}
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to watch the classpath", ex);
+		}
+	}
+
+	private List<File> toDirectories(URL[] urls) throws MojoExecutionException {
+		List<File> directories = new ArrayList<>();
+		for (URL url : urls) {
+			try {
+				File file = new File(url.toURI());
+				if (file.isDirectory()) {
+					directories.add(file);
+				}
+			}
+			catch (URISyntaxException ex) {
+				throw new MojoExecutionException("Invalid classpath entry " + url, ex);
+			}
+		}
+		return directories;
+	}
+
+	/**
+	 * Stop the application running in the specified thread group. The application is
+	 * closed through its {@code SpringApplicationAdmin} MBean if it registered one, the
+	 * remaining threads are interrupted otherwise.
+	 * @param threadGroup the thread group of the application
+	 */
+	private void stop(IsolatedThreadGroup threadGroup) {
+		try {
+			new SpringApplicationAdminClient(ManagementFactory.getPlatformMBeanServer(),
+					SpringApplicationAdminClient.DEFAULT_OBJECT_NAME).stop();
+		}
+		catch (InstanceNotFoundException ex) {
+			getLog().debug("Application did not register the admin MBean, interrupting its threads");
+		}
+		catch (MojoExecutionException | IOException ex) {
+			getLog().warn("Unable to stop the application gracefully: " + ex.getMessage());
+		}
+		boolean stopped = join(threadGroup, this.watchStopTimeout);
+		//中断剩余的线程（包括守护线程）,避免旧的类加载器无法回收
+		interrupt(threadGroup);
+		if (!stopped && !join(threadGroup, this.watchStopTimeout)) {
+			getLog().warn("Application threads are still running after restart");
+		}
+	}
+
+	private boolean join(ThreadGroup threadGroup, long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		for (Thread thread : getThreads(threadGroup)) {
+			if (!thread.isDaemon()) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				try {
+					thread.join(remaining);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		for (Thread thread : getThreads(threadGroup)) {
+			if (!thread.isDaemon() && thread.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void interrupt(ThreadGroup threadGroup) {
+		for (Thread thread : getThreads(threadGroup)) {
+			thread.interrupt();
+		}
+	}
+
+	private Thread[] getThreads(ThreadGroup threadGroup) {
+		Thread[] threads = new Thread[threadGroup.activeCount()];
+		int count = threadGroup.enumerate(threads);
+		return Arrays.copyOf(threads, count);
+	}
+
+	private void join(ThreadGroup threadGroup) {
+		boolean hasNonDaemonThreads;
+		do {
+			hasNonDaemonThreads = false;
+			Thread[] threads = new Thread[threadGroup.activeCount()];
+			threadGroup.enumerate(threads);
+			for (Thread thread : threads) {
+				if (thread != null && !thread.isDaemon()) {
+					try {
+						hasNonDaemonThreads = true;
+						thread.join();
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		}
+		while (hasNonDaemonThreads);
+	}
+
+	private boolean hasDevtools() {
+		if (this.hasDevtools == null) {
+			this.hasDevtools = checkForDevtools();
+		}
+		return this.hasDevtools;
+	}
+
+	private boolean checkForDevtools() {
+		try {
+			URL[] urls = getClassPathUrls();
+			try (URLClassLoader classLoader = new URLClassLoader(urls)) {
+				return (classLoader.findResource(RESTARTER_CLASS_LOCATION) != null);
+			}
+		}
+		catch (Exception ex) {
+			return false;
+		}
+	}
+
+	private static final class PooledJvmCloser implements Runnable {
+
+		private final PooledJvm jvm;
+
+		private PooledJvmCloser(PooledJvm jvm) {
+			this.jvm = jvm;
+		}
+
+		@Override
+		public void run() {
+			closeQuietly(this.jvm);
+		}
+
+	}
+
+}
@@ -20,17 +20,28 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -82,6 +93,24 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	@Parameter(property = "spring-boot.run.addResources", defaultValue = "false")
 	private boolean addResources = false;
 
+	/**
+	 * Flag to serve the resources added by {@code addResources} through an overlay
+	 * instead of removing their duplicates from {@code target/classes}. The class loader
+	 * of the application serves each resource from the resource directories first and
+	 * hides its copy in the classes directory, so nothing is deleted and the next
+	 * incremental build is not disturbed. The overlay follows the changes of the resource
+	 * directories. A forked JVM uses it as its system class loader, which prevents the JVM
+	 * from using the application classes of an AppCDS archive. NOTE: the application
+	 * classes are still defined by the parent of the overlay, only the lookups through
+	 * the thread context class loader see it. {@code Class.getResource()} and
+	 * {@code Class.getResourceAsStream()}, as well as a {@code ClassPathResource} created
+	 * for a class, are served from the copy in {@code target/classes}.
+	 * 通过覆盖层提供资源文件,不删除classes目录中的重复文件(仅线程上下文类加载器可见)
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.resourceOverlay", defaultValue = "false")
+	private boolean resourceOverlay;
+
 	/**
 	 * Path to agent jar. NOTE: a forked process is required to use this feature.
 	 * @since 1.0.0
@@ -173,6 +202,16 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	@Parameter(property = "spring-boot.run.main-class")
 	private String mainClass;
 
+	/**
+	 * Flag to keep an index of the classes that declare a main method in the build
+	 * directory when {@code mainClass} is not specified, so that only the class files
+	 * that changed since the previous run are scanned again.
+	 * 是否使用启动类索引（只重新扫描变化的类文件）
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.mainClassIndex", defaultValue = "true")
+	private boolean mainClassIndex;
+
 	/**
 	 * Additional folders besides the classes directory that should be added to the
 	 * classpath.
@@ -209,6 +248,196 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	@Parameter(property = "spring-boot.run.useTestClasspath", defaultValue = "false")
 	private Boolean useTestClasspath;
 
+	/**
+	 * Flag to write the classpath of the forked process to a file rather than passing it
+	 * inline on the command line. A JVM argument file is used on Java 9 and later, a
+	 * manifest-only jar otherwise. The file is only regenerated when the classpath
+	 * changes. NOTE: a forked process is required to use this feature.
+	 * 是否将fork进程的类路径写入文件（Java 9+使用参数文件,否则使用清单jar）
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.classpathFile", defaultValue = "false")
+	private boolean classpathFile;
+
+	/**
+	 * Flag to load the application through a class loader that finds classes and
+	 * resources with an index of the packages of each jar, stored in
+	 * {@code target/ylz/classpath.idx}, rather than by probing the classpath in order.
+	 * Jars are only opened when a class or resource of one of their packages is needed.
+	 * A forked JVM is started with a small launcher as its main class, so it is not used
+	 * with the JVM pool nor the application classes of an AppCDS archive.
+	 * 是否使用基于类路径索引的类加载器
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.indexedClassLoader", defaultValue = "false")
+	private boolean indexedClassLoader;
+
+	/**
+	 * Flag to read the jars of the classpath in parallel before the application is
+	 * forked, so that the forked JVM finds them in the page cache. Once a run has been
+	 * recorded (Java 10 or later), only the central directories and the class entries
+	 * loaded by that run are read. Otherwise the jars are read entirely.
+	 * NOTE: a forked process is required to use this feature.
+	 * 是否在fork前并行预读类路径中的jar
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.prefetch", defaultValue = "false")
+	private boolean prefetch;
+
+	/**
+	 * Flag to merge the dependency jars into a single jar whose entries are stored
+	 * uncompressed and sorted, and to use it in place of the jars. The first jar in
+	 * classpath order wins for duplicate entries, service provider files and
+	 * {@code spring.factories} are merged. The bundle is only built again when the
+	 * dependency jars change. Signed jars are kept as they are.
+	 * 是否将依赖jar合并为一个不压缩的jar
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.bundleDependencies", defaultValue = "false")
+	private boolean bundleDependencies;
+
+	/**
+	 * Flag to run the repackaged jar of the project instead of its classes directory and
+	 * dependencies. The classes and the nested jars of the archive are extracted once,
+	 * into a directory named after the checksum of the archive, and the application is
+	 * forked from that exploded layout with the classpath order of the classpath index
+	 * of the archive. The archive must have been built beforehand, for instance with
+	 * {@code mvn package}.
+	 * NOTE: a forked process is required to use this feature.
+	 * 是否从重新打包的可执行jar运行
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.fromArchive", defaultValue = "false")
+	private boolean fromArchive;
+
+	/**
+	 * The repackaged jar to run when {@code fromArchive} is enabled.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.archive",
+			defaultValue = "${project.build.directory}/${project.build.finalName}.jar")
+	private File archive;
+
+	/**
+	 * The number of threads reading the jars when {@code prefetch} is enabled.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.prefetchThreads", defaultValue = "8")
+	private int prefetchThreads;
+
+	/**
+	 * The number of class loaders of dependencies to keep between the runs of a
+	 * long-lived Maven JVM, such as a Maven daemon. An application run in the Maven JVM
+	 * then loads its dependencies through the class loader of a previous run with the
+	 * same dependency files and only loads the classes of the project again. The least
+	 * recently used class loaders are closed. As the cached class loaders keep their
+	 * jars open and their classes loaded, the cache is disabled by default and is only
+	 * worth enabling in a long-lived Maven JVM. {@code 0} disables the cache.
+	 * 跨多次执行缓存的依赖类加载器数量（默认关闭）
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.classLoaderCacheSize", defaultValue = "0")
+	private int classLoaderCacheSize;
+
+	/**
+	 * Flag to store the resolved launch plan (classpath, start class, JVM and application
+	 * arguments, environment) in the build directory and reuse it as long as the
+	 * dependencies, the plugin configuration and the classes directory do not change.
+	 * NOTE: a forked process is required to use this feature.
+	 * 是否缓存启动计划（依赖、插件配置以及classes目录未变化时直接复用）
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.cacheLaunchPlan", defaultValue = "false")
+	private boolean cacheLaunchPlan;
+
+	/**
+	 * Flag to use the AppCDS archive created by the "cds" goal, if any. The archive is
+	 * removed as soon as the classpath no longer matches the one it was created for. While
+	 * an archive is used, the dependency jars are placed ahead of the directories on the
+	 * classpath, the archive is therefore ignored, with a warning, if a jar contains a file
+	 * of the classes directory or of a resource directory. The directories are checked
+	 * again whenever a file is added to or removed from them. NOTE: a forked process is
+	 * required to use this feature.
+	 * 是否使用cds目标生成的AppCDS归档文件
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.useCdsArchive", defaultValue = "false")
+	private boolean useCdsArchive;
+
+	/**
+	 * Flag to record the startup of the forked process with Java Flight Recorder. The
+	 * recording is dumped as soon as the application is ready and a report of the time
+	 * to main, the time to ready, the class loading time per jar, the hot methods, the GC
+	 * pauses and the allocations is printed and written to the build directory. NOTE: a
+	 * forked process is required to use this feature.
+	 * 是否使用JFR记录启动过程并生成启动报告
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.startupReport", defaultValue = "false")
+	private boolean startupReport;
+
+	/**
+	 * Flag to record the wall-clock time and the allocations of each phase of the
+	 * execution (argument resolution, dependency filtering, main class discovery,
+	 * classpath building, process spawn, time to ready...). A JSON record is appended to
+	 * {@code ylz-metrics.json} in the build directory and a summary is printed.
+	 * 是否记录各阶段耗时及内存分配
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.metrics", defaultValue = "true")
+	private boolean metrics;
+
+	/**
+	 * The current execution, used to name the goal in the metrics.
+	 */
+	@Parameter(defaultValue = "${mojoExecution}", readonly = true)
+	private MojoExecution mojoExecution;
+
+	private final PhaseMetrics phaseMetrics = new PhaseMetrics();
+
+	/**
+	 * The size in bytes of the buffer the output of the forked process is drained into
+	 * before it is written to the log file, which receives all of it. The console is fed
+	 * from another buffer of the same size asynchronously: the output it cannot keep up
+	 * with is not shown and summarized so that a slow console never slows the
+	 * application down.
+	 * 输出缓冲区大小
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.outputBufferSize", defaultValue = "1048576")
+	private int outputBufferSize;
+
+	/**
+	 * The size in bytes after which the log file receiving the full output of the forked
+	 * process, {@code output.log} in the plugin work directory, is rotated.
+	 * 输出日志文件滚动大小
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.outputLogSize", defaultValue = "10485760")
+	private long outputLogSize;
+
+	/**
+	 * The number of rotated output log files to keep.
+	 * 保留的输出日志文件数
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.outputLogFiles", defaultValue = "3")
+	private int outputLogFiles;
+
+	/**
+	 * Regular expression matched against the output of the forked process to detect
+	 * that the application is ready, for applications that do not enable the
+	 * {@code SpringApplicationAdmin} MBean. If the expression has a group, it is read as
+	 * the startup time in seconds reported by the application, for instance
+	 * {@code Started .* in ([0-9.]+) seconds}. The expression is matched against the log
+	 * file receiving the full output, not the console, so a line is never missed. NOTE: a
+	 * forked process is required to use this feature.
+	 * 通过匹配fork进程的输出判断应用是否就绪
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.readyPattern")
+	private String readyPattern;
+
 	/**
 	 * Skip the execution.
 	 * 是否跳过执行
@@ -229,8 +458,163 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 			getLog().debug("skipping run as per configuration.");
 			return;
 		}
-		//运行指令
-		run(getStartClass());
+		//应用被Ctrl-C结束时构建不会正常返回,通过钩子写入统计
+		Thread metricsWriter = new Thread(this::writeMetrics);
+		Runtime.getRuntime().addShutdownHook(metricsWriter);
+		try {
+			//运行前的准备工作
+			prepare();
+			//运行指令
+			run();
+		}
+		finally {
+			try {
+				Runtime.getRuntime().removeShutdownHook(metricsWriter);
+			}
+			catch (IllegalStateException ex) {
+				// Shutting down
+			}
+			writeMetrics();
+		}
+	}
+
+	/**
+	 * Prepare the run once the goal is known not to be skipped. Does nothing by default.
+	 * 运行前的准备工作
+	 * @throws MojoExecutionException if the preparation failed
+	 * @throws MojoFailureException if the preparation failed
+	 */
+	protected void prepare() throws MojoExecutionException, MojoFailureException {
+	}
+
+	private void writeMetrics() {
+		if (this.metrics) {
+			this.phaseMetrics.write(new File(this.project.getBuild().getDirectory()),
+					(this.mojoExecution != null) ? this.mojoExecution.getGoal() : "run", this.project.getId(),
+					getLog());
+		}
+	}
+
+	/**
+	 * Fork a JVM whose output is written to the console and to the specified log file in
+	 * the plugin work directory.
+	 * 启动fork进程
+	 * @param workingDirectory the working directory of the forked JVM
+	 * @param args the JVM and application arguments
+	 * @param environmentVariables the environment variables
+	 * @param logName the name of the log file
+	 * @return the forked process
+	 * @throws MojoExecutionException if the process could not be started
+	 */
+	protected ForkedProcess forkProcess(File workingDirectory, List<String> args,
+			Map<String, String> environmentVariables, String logName) throws MojoExecutionException {
+		ProcessOutput output = createProcessOutput(logName);
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.SPAWN)) {
+			return ForkedProcess.start(workingDirectory, args, environmentVariables, output);
+		}
+		catch (IOException ex) {
+			try {
+				output.close();
+			}
+			catch (IOException ex2) {
+				// Ignore
+			}
+			throw new MojoExecutionException("Could not exec java", ex);
+		}
+	}
+
+	/**
+	 * Create the sink of the output of an application, which writes it to the console
+	 * and to the specified log file in the plugin work directory.
+	 * 创建应用输出（写入控制台与日志文件）
+	 * @param logName the name of the log file
+	 * @return the output
+	 * @throws MojoExecutionException if the log file could not be opened
+	 */
+	protected ProcessOutput createProcessOutput(String logName) throws MojoExecutionException {
+		try {
+			RotatingLogFile logFile = new RotatingLogFile(new File(getWorkDirectory(), logName), this.outputLogSize,
+					this.outputLogFiles);
+			return new ProcessOutput(this.outputBufferSize, logFile, getLog());
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to open the output log " + logName, ex);
+		}
+	}
+
+	/**
+	 * Start the application in a forked JVM without waiting for it. Its readiness is
+	 * detected with the ready pattern if one is configured, through its
+	 * {@code SpringApplicationAdmin} MBean otherwise.
+	 * 启动fork进程中的应用
+	 * @param workingDirectory the working directory of the forked JVM
+	 * @param args the JVM and application arguments
+	 * @param environmentVariables the environment variables
+	 * @param jmxPort the port of the JMX connector of the forked JVM if the process cannot
+	 * be attached by pid, {@code 0} to allocate a free port
+	 * @param jmxName the name of the {@code SpringApplicationAdmin} MBean
+	 * @param logName the name of the log file
+	 * @return the started application
+	 * @throws MojoExecutionException if the process could not be started
+	 * @see ForkedApplication#resolveJmxPort(int)
+	 */
+	protected ForkedApplication startApplication(File workingDirectory, List<String> args,
+			Map<String, String> environmentVariables, int jmxPort, String jmxName, String logName)
+			throws MojoExecutionException {
+		Pattern pattern = getReadyPattern();
+		//JMX端口在每次fork时确定,不属于缓存的启动计划
+		int port = ForkedApplication.resolveJmxPort(jmxPort);
+		List<String> command = new ArrayList<>(ForkedApplication.getJmxArguments(port));
+		command.addAll(args);
+		ForkedApplication application = new ForkedApplication(
+				forkProcess(workingDirectory, command, environmentVariables, logName), port, jmxName, getLog());
+		if (pattern != null) {
+			application.useReadyPattern(pattern);
+		}
+		return application;
+	}
+
+	/**
+	 * Return the pattern that marks the application as ready in its output.
+	 * @return the pattern or {@code null} if the readiness is detected through the
+	 * {@code SpringApplicationAdmin} MBean
+	 * @throws MojoExecutionException if the pattern is invalid
+	 */
+	protected Pattern getReadyPattern() throws MojoExecutionException {
+		if (this.readyPattern == null || this.readyPattern.isEmpty()) {
+			return null;
+		}
+		try {
+			return Pattern.compile(this.readyPattern);
+		}
+		catch (PatternSyntaxException ex) {
+			throw new MojoExecutionException("Invalid readyPattern '" + this.readyPattern + "'", ex);
+		}
+	}
+
+	/**
+	 * Record the time it took the application to be ready and, if it has been captured
+	 * from its output, the startup time it reported.
+	 * 记录应用就绪耗时
+	 * @param application the application
+	 * @param timeToReady the time it took the application to be ready in milliseconds
+	 */
+	protected void recordReady(ForkedApplication application, long timeToReady) {
+		this.phaseMetrics.record(PhaseMetrics.READY, timeToReady);
+		long reportedStartupTime = application.getReportedStartupTime();
+		if (reportedStartupTime >= 0) {
+			this.phaseMetrics.record(PhaseMetrics.REPORTED_STARTUP, reportedStartupTime);
+			getLog().info("Application reported a startup time of " + reportedStartupTime + "ms");
+		}
+	}
+
+	/**
+	 * Return the metrics of the phases of this execution.
+	 * 获取各阶段统计
+	 * @return the phase metrics
+	 */
+	protected PhaseMetrics getPhaseMetrics() {
+		return this.phaseMetrics;
 	}
 
 	/**
@@ -273,22 +657,24 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 
 	/**
 	 * 运行指令
-	 * @param startClassName
 	 * @throws MojoExecutionException
 	 * @throws MojoFailureException
 	 */
-	private void run(String startClassName) throws MojoExecutionException, MojoFailureException {
+	private void run() throws MojoExecutionException, MojoFailureException {
 		//是否启用fork进程
 		boolean fork = isFork();
 		//设置全局属性fork启用标志
 		this.project.getProperties().setProperty("_spring.boot.fork.enabled", Boolean.toString(fork));
 		if (fork) {
 			//启用fork进程执行
-			doRunWithForkedJvm(startClassName);
+			doRunWithForkedJvm();
+		}
+		else if (this.fromArchive) {
+			throw new MojoExecutionException("Running the archive requires a forked process, make sure 'fork' is enabled");
 		}
 		else {
 			logDisabledFork();
-			runWithMavenJvm(startClassName, resolveApplicationArguments().asArray());
+			runWithMavenJvm(getStartClass(), resolveApplicationArguments().asArray());
 		}
 	}
 
@@ -314,25 +700,435 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 
 	/**
 	 * fork进程执行
-	 * @param startClassName
 	 * @throws MojoExecutionException
 	 * @throws MojoFailureException
 	 */
-	private void doRunWithForkedJvm(String startClassName) throws MojoExecutionException, MojoFailureException {
-		//整合命令参数列表
-		List<String> args = new ArrayList<>();
+	private void doRunWithForkedJvm() throws MojoExecutionException, MojoFailureException {
+		//解析启动计划
+		LaunchPlan plan = resolveLaunchPlan();
+		//agent以及jvm参数
+		List<String> jvmArguments = new ArrayList<>(plan.getJvmArguments());
+		//使用AppCDS归档文件
+		List<File> classpath = applyCdsArchive(plan.getClasspath(), jvmArguments);
+		if (isPrefetch()) {
+			//预读jar,并记录本次加载的类供下次使用
+			prefetch(classpath, jvmArguments);
+		}
+		plan = new LaunchPlan(plan.getStartClass(), jvmArguments, classpath, plan.getApplicationArguments(),
+				plan.getEnvironment());
+		runWithForkedJvm(getForkWorkingDirectory(), plan);
+	}
+
+	/**
+	 * Check if the repackaged jar of the project is run instead of its classes.
+	 * @return {@code true} if the archive is run
+	 */
+	protected boolean isFromArchive() {
+		return this.fromArchive;
+	}
+
+	/**
+	 * Check if the jars of the classpath are read before the application is forked.
+	 * @return {@code true} if the jars are prefetched
+	 */
+	protected boolean isPrefetch() {
+		return this.prefetch;
+	}
+
+	/**
+	 * Read the jars of the specified classpath in parallel, using the class list recorded
+	 * by the previous run if any, and record the classes loaded by this run.
+	 * 并行预读jar
+	 * @param classpath the classpath of the forked JVM
+	 * @param jvmArguments the JVM arguments of the forked JVM, to which the recording
+	 * argument is added
+	 */
+	private void prefetch(List<File> classpath, List<String> jvmArguments) {
+		File directory = new File(getWorkDirectory(), "prefetch");
+		File classList = new File(directory, "loaded.classlist");
+		File recordedClassList = new File(directory, "loaded.classlist.new");
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.PREFETCH)) {
+			Files.createDirectories(directory.toPath());
+			//上一次运行记录的类列表
+			if (recordedClassList.length() > 0) {
+				Files.move(recordedClassList.toPath(), classList.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			ClassPathIndex index = ClassPathIndex.load(new File(directory, "jars.idx"), classpath);
+			Set<String> entryNames = classList.isFile() ? JarPrefetcher.readClassList(classList) : null;
+			JarPrefetcher.Result result = new JarPrefetcher(index, entryNames).prefetch(this.prefetchThreads);
+			getLog().info("Prefetched " + result.getJars() + " jar(s) in " + result.getReads() + " read(s): "
+					+ (result.getBytes() / 1024) + " KB in " + TimeUnit.NANOSECONDS.toMillis(result.getElapsed())
+					+ "ms (" + TimeUnit.NANOSECONDS.toMillis(result.getReadTime()) + "ms of cumulative read time)"
+					+ ((entryNames != null) ? " (" + entryNames.size() + " recorded classes)" : ""));
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to prefetch the classpath: " + ex.getMessage());
+		}
+		if (LaunchPreset.getJavaVersion() >= 10 && !hasJvmArgument(jvmArguments, "-XX:DumpLoadedClassList=")) {
+			jvmArguments.add("-XX:DumpLoadedClassList=" + recordedClassList.getAbsolutePath());
+		}
+	}
+
+	private boolean hasJvmArgument(List<String> jvmArguments, String prefix) {
+		return jvmArguments.stream().anyMatch((argument) -> argument.startsWith(prefix));
+	}
+
+	/**
+	 * Return the working directory of the forked process.
+	 * 获取fork进程的工作目录
+	 * @return the working directory
+	 */
+	protected File getForkWorkingDirectory() {
+		return (this.workingDirectory != null) ? this.workingDirectory : this.project.getBasedir();
+	}
+
+	/**
+	 * Resolve the JVM arguments of the forked process: the agents, the JVM arguments and
+	 * the resource overlay.
+	 * 解析fork进程的JVM参数
+	 * @return the JVM arguments
+	 */
+	protected List<String> resolveForkJvmArguments() {
+		List<String> jvmArgs = new ArrayList<>();
 		//添加agent相关参数
-		addAgents(args);
+		addAgents(jvmArgs);
 		//添加jvm参数
-		addJvmArgs(args);
-		//添加类路径以及依赖jar路径
-		addClasspath(args);
+		addJvmArgs(jvmArgs);
+		//添加资源覆盖层参数
+		addResourceOverlay(jvmArgs);
+		return jvmArgs;
+	}
+
+	/**
+	 * Run with a forked VM, using the specified launch plan. By default, builds the
+	 * command line and delegates to {@link #runWithForkedJvm(File, List, Map)}.
+	 * @param workingDirectory the working directory of the forked JVM
+	 * @param plan the launch plan
+	 * @throws MojoExecutionException in case of MOJO execution errors
+	 * @throws MojoFailureException in case of MOJO failures
+	 */
+	protected void runWithForkedJvm(File workingDirectory, LaunchPlan plan)
+			throws MojoExecutionException, MojoFailureException {
+		runWithForkedJvm(workingDirectory, getCommandLine(plan), plan.getEnvironment());
+	}
+
+	/**
+	 * Return the arguments of the java command that runs the specified launch plan.
+	 * 获取fork进程的命令参数
+	 * @param plan the launch plan
+	 * @return the JVM arguments, classpath, start class and application arguments
+	 * @throws MojoExecutionException if the classpath could not be written
+	 */
+	protected List<String> getCommandLine(LaunchPlan plan) throws MojoExecutionException {
+		//整合命令参数列表
+		List<String> args = new ArrayList<>(plan.getJvmArguments());
+		if (this.indexedClassLoader) {
+			//类路径由索引提供,命令行只包含启动类所在的插件
+			args.add("-cp");
+			args.add(JvmPool.getLauncherLocation());
+			args.add(IndexedLauncher.class.getName());
+			args.add(writeClassPathIndex(plan.getClasspath()).getAbsolutePath());
+		}
+		else {
+			//添加类路径以及依赖jar路径
+			addClasspath(args, plan.getClasspath());
+		}
 		//添加启动类名称
-		args.add(startClassName);
+		args.add(plan.getStartClass());
 		//添加运行参数
-		addArgs(args);
-		runWithForkedJvm((this.workingDirectory != null) ? this.workingDirectory : this.project.getBasedir(), args,
-				determineEnvironmentVariables());
+		args.addAll(plan.getApplicationArguments());
+		return args;
+	}
+
+	/**
+	 * Specify if the startup of the forked process should be recorded.
+	 * @return {@code true} if a startup report should be created
+	 */
+	protected boolean isStartupReport() {
+		return this.startupReport;
+	}
+
+	/**
+	 * Return the startup recording of the forked process.
+	 * @return the startup recording
+	 */
+	protected StartupRecording getStartupRecording() {
+		return new StartupRecording(getWorkDirectory());
+	}
+
+	/**
+	 * Add the JVM arguments that record the startup of the forked process to the
+	 * specified launch plan.
+	 * 添加JFR记录的JVM参数
+	 * @param plan the launch plan
+	 * @return the launch plan to use
+	 * @throws MojoExecutionException if the recording could not be prepared
+	 */
+	protected LaunchPlan withStartupRecording(LaunchPlan plan) throws MojoExecutionException {
+		List<String> jvmArguments = new ArrayList<>(plan.getJvmArguments());
+		try {
+			jvmArguments.addAll(getStartupRecording().prepare());
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to prepare startup recording", ex);
+		}
+		return new LaunchPlan(plan.getStartClass(), jvmArguments, plan.getClasspath(), plan.getApplicationArguments(),
+				plan.getEnvironment());
+	}
+
+	/**
+	 * Dump the startup recording of the forked process, which must be ready, and report
+	 * on it. Failures are logged as the report must not fail the build.
+	 * 导出JFR记录并生成启动报告
+	 * @param connection the connection to the MBean server of the forked process
+	 * @param plan the launch plan of the forked process
+	 * @param timeToReady the time it took the application to be ready, in milliseconds
+	 */
+	protected void reportStartup(MBeanServerConnection connection, LaunchPlan plan, long timeToReady) {
+		StartupRecording recording = getStartupRecording();
+		try {
+			recording.dump(connection);
+			if (!StartupRecording.isAnalysisSupported()) {
+				getLog().warn("Startup recording written to " + recording.getRecordingFile()
+						+ ", analyzing it requires Maven to run on a JDK with Java Flight Recorder support");
+				return;
+			}
+			StartupReport report = StartupReport.analyze(recording.getRecordingFile(), plan.getClasspath(),
+					plan.getStartClass(), timeToReady);
+			report.write(recording.getReportFile());
+			report.log(getLog());
+			getLog().info("Startup report written to " + recording.getReportFile());
+		}
+		catch (IOException | JMException | RuntimeException ex) {
+			getLog().warn("Unable to create startup report: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Apply the AppCDS archive, if any, to the forked process.
+	 * 使用AppCDS归档文件
+	 * @param classpath the classpath of the forked process
+	 * @param jvmArguments the JVM arguments of the forked process, to update
+	 * @return the classpath to use
+	 * @throws MojoExecutionException if the archive could not be applied
+	 */
+	protected List<File> applyCdsArchive(List<File> classpath, List<String> jvmArguments)
+			throws MojoExecutionException {
+		CdsArchive archive = getCdsArchive();
+		if (!this.useCdsArchive || !archive.exists()) {
+			return classpath;
+		}
+		List<File> ordered = CdsArchive.order(classpath);
+		if (!archive.matches(ordered)) {
+			//类路径已变化,归档文件失效
+			getLog().info("AppCDS archive is out of date and has been removed, run the cds goal to create a new one");
+			try {
+				archive.delete();
+			}
+			catch (IOException ex) {
+				throw new MojoExecutionException("Unable to remove AppCDS archive " + archive.getFile(), ex);
+			}
+			return classpath;
+		}
+		try {
+			//项目目录中的文件有增减时重新检查遮盖
+			if (!archive.matchesDirectories(ordered)) {
+				List<String> shadowed = CdsArchive.findShadowedEntries(classpath, 5);
+				if (!shadowed.isEmpty()) {
+					getLog().warn("AppCDS archive " + archive.getFile() + " is not used: placing the jars first "
+							+ "would shadow " + shadowed + " of the project directories");
+					return classpath;
+				}
+				archive.recordDirectories(ordered);
+			}
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to check the classpath for AppCDS", ex);
+		}
+		getLog().info("Using AppCDS archive " + archive.getFile());
+		jvmArguments.add("-XX:SharedArchiveFile=" + archive.getFile().getAbsolutePath());
+		return ordered;
+	}
+
+	/**
+	 * Return the AppCDS archive of the application.
+	 * @return the AppCDS archive
+	 */
+	protected CdsArchive getCdsArchive() {
+		return new CdsArchive(new File(getWorkDirectory(), "cds"));
+	}
+
+	/**
+	 * 解析启动计划,如果启用缓存并且输入未变化则复用上次的结果
+	 * @return the launch plan
+	 * @throws MojoExecutionException
+	 */
+	private LaunchPlan resolveLaunchPlan() throws MojoExecutionException {
+		if (this.fromArchive) {
+			//解压缓存自行判断是否需要更新
+			return createArchiveLaunchPlan();
+		}
+		if (!this.cacheLaunchPlan) {
+			return createLaunchPlan();
+		}
+		File cacheFile = new File(getWorkDirectory(), "launch-plan.json");
+		String fingerprint = fingerprintLaunchPlan();
+		LaunchPlan plan = LaunchPlan.load(cacheFile, fingerprint);
+		if (plan != null) {
+			getLog().debug("Reusing launch plan from " + cacheFile);
+			//资源文件每次构建都会被复制到classes目录,仍需删除重复的文件
+			removeDuplicateResources();
+			logArguments("JVM argument(s): ", plan.getJvmArguments().toArray(new String[0]));
+			logArguments("Application argument(s): ", plan.getApplicationArguments().toArray(new String[0]));
+			return plan;
+		}
+		plan = createLaunchPlan();
+		try {
+			plan.save(cacheFile, fingerprint);
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to store launch plan: " + ex.getMessage());
+		}
+		return plan;
+	}
+
+	/**
+	 * Create the launch plan of the exploded layout of the repackaged jar.
+	 * 创建从可执行jar运行的启动计划
+	 * @return the launch plan
+	 * @throws MojoExecutionException if the archive could not be extracted
+	 */
+	private LaunchPlan createArchiveLaunchPlan() throws MojoExecutionException {
+		if (!this.archive.isFile()) {
+			throw new MojoExecutionException("Unable to find archive " + this.archive
+					+ ", make sure the project has been packaged");
+		}
+		ExplodedArchive.Layout layout;
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.CLASSPATH)) {
+			layout = new ExplodedArchive(new File(getWorkDirectory(), "exploded")).explode(this.archive);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to extract archive " + this.archive, ex);
+		}
+		getLog().info("Running " + this.archive.getName() + " from " + layout.getClasspath().get(0).getParentFile());
+		List<String> jvmArgs;
+		List<String> applicationArgs = new ArrayList<>();
+		Map<String, String> environment;
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.ARGUMENTS)) {
+			jvmArgs = resolveForkJvmArguments();
+			addArgs(applicationArgs);
+			environment = determineEnvironmentVariables();
+		}
+		return new LaunchPlan(layout.getStartClass(), jvmArgs, layout.getClasspath(), applicationArgs, environment);
+	}
+
+	/**
+	 * 创建启动计划
+	 * @return the launch plan
+	 * @throws MojoExecutionException
+	 */
+	private LaunchPlan createLaunchPlan() throws MojoExecutionException {
+		//获取启动类
+		String startClassName = getStartClass();
+		List<String> jvmArgs;
+		List<String> applicationArgs = new ArrayList<>();
+		Map<String, String> environment;
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.ARGUMENTS)) {
+			//agent以及jvm参数
+			jvmArgs = resolveForkJvmArguments();
+			//添加运行参数
+			addArgs(applicationArgs);
+			environment = determineEnvironmentVariables();
+		}
+		//解析类路径
+		List<File> classpath = toFiles(getClassPathUrls());
+		return new LaunchPlan(startClassName, jvmArgs, classpath, applicationArgs, environment);
+	}
+
+	/**
+	 * Compute the fingerprint of everything a launch plan is resolved from.
+	 * 计算启动计划的指纹
+	 * @return the fingerprint
+	 */
+	private String fingerprintLaunchPlan() {
+		Fingerprint fingerprint = new Fingerprint();
+		fingerprint.add(System.getProperty("java.home")).add(System.getProperty("java.version"));
+		//插件配置
+		addLaunchConfiguration(fingerprint);
+		addFilterConfiguration(fingerprint);
+		//依赖坐标以及文件状态
+		for (Artifact artifact : this.project.getArtifacts()) {
+			fingerprint.add(artifact.getId()).add(artifact.getScope());
+			if (artifact.getFile() != null) {
+				fingerprint.add(artifact.getFile());
+			}
+		}
+		//未配置启动类时,启动类取决于classes目录中的类
+		if (this.mainClass == null) {
+			addClassFiles(fingerprint, this.classesDirectory);
+		}
+		return fingerprint.toHex();
+	}
+
+	/**
+	 * Add the configuration that affects the launch plan to the specified
+	 * {@link Fingerprint}. Subclasses that customize the arguments should add their own
+	 * configuration.
+	 * 将影响启动计划的配置添加到指纹中
+	 * @param fingerprint the fingerprint to update
+	 */
+	protected void addLaunchConfiguration(Fingerprint fingerprint) {
+		fingerprint.add(getClass().getName());
+		//JVM参数可能引用插件jar(如资源覆盖层),插件升级或移动后计划失效
+		fingerprint.add(new File(JvmPool.getLauncherLocation()));
+		fingerprint.add(Boolean.toString(this.addResources)).add(Boolean.toString(this.noverify));
+		fingerprint.add(Boolean.toString(this.resourceOverlay)).add(Boolean.toString(this.indexedClassLoader));
+		fingerprint.add(Boolean.toString(this.bundleDependencies));
+		fingerprint.add(Boolean.toString(this.useTestClasspath)).add(this.jvmArguments).add(this.mainClass);
+		addAll(fingerprint, determineAgents());
+		addAll(fingerprint, this.arguments);
+		addAll(fingerprint, this.profiles);
+		addAll(fingerprint, this.folders);
+		addAll(fingerprint, this.systemPropertyVariables);
+		addAll(fingerprint, this.environmentVariables);
+		fingerprint.add(this.classesDirectory.getAbsolutePath());
+		for (Resource resource : this.project.getResources()) {
+			fingerprint.add(resource.getDirectory());
+		}
+	}
+
+	private void addAll(Fingerprint fingerprint, Object[] values) {
+		fingerprint.add((values != null) ? Integer.toString(values.length) : null);
+		if (values != null) {
+			for (Object value : values) {
+				fingerprint.add((value != null) ? value.toString() : null);
+			}
+		}
+	}
+
+	private void addAll(Fingerprint fingerprint, Map<String, String> values) {
+		fingerprint.add((values != null) ? Integer.toString(values.size()) : null);
+		if (values != null) {
+			for (Map.Entry<String, String> entry : values.entrySet()) {
+				fingerprint.add(entry.getKey()).add(entry.getValue());
+			}
+		}
+	}
+
+	private void addClassFiles(Fingerprint fingerprint, File directory) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addClassFiles(fingerprint, file);
+			}
+			else if (file.getName().endsWith(".class")) {
+				fingerprint.add(file);
+			}
+		}
 	}
 
 	/**
@@ -393,10 +1189,10 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	}
 
 	/**
-	 *
-	 * @return
+	 * 解析环境变量
+	 * @return the environment variables of the forked process
 	 */
-	private Map<String, String> determineEnvironmentVariables() {
+	protected Map<String, String> determineEnvironmentVariables() {
 		//解析环境变量
 		EnvVariables envVariables = resolveEnvVariables();
 		logArguments("Environment variable(s): ", envVariables.asArray());
@@ -493,47 +1289,289 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	/**
 	 * 添加类路径
 	 * @param args
+	 * @param classpath
 	 * @throws MojoExecutionException
 	 */
-	private void addClasspath(List<String> args) throws MojoExecutionException {
+	protected void addClasspath(List<String> args, List<File> classpath) throws MojoExecutionException {
 		try {
-			StringBuilder classpath = new StringBuilder();
-			//遍历类路径URL
-			for (URL ele : getClassPathUrls()) {
-				if (classpath.length() > 0) {
+			if (this.classpathFile) {
+				//将类路径写入文件,命令行只引用该文件
+				ClasspathFile file = new ClasspathFile(getWorkDirectory());
+				args.addAll(file.write(classpath));
+				if (getLog().isDebugEnabled()) {
+					getLog().debug("Classpath for forked process written to " + file.getFile());
+				}
+				return;
+			}
+			StringBuilder value = new StringBuilder();
+			//遍历类路径
+			for (File ele : classpath) {
+				if (value.length() > 0) {
 					//拼接路径分隔符
-					classpath.append(File.pathSeparator);
+					value.append(File.pathSeparator);
 				}
 				//拼接路径
-				classpath.append(new File(ele.toURI()));
+				value.append(ele);
 			}
 			if (getLog().isDebugEnabled()) {
-				getLog().debug("Classpath for forked process: " + classpath);
+				getLog().debug("Classpath for forked process: " + value);
 			}
 			//添加-cp参数
 			args.add("-cp");
 			//添加classes路径以及依赖jar路径
-			args.add(classpath.toString());
+			args.add(value.toString());
 		}
 		catch (Exception ex) {
 			throw new MojoExecutionException("Could not build classpath", ex);
 		}
 	}
 
+	/**
+	 * 将类路径URL转换成文件
+	 * @param urls
+	 * @return
+	 * @throws MojoExecutionException
+	 */
+	protected List<File> toFiles(URL[] urls) throws MojoExecutionException {
+		try {
+			List<File> files = new ArrayList<>(urls.length);
+			for (URL url : urls) {
+				files.add(new File(url.toURI()));
+			}
+			return files;
+		}
+		catch (URISyntaxException ex) {
+			throw new MojoExecutionException("Could not build classpath", ex);
+		}
+	}
+
+	/**
+	 * Return the directory in which the plugin keeps the files it generates between
+	 * runs.
+	 * 获取插件生成文件的目录
+	 * @return the plugin work directory
+	 */
+	protected File getWorkDirectory() {
+		return new File(this.project.getBuild().getDirectory(), "ylz");
+	}
+
+	/**
+	 * Check if the resources are served through a {@link ResourceOverlay}.
+	 * @return {@code true} if the resource overlay is used
+	 */
+	protected boolean isResourceOverlay() {
+		//从可执行jar运行时不覆盖其中的资源
+		return this.addResources && this.resourceOverlay && !this.fromArchive;
+	}
+
+	/**
+	 * Create the overlay serving the resources of the project in place of their copies
+	 * in the classes directory.
+	 * 创建资源覆盖层
+	 * @return the overlay or {@code null} if it is not used
+	 * @throws MojoExecutionException if the resource directories could not be indexed
+	 */
+	protected ResourceOverlay createResourceOverlay() throws MojoExecutionException {
+		if (!isResourceOverlay()) {
+			return null;
+		}
+		try {
+			return new ResourceOverlay(getResourceDirectories(), this.classesDirectory);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to index resource directories", ex);
+		}
+	}
+
+	/**
+	 * Create the class loader of an application run in the Maven JVM, which serves the
+	 * resources through a {@link ResourceOverlay} if it is used.
+	 * @param urls the urls of the classpath
+	 * @return the class loader
+	 * @throws MojoExecutionException if the class loader could not be created
+	 */
+	protected URLClassLoader createClassLoader(URL[] urls) throws MojoExecutionException {
+		ResourceOverlay overlay = watchResourceOverlay();
+		if (this.indexedClassLoader) {
+			try {
+				ClassPathIndex index = ClassPathIndex.load(getClassPathIndexFile(), toFiles(urls));
+				return new IndexedClassLoader(index, ClassLoader.getSystemClassLoader(), overlay);
+			}
+			catch (IOException ex) {
+				throw new MojoExecutionException("Unable to index the classpath", ex);
+			}
+		}
+		if (overlay == null) {
+			return new URLClassLoader(urls);
+		}
+		return new OverlayClassLoader(urls, ClassLoader.getSystemClassLoader(), overlay);
+	}
+
+	/**
+	 * Check if the class loaders of the dependencies are cached between runs.
+	 * @return {@code true} if the class loaders are cached
+	 */
+	protected boolean isClassLoaderCacheEnabled() {
+		return this.classLoaderCacheSize > 0;
+	}
+
+	/**
+	 * Acquire the class loader of the dependencies of the project from the
+	 * {@link DependencyClassLoaderCache}. It is closed once the lease is closed if the
+	 * cache is disabled.
+	 * 获取依赖类加载器
+	 * @return the lease of the class loader
+	 * @throws MojoExecutionException if the class loader could not be created
+	 */
+	protected DependencyClassLoaderCache.Lease acquireDependencyClassLoader() throws MojoExecutionException {
+		URL[] urls = getBaseClassPathUrls();
+		DependencyClassLoaderCache cache = DependencyClassLoaderCache.get();
+		try {
+			String type = this.indexedClassLoader ? "indexed" : "url";
+			DependencyClassLoaderCache.Lease lease = cache.acquire(urls, type,
+					Math.max(0, this.classLoaderCacheSize), this::createDependencyClassLoader);
+			if (lease.isReused()) {
+				getLog().info("Reusing the class loader of " + urls.length + " dependencies");
+			}
+			return lease;
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to create the class loader of the dependencies", ex);
+		}
+	}
+
+	private URLClassLoader createDependencyClassLoader(URL[] urls) throws IOException {
+		if (!this.indexedClassLoader) {
+			return new URLClassLoader(urls);
+		}
+		List<File> files = new ArrayList<>();
+		for (URL url : urls) {
+			try {
+				files.add(new File(url.toURI()));
+			}
+			catch (URISyntaxException ex) {
+				throw new IOException("Invalid classpath entry " + url, ex);
+			}
+		}
+		ClassPathIndex index = ClassPathIndex.load(new File(getWorkDirectory(), "dependencies.idx"), files);
+		return new IndexedClassLoader(index, ClassLoader.getSystemClassLoader(), null);
+	}
+
+	/**
+	 * Create the class loader of the classes and resources of the project, whose parent
+	 * is the class loader of the dependencies. Closing it stops watching the resource
+	 * directories.
+	 * @param dependencies the class loader of the dependencies
+	 * @return the class loader
+	 * @throws MojoExecutionException if the class loader could not be created
+	 */
+	protected URLClassLoader createProjectClassLoader(ClassLoader dependencies) throws MojoExecutionException {
+		return new RestartClassLoader(getRestartClassPathUrls(), dependencies, watchResourceOverlay(), true);
+	}
+
+	private ResourceOverlay watchResourceOverlay() throws MojoExecutionException {
+		ResourceOverlay overlay = createResourceOverlay();
+		if (overlay != null) {
+			try {
+				overlay.watch();
+			}
+			catch (IOException ex) {
+				getLog().warn("Unable to watch resource directories: " + ex.getMessage());
+			}
+		}
+		return overlay;
+	}
+
+	/**
+	 * Bring the index of the specified classpath up to date.
+	 * 更新类路径索引
+	 * @param classpath the classpath
+	 * @return the index file
+	 * @throws MojoExecutionException if the classpath could not be indexed
+	 */
+	private File writeClassPathIndex(List<File> classpath) throws MojoExecutionException {
+		File indexFile = getClassPathIndexFile();
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.CLASSPATH_INDEX)) {
+			ClassPathIndex.load(indexFile, classpath);
+			return indexFile;
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to index the classpath", ex);
+		}
+	}
+
+	private File getClassPathIndexFile() {
+		return new File(getWorkDirectory(), "classpath.idx");
+	}
+
+	private List<File> getResourceDirectories() {
+		List<File> directories = new ArrayList<>();
+		for (Resource resource : this.project.getResources()) {
+			directories.add(new File(resource.getDirectory()));
+		}
+		return directories;
+	}
+
+	/**
+	 * 添加资源覆盖层参数,fork进程以{@link OverlayClassLoader}作为系统类加载器
+	 * @param args
+	 */
+	private void addResourceOverlay(List<String> args) {
+		if (!isFork() || !isResourceOverlay()) {
+			return;
+		}
+		if (!this.indexedClassLoader) {
+			//类加载器从引导类路径加载,不影响应用的类路径
+			args.add("-Xbootclasspath/a:" + JvmPool.getLauncherLocation());
+			args.add("-Djava.system.class.loader=" + OverlayClassLoader.class.getName());
+		}
+		args.add("-D" + ResourceOverlay.RESOURCES_PROPERTY + "=" + getResourceDirectories().stream()
+				.map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator)));
+		args.add("-D" + ResourceOverlay.CLASSES_PROPERTY + "=" + this.classesDirectory.getAbsolutePath());
+	}
+
+	/**
+	 * Return the Maven project.
+	 * @return the project
+	 */
+	protected MavenProject getProject() {
+		return this.project;
+	}
+
+	/**
+	 * Return the directory containing the classes and resource files of the project.
+	 * @return the classes directory
+	 */
+	protected File getClassesDirectory() {
+		return this.classesDirectory;
+	}
+
 	/**
 	 * 获取启动类
 	 * @return
 	 * @throws MojoExecutionException
 	 */
 	private String getStartClass() throws MojoExecutionException {
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.MAIN_CLASS)) {
+			return findStartClass();
+		}
+	}
+
+	private String findStartClass() throws MojoExecutionException {
 		//获取配置的启动类
 		String mainClass = this.mainClass;
 		//如果为空未配置
 		if (mainClass == null) {
 			try {
 				//在类路径下找@SpringBootApplication注解的类
-				mainClass = MainClassFinder.findSingleMainClass(this.classesDirectory,
-						SPRING_BOOT_APPLICATION_CLASS_NAME);
+				if (this.mainClassIndex) {
+					mainClass = new MainClassIndex(new File(getWorkDirectory(), "main-classes.idx"))
+							.findSingleMainClass(this.classesDirectory, SPRING_BOOT_APPLICATION_CLASS_NAME);
+				}
+				else {
+					mainClass = MainClassFinder.findSingleMainClass(this.classesDirectory,
+							SPRING_BOOT_APPLICATION_CLASS_NAME);
+				}
 			}
 			catch (IOException ex) {
 				throw new MojoExecutionException(ex.getMessage(), ex);
@@ -552,8 +1590,27 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	 * @throws MojoExecutionException
 	 */
 	protected URL[] getClassPathUrls() throws MojoExecutionException {
-		try {
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.CLASSPATH)) {
 			//封装路径
+			List<URL> urls = new ArrayList<>();
+			//添加项目目录
+			urls.addAll(Arrays.asList(getRestartClassPathUrls()));
+			//添加依赖
+			urls.addAll(Arrays.asList(getBaseClassPathUrls()));
+			//转化成URL数组
+			return urls.toArray(new URL[0]);
+		}
+	}
+
+	/**
+	 * Return the part of the classpath that changes while the application is developed:
+	 * the user defined folders, the resources and the classes directory.
+	 * 获取项目目录路径（自定义目录、资源文件目录、classes目录）
+	 * @return the urls of the project directories
+	 * @throws MojoExecutionException if the urls could not be built
+	 */
+	protected URL[] getRestartClassPathUrls() throws MojoExecutionException {
+		try {
 			List<URL> urls = new ArrayList<>();
 			//添加用户自定义目录
 			addUserDefinedFolders(urls);
@@ -561,9 +1618,24 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 			addResources(urls);
 			//添加classes目录
 			addProjectClasses(urls);
-			//添加依赖
+			return urls.toArray(new URL[0]);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to build classpath", ex);
+		}
+	}
+
+	/**
+	 * Return the part of the classpath that does not change while the application is
+	 * developed: the dependencies.
+	 * 获取依赖路径
+	 * @return the urls of the dependencies
+	 * @throws MojoExecutionException if the urls could not be built
+	 */
+	protected URL[] getBaseClassPathUrls() throws MojoExecutionException {
+		try {
+			List<URL> urls = new ArrayList<>();
 			addDependencies(urls);
-			//转化成URL数组
 			return urls.toArray(new URL[0]);
 		}
 		catch (IOException ex) {
@@ -599,8 +1671,18 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 				File directory = new File(resource.getDirectory());
 				//将资源文件转换成链接放入urls
 				urls.add(directory.toURI().toURL());
-				//删除classes目录中重复的文件
-				FileUtils.removeDuplicatesFromOutputDirectory(this.classesDirectory, directory);
+			}
+			removeDuplicateResources();
+		}
+	}
+
+	/**
+	 * 删除classes目录中与资源文件重复的文件
+	 */
+	private void removeDuplicateResources() {
+		if (this.addResources && !this.resourceOverlay) {
+			for (Resource resource : this.project.getResources()) {
+				FileUtils.removeDuplicatesFromOutputDirectory(this.classesDirectory, new File(resource.getDirectory()));
 			}
 		}
 	}
@@ -623,15 +1705,34 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 	 */
 	private void addDependencies(List<URL> urls) throws MalformedURLException, MojoExecutionException {
 		//获取Artifacts过滤器
-		FilterArtifacts filters = (this.useTestClasspath ? getFilters() : getFilters(new TestArtifactFilter()));
+		FilterArtifacts filters;
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.FILTERS)) {
+			filters = (this.useTestClasspath ? getFilters() : getFilters(new TestArtifactFilter()));
+		}
 		//过滤项目依赖
-		Set<Artifact> artifacts = filterDependencies(this.project.getArtifacts(), filters);
+		Set<Artifact> artifacts;
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.DEPENDENCY_FILTERING)) {
+			artifacts = filterDependencies(this.project.getArtifacts(), filters);
+		}
+		List<File> files = new ArrayList<>();
 		//遍历依赖集合
 		for (Artifact artifact : artifacts) {
 			if (artifact.getFile() != null) {
-				//如果依赖的jar包存在则将其转换成链接形式放入urls集合
-				urls.add(artifact.getFile().toURI().toURL());
+				files.add(artifact.getFile());
+			}
+		}
+		if (this.bundleDependencies) {
+			//使用合并后的jar替换依赖jar
+			try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.BUNDLE)) {
+				files = new DependencyBundle(new File(getWorkDirectory(), "bundle")).apply(files);
 			}
+			catch (IOException ex) {
+				throw new MojoExecutionException("Unable to bundle the dependencies", ex);
+			}
+		}
+		for (File file : files) {
+			//如果依赖的jar包存在则将其转换成链接形式放入urls集合
+			urls.add(file.toURI().toURL());
 		}
 	}
 
@@ -666,6 +1767,11 @@ public abstract class AbstractRunMojo extends AbstractDependencyFilterMojo {
 			return artifact.getScope();
 		}
 
+		@Override
+		public boolean isArtifactIncluded(Artifact artifact) {
+			return !Artifact.SCOPE_TEST.equals(getArtifactFeature(artifact));
+		}
+
 	}
 
 	/**
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A cached connection to the platform MBean server of a forked process. The process is
+ * attached by pid through the Attach API and its local management agent is started, so
+ * that no port has to be reserved. When the Attach API is not available or attaching
+ * fails, the connection falls back to the RMI connector of the process, exposed on the
+ * configured port or, if the process can be attached, on a free port allocated when it
+ * was forked.
+ * fork进程的JMX连接（优先通过Attach API按进程号连接,否则使用固定端口的RMI）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class AdminConnector implements Closeable {
+
+	private static final String VIRTUAL_MACHINE_CLASS_NAME = "com.sun.tools.attach.VirtualMachine";
+
+	private static Class<?> virtualMachineClass;
+
+	private static boolean virtualMachineClassResolved;
+
+	private final Long pid;
+
+	private final int jmxPort;
+
+	private final Log log;
+
+	private JMXConnector connector;
+
+	private MBeanServerConnection connection;
+
+	/**
+	 * Whether the process could be attached but its management agent could not be
+	 * started, in which case the RMI connector is used from then on. Failures to attach
+	 * are not remembered as they are expected while the process boots.
+	 */
+	private boolean attachFailed;
+
+	/**
+	 * Create a new instance.
+	 * @param pid the pid of the process or {@code null} if it is not known
+	 * @param jmxPort the port of the RMI connector to fall back to
+	 * @param log the log to use
+	 */
+	AdminConnector(Long pid, int jmxPort, Log log) {
+		this.pid = pid;
+		this.jmxPort = jmxPort;
+		this.log = log;
+	}
+
+	/**
+	 * Specify if forked processes can be attached by pid, in which case they do not have
+	 * to expose an RMI connector.
+	 * 是否支持通过Attach API连接
+	 * @return {@code true} if the Attach API can be used
+	 */
+	static boolean isAttachSupported() {
+		if (getVirtualMachineClass() == null) {
+			return false;
+		}
+		try {
+			Process.class.getMethod("pid");
+			return true;
+		}
+		catch (NoSuchMethodException ex) {
+			//Java 8只能在类Unix系统上获取进程号
+			return !System.getProperty("os.name", "").toLowerCase().contains("windows");
+		}
+	}
+
+	/**
+	 * Return the pid of the specified process.
+	 * 获取进程号
+	 * @param process the process
+	 * @return the pid or {@code null} if it cannot be determined
+	 */
+	static Long getPid(Process process) {
+		if (process == null) {
+			return null;
+		}
+		try {
+			return (Long) Process.class.getMethod("pid").invoke(process);
+		}
+		catch (NoSuchMethodException ex) {
+			try {
+				Field field = process.getClass().getDeclaredField("pid");
+				field.setAccessible(true);
+				return ((Number) field.get(process)).longValue();
+			}
+			catch (ReflectiveOperationException | RuntimeException ex2) {
+				return null;
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Return the connection, connecting on first use.
+	 * 获取连接（首次使用时建立并缓存）
+	 * @return the connection
+	 * @throws IOException if the connection could not be established, a
+	 * {@link ConnectException} if the process is not ready to accept it yet
+	 */
+	synchronized MBeanServerConnection getConnection() throws IOException {
+		if (this.connection == null) {
+			this.connector = (this.pid != null && !this.attachFailed && getVirtualMachineClass() != null)
+					? attachOrConnect() : SpringApplicationAdminClient.connect(this.jmxPort);
+			this.connection = this.connector.getMBeanServerConnection();
+		}
+		return this.connection;
+	}
+
+	private JMXConnector attachOrConnect() throws IOException {
+		try {
+			return attach();
+		}
+		catch (ConnectException ex) {
+			//进程启动期间无法Attach,本次尝试端口,下次仍优先Attach
+			this.log.debug(ex.getMessage() + ", trying port " + this.jmxPort);
+			return SpringApplicationAdminClient.connect(this.jmxPort);
+		}
+		catch (IOException ex) {
+			//已Attach但无法启动管理代理,此后只使用端口
+			this.log.debug(ex.getMessage() + ", using port " + this.jmxPort + " from now on");
+			this.attachFailed = true;
+			return SpringApplicationAdminClient.connect(this.jmxPort);
+		}
+	}
+
+	private JMXConnector attach() throws IOException {
+		Class<?> type = getVirtualMachineClass();
+		Object virtualMachine;
+		try {
+			virtualMachine = type.getMethod("attach", String.class).invoke(null, Long.toString(this.pid));
+		}
+		catch (InvocationTargetException ex) {
+			//进程刚启动时尚未就绪
+			ConnectException connectException = new ConnectException(
+					"Unable to attach to process " + this.pid + ": " + ex.getCause().getMessage());
+			connectException.initCause(ex.getCause());
+			throw connectException;
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IOException("Unable to attach to process " + this.pid, ex);
+		}
+		try {
+			String address = (String) type.getMethod("startLocalManagementAgent").invoke(virtualMachine);
+			this.log.debug("Attached to process " + this.pid + ", local management agent at " + address);
+			return JMXConnectorFactory.connect(new JMXServiceURL(address));
+		}
+		catch (InvocationTargetException ex) {
+			throw new IOException("Unable to start the management agent of process " + this.pid, ex.getCause());
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IOException("Unable to start the management agent of process " + this.pid, ex);
+		}
+		finally {
+			try {
+				type.getMethod("detach").invoke(virtualMachine);
+			}
+			catch (ReflectiveOperationException ex) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * Drop the cached connection, typically after it failed.
+	 */
+	synchronized void reset() {
+		closeQuietly();
+	}
+
+	@Override
+	public synchronized void close() {
+		closeQuietly();
+	}
+
+	private void closeQuietly() {
+		if (this.connector != null) {
+			try {
+				this.connector.close();
+			}
+			catch (IOException ex) {
+				// The process has probably exited
+			}
+		}
+		this.connector = null;
+		this.connection = null;
+	}
+
+	private static synchronized Class<?> getVirtualMachineClass() {
+		if (!virtualMachineClassResolved) {
+			virtualMachineClass = loadVirtualMachineClass();
+			virtualMachineClassResolved = true;
+		}
+		return virtualMachineClass;
+	}
+
+	private static Class<?> loadVirtualMachineClass() {
+		try {
+			return Class.forName(VIRTUAL_MACHINE_CLASS_NAME);
+		}
+		catch (ClassNotFoundException ex) {
+			//Java 8的Attach API位于JDK的tools.jar中
+			File toolsJar = new File(System.getProperty("java.home"), "../lib/tools.jar");
+			if (!toolsJar.isFile()) {
+				return null;
+			}
+			try {
+				URLClassLoader classLoader = new URLClassLoader(new URL[] { toolsJar.toURI().toURL() });
+				return Class.forName(VIRTUAL_MACHINE_CLASS_NAME, true, classLoader);
+			}
+			catch (IOException | ClassNotFoundException | LinkageError ex2) {
+				return null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * An AppCDS archive of the classes loaded by the application, created by the
+ * {@link CdsMojo cds} goal. The JVM can only archive classes from jar files and
+ * refuses non-empty directories ahead of them, so the classpath of a process that
+ * uses the archive has its jars first and its directories last. An archive is not used
+ * when that order would let a jar shadow a class or a resource of a directory. The
+ * directories are checked again whenever a file is added to or removed from them.
+ * AppCDS归档文件
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class CdsArchive {
+
+	private final File directory;
+
+	CdsArchive(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Return the archive file.
+	 * @return the archive file
+	 */
+	File getFile() {
+		return new File(this.directory, "app.jsa");
+	}
+
+	/**
+	 * Return the class list used to create a static archive.
+	 * @return the class list file
+	 */
+	File getClassListFile() {
+		return new File(this.directory, "app.classlist");
+	}
+
+	private File getMetadataFile() {
+		return new File(this.directory, "app.jsa.json");
+	}
+
+	boolean exists() {
+		return getFile().isFile() && getMetadataFile().isFile();
+	}
+
+	/**
+	 * Specify if this archive has been created for the specified classpath.
+	 * @param classpath the classpath, as returned by {@link #order(List)}
+	 * @return {@code true} if the archive can be used with that classpath
+	 */
+	boolean matches(List<File> classpath) {
+		JSONObject metadata = readMetadata();
+		return metadata != null && fingerprint(classpath).equals(metadata.getString("fingerprint"));
+	}
+
+	/**
+	 * Specify if the files of the directories of the specified classpath are the ones
+	 * that have been checked for shadowing, when the archive was created or by
+	 * {@link #recordDirectories(List)}.
+	 * @param classpath the classpath
+	 * @return {@code true} if no file has been added to or removed from the directories
+	 * since they were checked
+	 * @throws IOException if a directory could not be read
+	 */
+	boolean matchesDirectories(List<File> classpath) throws IOException {
+		JSONObject metadata = readMetadata();
+		return metadata != null && fingerprintDirectories(classpath).equals(metadata.getString("directories"));
+	}
+
+	/**
+	 * Record that the files of the directories of the specified classpath have been
+	 * checked for shadowing.
+	 * @param classpath the classpath
+	 * @throws IOException if a directory could not be read or the metadata could not be
+	 * written
+	 */
+	void recordDirectories(List<File> classpath) throws IOException {
+		JSONObject metadata = readMetadata();
+		if (metadata != null) {
+			metadata.put("directories", fingerprintDirectories(classpath));
+			writeMetadata(metadata);
+		}
+	}
+
+	/**
+	 * Record that the archive has been created for the specified classpath, whose
+	 * directories have been checked for shadowing.
+	 * @param classpath the classpath, as returned by {@link #order(List)}
+	 * @param timeToReady the time to ready of the training run in milliseconds
+	 * @throws IOException if the metadata could not be written
+	 */
+	void writeMetadata(List<File> classpath, long timeToReady) throws IOException {
+		JSONObject metadata = new JSONObject(true);
+		metadata.put("fingerprint", fingerprint(classpath));
+		metadata.put("directories", fingerprintDirectories(classpath));
+		metadata.put("javaVersion", System.getProperty("java.version"));
+		metadata.put("timeToReady", timeToReady);
+		writeMetadata(metadata);
+	}
+
+	private void writeMetadata(JSONObject metadata) throws IOException {
+		Files.write(getMetadataFile().toPath(), JSON.toJSONString(metadata, true).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Delete the archive, if any.
+	 * @throws IOException if the archive could not be deleted
+	 */
+	void delete() throws IOException {
+		Files.deleteIfExists(getMetadataFile().toPath());
+		Files.deleteIfExists(getFile().toPath());
+		Files.deleteIfExists(getClassListFile().toPath());
+	}
+
+	private JSONObject readMetadata() {
+		File file = getMetadataFile();
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			return JSON.parseObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		}
+		catch (IOException | RuntimeException ex) {
+			return null;
+		}
+	}
+
+	private String fingerprint(List<File> classpath) {
+		Fingerprint fingerprint = new Fingerprint();
+		//归档文件只能用于创建它的JVM
+		fingerprint.add(System.getProperty("java.home")).add(System.getProperty("java.version"));
+		for (File entry : classpath) {
+			if (entry.isFile()) {
+				fingerprint.add(entry);
+			}
+		}
+		return fingerprint.toHex();
+	}
+
+	/**
+	 * Fingerprint the names of the files of the directories of the specified classpath
+	 * that a jar could shadow, so that adding or removing such a file is detected.
+	 * @param classpath the classpath
+	 * @return the fingerprint
+	 * @throws IOException if a directory could not be read
+	 */
+	private String fingerprintDirectories(List<File> classpath) throws IOException {
+		Fingerprint fingerprint = new Fingerprint();
+		for (File entry : classpath) {
+			if (entry.isDirectory()) {
+				fingerprint.add(entry.getAbsolutePath());
+				List<String> names = new ArrayList<>();
+				collectNames(entry, names);
+				Collections.sort(names);
+				names.forEach(fingerprint::add);
+			}
+		}
+		return fingerprint.toHex();
+	}
+
+	/**
+	 * Order the specified classpath so that jar files come before directories, keeping
+	 * the relative order of each group.
+	 * 调整类路径顺序（jar在前,目录在后）
+	 * @param classpath the classpath
+	 * @return the ordered classpath
+	 */
+	static List<File> order(List<File> classpath) {
+		List<File> jars = new ArrayList<>(classpath.size());
+		List<File> directories = new ArrayList<>();
+		for (File entry : classpath) {
+			if (entry.isDirectory()) {
+				directories.add(entry);
+			}
+			else {
+				jars.add(entry);
+			}
+		}
+		jars.addAll(directories);
+		return jars;
+	}
+
+	/**
+	 * Return the files of the directories of the specified classpath that a jar placed
+	 * after them also contains, and that would therefore be shadowed by the jar once the
+	 * classpath is {@link #order(List) ordered}. Resources that are aggregated from all
+	 * the classpath entries, such as {@code META-INF/spring.factories}, are not shadowed
+	 * by the order and are ignored.
+	 * 查找调整顺序后会被jar遮盖的目录文件
+	 * @param classpath the classpath, in its original order
+	 * @param limit the maximum number of files to return
+	 * @return the shadowed files, as paths relative to their directory
+	 * @throws IOException if a directory or a jar could not be read
+	 */
+	static List<String> findShadowedEntries(List<File> classpath, int limit) throws IOException {
+		Set<String> shadowed = new LinkedHashSet<>();
+		Set<String> names = new HashSet<>();
+		for (File entry : classpath) {
+			if (entry.isDirectory()) {
+				collectNames(entry, names);
+			}
+			else if (entry.isFile() && !names.isEmpty()) {
+				//目录中的文件与其后的jar重复时,调整顺序会改变优先级
+				try (ZipFile zipFile = new ZipFile(entry)) {
+					Enumeration<? extends ZipEntry> entries = zipFile.entries();
+					while (entries.hasMoreElements()) {
+						String name = entries.nextElement().getName();
+						if (names.contains(name) && shadowed.add(name) && shadowed.size() >= limit) {
+							return new ArrayList<>(shadowed);
+						}
+					}
+				}
+			}
+		}
+		return new ArrayList<>(shadowed);
+	}
+
+	/**
+	 * Add the names of the files of the specified directory that a jar could shadow,
+	 * relative to the directory.
+	 * @param directory the directory
+	 * @param names the names to add to
+	 * @throws IOException if the directory could not be read
+	 */
+	private static void collectNames(File directory, Collection<String> names) throws IOException {
+		Path root = directory.toPath();
+		try (Stream<Path> paths = Files.walk(root)) {
+			paths.filter(Files::isRegularFile)
+					.map((path) -> root.relativize(path).toString().replace(File.separatorChar, '/'))
+					.filter((name) -> !isAggregated(name)).forEach(names::add);
+		}
+	}
+
+	/**
+	 * Specify if the resource with the specified name is typically loaded from all the
+	 * classpath entries through {@link ClassLoader#getResources(String)}, in which case
+	 * the order of the entries does not hide it.
+	 * @param name the name of the resource
+	 * @return {@code true} if the resource is aggregated
+	 */
+	private static boolean isAggregated(String name) {
+		return name.equals("META-INF/spring.factories") || name.equals("META-INF/spring.handlers")
+				|| name.equals("META-INF/spring.schemas") || name.startsWith("META-INF/services/")
+				|| (name.startsWith("META-INF/spring/") && name.endsWith(".imports"));
+	}
+
+	/**
+	 * Specify if the current JVM can dump an archive dynamically at exit.
+	 * @return {@code true} on Java 13 and later
+	 */
+	static boolean isDynamicArchiveSupported() {
+		return hasMethod(String.class, "stripIndent");
+	}
+
+	/**
+	 * Specify if the current JVM can dump an archive of application classes from a
+	 * class list.
+	 * @return {@code true} on Java 10 and later
+	 */
+	static boolean isStaticArchiveSupported() {
+		return hasMethod(List.class, "copyOf");
+	}
+
+	private static boolean hasMethod(Class<?> type, String name) {
+		for (Method method : type.getMethods()) {
+			if (method.getName().equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
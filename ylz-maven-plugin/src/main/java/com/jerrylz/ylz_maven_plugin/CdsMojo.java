@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Execute;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import org.springframework.boot.loader.tools.JavaExecutable;
+import org.springframework.boot.loader.tools.RunProcess;
+
+/**
+ * Create an AppCDS archive of the classes the application loads while it starts. The
+ * application is forked once as a training run and stopped as soon as it is ready.
+ * Subsequent forked runs use the archive automatically until the classpath changes.
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+@Mojo(name = "cds", requiresProject = true, defaultPhase = LifecyclePhase.PACKAGE,
+		requiresDependencyResolution = ResolutionScope.TEST)
+@Execute(phase = LifecyclePhase.TEST_COMPILE)
+public class CdsMojo extends AbstractRunMojo {
+
+	/**
+	 * The JMX name of the automatically deployed MBean managing the lifecycle of the
+	 * application.
+	 */
+	@Parameter
+	private String jmxName = SpringApplicationAdminClient.DEFAULT_OBJECT_NAME;
+
+	/**
+	 * The port to use to expose the platform MBeanServer of the training run if it cannot
+	 * be attached by pid.
+	 */
+	@Parameter
+	private int jmxPort = 9001;
+
+	/**
+	 * The number of milliseconds to wait between each attempt to check if the
+	 * application is ready.
+	 */
+	@Parameter(property = "spring-boot.cds.wait", defaultValue = "100")
+	private long wait;
+
+	/**
+	 * The maximum number of attempts to check if the application is ready.
+	 */
+	@Parameter(property = "spring-boot.cds.maxAttempts", defaultValue = "1200")
+	private int maxAttempts;
+
+	/**
+	 * Flag to start the application a second time with the archive once it has been
+	 * created, to report the startup time saved.
+	 */
+	@Parameter(property = "spring-boot.cds.verify", defaultValue = "true")
+	private boolean verify;
+
+	/**
+	 * The classpath of the training run, jars first.
+	 */
+	private List<File> classpath;
+
+	@Override
+	protected RunArguments resolveApplicationArguments() {
+		RunArguments applicationArguments = super.resolveApplicationArguments();
+		applicationArguments.getArgs().addLast(ForkedApplication.ENABLE_MBEAN_PROPERTY);
+		applicationArguments.getArgs().addLast(ForkedApplication.JMX_NAME_PROPERTY_PREFIX + this.jmxName);
+		return applicationArguments;
+	}
+
+	@Override
+	protected void addLaunchConfiguration(Fingerprint fingerprint) {
+		super.addLaunchConfiguration(fingerprint);
+		fingerprint.add(this.jmxName);
+	}
+
+	@Override
+	protected boolean isPrefetch() {
+		//训练运行自行记录加载的类
+		return false;
+	}
+
+	@Override
+	protected List<File> applyCdsArchive(List<File> classpath, List<String> jvmArguments)
+			throws MojoExecutionException {
+		List<String> shadowed;
+		try {
+			shadowed = CdsArchive.findShadowedEntries(classpath, 5);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to check the classpath for AppCDS", ex);
+		}
+		if (!shadowed.isEmpty()) {
+			throw new MojoExecutionException("AppCDS requires the jars to be placed first on the classpath, "
+					+ "which would shadow " + shadowed + " of the project directories");
+		}
+		//训练时不使用已有的归档文件,只调整类路径顺序
+		this.classpath = CdsArchive.order(classpath);
+		return this.classpath;
+	}
+
+	@Override
+	protected void runWithForkedJvm(File workingDirectory, List<String> args, Map<String, String> environmentVariables)
+			throws MojoExecutionException {
+		boolean dynamicArchive = CdsArchive.isDynamicArchiveSupported();
+		if (!dynamicArchive && !CdsArchive.isStaticArchiveSupported()) {
+			throw new MojoExecutionException("AppCDS archives of application classes require Java 10 or later");
+		}
+		CdsArchive archive = getCdsArchive();
+		try {
+			archive.delete();
+			Files.createDirectories(archive.getFile().getParentFile().toPath());
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to prepare AppCDS archive " + archive.getFile(), ex);
+		}
+		getLog().info("Starting training run...");
+		//Java 13+在退出时动态归档,否则先记录加载的类再静态归档
+		String trainingArgument = dynamicArchive
+				? "-XX:ArchiveClassesAtExit=" + archive.getFile().getAbsolutePath()
+				: "-XX:DumpLoadedClassList=" + archive.getClassListFile().getAbsolutePath();
+		long timeToReady = startAndStop(workingDirectory, withJvmArgument(trainingArgument, args),
+				environmentVariables);
+		if (!dynamicArchive) {
+			dumpStaticArchive(workingDirectory, archive);
+		}
+		if (!archive.getFile().isFile()) {
+			throw new MojoExecutionException("AppCDS archive was not created, check the output of the application");
+		}
+		try {
+			archive.writeMetadata(this.classpath, timeToReady);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to write AppCDS archive metadata", ex);
+		}
+		getLog().info("AppCDS archive created at " + archive.getFile() + " (training run ready in " + timeToReady
+				+ "ms)");
+		if (this.verify) {
+			getLog().info("Starting the application with the archive...");
+			long archivedTimeToReady = startAndStop(workingDirectory,
+					withJvmArgument("-XX:SharedArchiveFile=" + archive.getFile().getAbsolutePath(), args),
+					environmentVariables);
+			getLog().info("Startup time: " + timeToReady + "ms without archive, " + archivedTimeToReady
+					+ "ms with archive (" + (timeToReady - archivedTimeToReady) + "ms saved)");
+		}
+	}
+
+	private List<String> withJvmArgument(String jvmArgument, List<String> args) {
+		List<String> result = new ArrayList<>(args.size() + 1);
+		result.add(jvmArgument);
+		result.addAll(args);
+		return result;
+	}
+
+	private long startAndStop(File workingDirectory, List<String> args, Map<String, String> environmentVariables)
+			throws MojoExecutionException {
+		ForkedApplication application = startApplication(workingDirectory, args, environmentVariables, this.jmxPort,
+				this.jmxName, "output.log");
+		try {
+			long timeToReady = application.waitForReady(this.wait, this.maxAttempts);
+			recordReady(application, timeToReady);
+			//归档文件在JVM退出时写入,需等待进程结束
+			try (PhaseMetrics.Phase phase = getPhaseMetrics().start(PhaseMetrics.SHUTDOWN)) {
+				application.stop(this.wait * this.maxAttempts);
+			}
+			return timeToReady;
+		}
+		finally {
+			application.kill();
+		}
+	}
+
+	private void dumpStaticArchive(File workingDirectory, CdsArchive archive) throws MojoExecutionException {
+		List<String> args = new ArrayList<>();
+		args.add("-Xshare:dump");
+		args.add("-XX:SharedClassListFile=" + archive.getClassListFile().getAbsolutePath());
+		args.add("-XX:SharedArchiveFile=" + archive.getFile().getAbsolutePath());
+		args.add("-cp");
+		StringBuilder jars = new StringBuilder();
+		for (File entry : this.classpath) {
+			if (entry.isFile()) {
+				if (jars.length() > 0) {
+					jars.append(File.pathSeparator);
+				}
+				jars.append(entry.getAbsolutePath());
+			}
+		}
+		args.add(jars.toString());
+		try {
+			RunProcess runProcess = new RunProcess(workingDirectory, new JavaExecutable().toString());
+			int exitCode = runProcess.run(true, args.toArray(new String[0]));
+			if (exitCode != 0) {
+				throw new MojoExecutionException("AppCDS archive dump finished with exit code: " + exitCode);
+			}
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Could not exec java", ex);
+		}
+	}
+
+	@Override
+	protected void runWithMavenJvm(String startClassName, String... arguments) throws MojoExecutionException {
+		throw new MojoExecutionException("The cds goal requires a forked process, make sure 'fork' is enabled");
+	}
+
+}
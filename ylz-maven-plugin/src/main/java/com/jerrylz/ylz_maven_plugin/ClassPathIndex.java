@@ -0,0 +1,477 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A persistent index of a classpath mapping each package to the jars that contain it,
+ * together with the location of the central directory of each jar. Only the jars whose
+ * size or modification time changed since the index was written are scanned again.
+ * Directories are not indexed as their content changes between runs. This class is used
+ * by the launcher of a forked JVM and must only rely on the JDK.
+ * 类路径索引（包名到jar的映射以及jar中央目录的位置）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+final class ClassPathIndex {
+
+	private static final int VERSION = 1;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	private final List<Entry> entries;
+
+	private final Map<String, int[]> packages = new HashMap<>();
+
+	/**
+	 * The jars containing each folder, including the parents of the packages.
+	 */
+	private final Map<String, int[]> folders = new HashMap<>();
+
+	private final int[] directories;
+
+	private ClassPathIndex(List<Entry> entries) {
+		this.entries = entries;
+		Map<String, List<Integer>> jars = new HashMap<>();
+		Map<String, List<Integer>> folders = new HashMap<>();
+		List<Integer> directories = new ArrayList<>();
+		for (int i = 0; i < entries.size(); i++) {
+			Entry entry = entries.get(i);
+			if (entry.isDirectory()) {
+				directories.add(i);
+			}
+			Set<String> entryFolders = new LinkedHashSet<>();
+			for (String packageName : entry.packages) {
+				jars.computeIfAbsent(packageName, (key) -> new ArrayList<>()).add(i);
+				//包的所有父目录,用于目录资源的查找
+				for (String folder = packageName; !folder.isEmpty() && entryFolders.add(folder);) {
+					folder = getPackageName(folder);
+				}
+			}
+			for (String folder : entryFolders) {
+				folders.computeIfAbsent(folder, (key) -> new ArrayList<>()).add(i);
+			}
+		}
+		jars.forEach((packageName, positions) -> this.packages.put(packageName, toArray(positions)));
+		folders.forEach((folder, positions) -> this.folders.put(folder, toArray(positions)));
+		this.directories = toArray(directories);
+	}
+
+	/**
+	 * Return the index of the specified classpath, reusing the jars of the specified
+	 * index file that did not change and writing it back if anything changed.
+	 * 加载类路径索引,只重新扫描变化的jar
+	 * @param indexFile the index file
+	 * @param classpath the classpath
+	 * @return the index
+	 * @throws IOException if a jar could not be read or the index could not be written
+	 */
+	static ClassPathIndex load(File indexFile, List<File> classpath) throws IOException {
+		Map<String, Entry> previous = new HashMap<>();
+		List<Entry> stored = indexFile.isFile() ? readEntries(indexFile) : null;
+		if (stored != null) {
+			stored.forEach((entry) -> previous.put(entry.file.getAbsolutePath(), entry));
+		}
+		List<Entry> entries = new ArrayList<>(classpath.size());
+		boolean changed = stored == null || stored.size() != classpath.size();
+		for (File file : classpath) {
+			Entry entry = previous.get(file.getAbsolutePath());
+			if (entry == null || !entry.matches(file)) {
+				entry = scan(file);
+				changed = true;
+			}
+			entries.add(entry);
+		}
+		if (!changed) {
+			for (int i = 0; i < entries.size(); i++) {
+				changed |= entries.get(i) != stored.get(i);
+			}
+		}
+		if (changed) {
+			write(indexFile, entries);
+		}
+		return new ClassPathIndex(entries);
+	}
+
+	/**
+	 * Read the specified index file as it is.
+	 * @param indexFile the index file
+	 * @return the index
+	 * @throws IOException if the index could not be read
+	 */
+	static ClassPathIndex read(File indexFile) throws IOException {
+		List<Entry> entries = readEntries(indexFile);
+		if (entries == null) {
+			throw new IOException("Unsupported classpath index " + indexFile);
+		}
+		return new ClassPathIndex(entries);
+	}
+
+	/**
+	 * Return the entries of the classpath, in order.
+	 * @return the entries
+	 */
+	List<Entry> getEntries() {
+		return this.entries;
+	}
+
+	/**
+	 * Return the positions of the entries that may contain the specified package, in
+	 * classpath order: every directory and the jars that contain the package.
+	 * @param packageName the name of the package, with {@code '/'} separators
+	 * @return the positions of the entries
+	 */
+	int[] getCandidates(String packageName) {
+		int[] jars = this.packages.get(packageName);
+		return (jars != null) ? merge(this.directories, jars) : this.directories;
+	}
+
+	/**
+	 * Return the positions of the entries that may contain the specified resource, in
+	 * classpath order. The resource may be a folder.
+	 * @param name the name of the resource
+	 * @return the positions of the entries
+	 */
+	int[] getResourceCandidates(String name) {
+		String folder = name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+		int[] jars = this.folders.get(folder);
+		return (jars != null) ? merge(getCandidates(getPackageName(folder)), jars)
+				: getCandidates(getPackageName(name));
+	}
+
+	/**
+	 * Merge two sorted arrays of positions, without duplicates.
+	 */
+	private static int[] merge(int[] first, int[] second) {
+		if (first.length == 0) {
+			return second;
+		}
+		//合并后保持类路径顺序
+		int[] merged = new int[first.length + second.length];
+		int length = 0;
+		int i = 0;
+		int j = 0;
+		while (i < first.length || j < second.length) {
+			int next;
+			if (j == second.length || (i < first.length && first[i] <= second[j])) {
+				next = first[i++];
+			}
+			else {
+				next = second[j++];
+			}
+			if (length == 0 || merged[length - 1] != next) {
+				merged[length++] = next;
+			}
+		}
+		return (length == merged.length) ? merged : Arrays.copyOf(merged, length);
+	}
+
+	/**
+	 * Scan the central directory of the specified jar.
+	 * @param file the jar or directory
+	 * @return the entry
+	 * @throws IOException if the jar could not be read
+	 */
+	private static Entry scan(File file) throws IOException {
+		if (!file.isFile()) {
+			return new Entry(file, -1, -1, -1, 0, 0, Collections.emptySet());
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+			ByteBuffer tail = read(channel, size - tailSize, tailSize);
+			for (int position = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+				if (tail.getInt(position) != END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+					continue;
+				}
+				long directorySize = tail.getInt(position + 12) & 0xFFFFFFFFL;
+				long directoryOffset = tail.getInt(position + 16) & 0xFFFFFFFFL;
+				int count = tail.getShort(position + 10) & 0xFFFF;
+				if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+					break;
+				}
+				//中央目录的实际位置,兼容带前缀数据的jar
+				long directoryPosition = size - tailSize + position - directorySize;
+				ByteBuffer directory = read(channel, directoryPosition, (int) directorySize);
+				return new Entry(file, file.length(), file.lastModified(), directoryPosition, (int) directorySize,
+						directoryPosition - directoryOffset, getPackages(directory));
+			}
+		}
+		//Zip64格式的jar,中央目录位置未知
+		return new Entry(file, file.length(), file.lastModified(), -1, 0, 0, getPackages(file));
+	}
+
+	/**
+	 * Read the specified range of a channel.
+	 * @param channel the channel
+	 * @param position the position of the range
+	 * @param size the size of the range
+	 * @return the content of the range, little-endian
+	 * @throws IOException if the channel could not be read
+	 */
+	static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Call the specified consumer for each record of a central directory.
+	 * @param directory the central directory
+	 * @param consumer the consumer of the records
+	 * @throws IOException if the central directory is invalid
+	 */
+	static void readCentralDirectory(ByteBuffer directory, RecordConsumer consumer) throws IOException {
+		int position = 0;
+		while (position + CENTRAL_DIRECTORY_HEADER_SIZE <= directory.limit()) {
+			if (directory.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new IOException("Invalid central directory");
+			}
+			int nameLength = directory.getShort(position + 28) & 0xFFFF;
+			int extraLength = directory.getShort(position + 30) & 0xFFFF;
+			int commentLength = directory.getShort(position + 32) & 0xFFFF;
+			byte[] name = new byte[nameLength];
+			for (int i = 0; i < nameLength; i++) {
+				name[i] = directory.get(position + CENTRAL_DIRECTORY_HEADER_SIZE + i);
+			}
+			consumer.accept(new String(name, StandardCharsets.UTF_8), directory.getShort(position + 10) & 0xFFFF,
+					directory.getInt(position + 20) & 0xFFFFFFFFL, directory.getInt(position + 24) & 0xFFFFFFFFL,
+					directory.getInt(position + 42) & 0xFFFFFFFFL);
+			position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+	}
+
+	private static Set<String> getPackages(ByteBuffer directory) throws IOException {
+		Set<String> packages = new LinkedHashSet<>();
+		readCentralDirectory(directory, (name, method, compressedSize, size, offset) -> addPackage(packages, name));
+		return packages;
+	}
+
+	private static Set<String> getPackages(File file) throws IOException {
+		Set<String> packages = new LinkedHashSet<>();
+		try (ZipFile zipFile = new ZipFile(file)) {
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+			while (zipEntries.hasMoreElements()) {
+				addPackage(packages, zipEntries.nextElement().getName());
+			}
+		}
+		return packages;
+	}
+
+	private static void addPackage(Set<String> packages, String name) {
+		//目录条目也记录,以便查找不包含文件的目录
+		String packageName = name.endsWith("/") ? name.substring(0, name.length() - 1) : getPackageName(name);
+		if (!packageName.isEmpty() || !name.endsWith("/")) {
+			packages.add(packageName);
+		}
+	}
+
+	/**
+	 * Return the package of the specified entry, the empty string for the root.
+	 * @param name the name of the entry
+	 * @return the package, with {@code '/'} separators
+	 */
+	static String getPackageName(String name) {
+		int lastSlash = name.lastIndexOf('/');
+		return (lastSlash != -1) ? name.substring(0, lastSlash) : "";
+	}
+
+	private static List<Entry> readEntries(File indexFile) {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (input.readInt() != VERSION) {
+				return null;
+			}
+			int count = input.readInt();
+			List<Entry> entries = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				File file = new File(input.readUTF());
+				long size = input.readLong();
+				long lastModified = input.readLong();
+				long directoryPosition = input.readLong();
+				int directorySize = input.readInt();
+				long base = input.readLong();
+				int packageCount = input.readInt();
+				Set<String> packages = new LinkedHashSet<>(packageCount * 2);
+				for (int j = 0; j < packageCount; j++) {
+					packages.add(input.readUTF());
+				}
+				entries.add(new Entry(file, size, lastModified, directoryPosition, directorySize, base, packages));
+			}
+			return entries;
+		}
+		catch (IOException ex) {
+			//索引文件损坏时重新扫描
+			return null;
+		}
+	}
+
+	private static void write(File indexFile, List<Entry> entries) throws IOException {
+		Files.createDirectories(indexFile.getParentFile().toPath());
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+			output.writeInt(VERSION);
+			output.writeInt(entries.size());
+			for (Entry entry : entries) {
+				output.writeUTF(entry.file.getAbsolutePath());
+				output.writeLong(entry.size);
+				output.writeLong(entry.lastModified);
+				output.writeLong(entry.directoryPosition);
+				output.writeInt(entry.directorySize);
+				output.writeLong(entry.base);
+				output.writeInt(entry.packages.size());
+				for (String packageName : entry.packages) {
+					output.writeUTF(packageName);
+				}
+			}
+		}
+	}
+
+	private static int[] toArray(List<Integer> values) {
+		int[] result = new int[values.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = values.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * An indexed classpath entry.
+	 */
+	static final class Entry {
+
+		private final File file;
+
+		private final long size;
+
+		private final long lastModified;
+
+		private final long directoryPosition;
+
+		private final int directorySize;
+
+		private final long base;
+
+		private final Set<String> packages;
+
+		private Entry(File file, long size, long lastModified, long directoryPosition, int directorySize, long base,
+				Set<String> packages) {
+			this.file = file;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.directoryPosition = directoryPosition;
+			this.directorySize = directorySize;
+			this.base = base;
+			this.packages = packages;
+		}
+
+		private boolean matches(File file) {
+			if (isDirectory()) {
+				return !file.isFile();
+			}
+			return file.length() == this.size && file.lastModified() == this.lastModified;
+		}
+
+		File getFile() {
+			return this.file;
+		}
+
+		/**
+		 * Check if the entry is a directory, or a missing file.
+		 * @return {@code true} if the entry is not a jar
+		 */
+		boolean isDirectory() {
+			return this.size < 0;
+		}
+
+		/**
+		 * Return the position of the central directory in the jar.
+		 * @return the position or {@code -1} if it is unknown
+		 */
+		long getDirectoryPosition() {
+			return this.directoryPosition;
+		}
+
+		/**
+		 * Return the size of the central directory.
+		 * @return the size in bytes
+		 */
+		int getDirectorySize() {
+			return this.directorySize;
+		}
+
+		/**
+		 * Return the offset to add to the offsets recorded in the jar, which is not zero
+		 * if the jar starts with other data such as a launch script.
+		 * @return the offset
+		 */
+		long getBase() {
+			return this.base;
+		}
+
+	}
+
+	/**
+	 * Consumer of the records of a central directory.
+	 */
+	@FunctionalInterface
+	interface RecordConsumer {
+
+		void accept(String name, int method, long compressedSize, long size, long localHeaderOffset)
+				throws IOException;
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch a set of directories, including their sub-directories, for changes. Changes are
+ * reported once the directories have been quiet for a while, so that a compilation that
+ * writes many files triggers a single restart.
+ * 目录监听（防抖,一次编译只触发一次重启）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ClassPathWatcher implements Closeable {
+
+	private final WatchService watchService;
+
+	private final long quietPeriod;
+
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+
+	/**
+	 * Create a new instance.
+	 * @param roots the directories to watch, the ones that do not exist are ignored
+	 * @param quietPeriod the time without changes to wait before reporting changes, in
+	 * milliseconds
+	 * @throws IOException if the directories could not be watched
+	 */
+	ClassPathWatcher(List<File> roots, long quietPeriod) throws IOException {
+		this.watchService = roots.isEmpty() ? null : roots.get(0).toPath().getFileSystem().newWatchService();
+		this.quietPeriod = quietPeriod;
+		for (File root : roots) {
+			if (root.isDirectory()) {
+				register(root.toPath());
+			}
+		}
+	}
+
+	private void register(Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+					throws IOException {
+				WatchKey key = directory.register(ClassPathWatcher.this.watchService,
+						StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+				ClassPathWatcher.this.directories.put(key, directory);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	/**
+	 * Wait for changes and return them once no further change happened during the quiet
+	 * period.
+	 * 等待变化
+	 * @return the changed files
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	Set<Path> waitForChanges() throws InterruptedException {
+		Set<Path> changes = new LinkedHashSet<>();
+		if (this.watchService == null) {
+			//没有可监听的目录,一直等待
+			Thread.sleep(Long.MAX_VALUE);
+		}
+		WatchKey key = this.watchService.take();
+		while (key != null) {
+			collect(key, changes);
+			key = this.watchService.poll(this.quietPeriod, TimeUnit.MILLISECONDS);
+		}
+		return changes;
+	}
+
+	private void collect(WatchKey key, Set<Path> changes) {
+		Path directory = this.directories.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				changes.add((directory != null) ? directory : new File(".").toPath());
+				continue;
+			}
+			Path changed = directory.resolve((Path) event.context());
+			changes.add(changed);
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+				//新建的子目录也需要监听
+				try {
+					register(changed);
+				}
+				catch (IOException ex) {
+					// The directory has already been removed again
+				}
+			}
+		}
+		if (!key.reset()) {
+			this.directories.remove(key);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.watchService != null) {
+			this.watchService.close();
+		}
+	}
+
+}
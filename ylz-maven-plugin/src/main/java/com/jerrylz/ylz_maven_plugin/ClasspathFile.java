@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Writes the classpath of a forked process to a file so that it does not have to be
+ * passed inline on the command line. A JVM argument file is used on Java 9 and later
+ * and a manifest-only jar otherwise. The file is only rewritten when the classpath
+ * changes.
+ * 类路径文件（Java 9+使用参数文件,否则使用只包含清单的jar）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ClasspathFile {
+
+	private static final String ARGUMENT_FILE_NAME = "classpath.argfile";
+
+	private static final String MANIFEST_JAR_NAME = "classpath.jar";
+
+	private final File directory;
+
+	private final boolean argumentFile;
+
+	/**
+	 * Create a new instance.
+	 * @param directory the directory in which the classpath file is written
+	 */
+	ClasspathFile(File directory) {
+		this(directory, isJava9OrLater());
+	}
+
+	ClasspathFile(File directory, boolean argumentFile) {
+		this.directory = directory;
+		this.argumentFile = argumentFile;
+	}
+
+	/**
+	 * Return the file that holds the classpath.
+	 * @return the classpath file
+	 */
+	File getFile() {
+		return new File(this.directory, this.argumentFile ? ARGUMENT_FILE_NAME : MANIFEST_JAR_NAME);
+	}
+
+	/**
+	 * Write the specified classpath if necessary and return the JVM arguments that
+	 * reference it.
+	 * @param classpath the classpath entries, in order
+	 * @return the arguments to add to the command line
+	 * @throws IOException if the classpath file could not be written
+	 */
+	List<String> write(List<File> classpath) throws IOException {
+		File file = getFile();
+		File fingerprintFile = new File(this.directory, file.getName() + ".sha1");
+		String fingerprint = fingerprint(classpath);
+		if (!isUpToDate(file, fingerprintFile, fingerprint)) {
+			Files.createDirectories(this.directory.toPath());
+			if (this.argumentFile) {
+				writeArgumentFile(file, classpath);
+			}
+			else {
+				writeManifestJar(file, classpath);
+			}
+			Files.write(fingerprintFile.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+		}
+		if (this.argumentFile) {
+			return Collections.singletonList("@" + file.getAbsolutePath());
+		}
+		return Arrays.asList("-cp", file.getAbsolutePath());
+	}
+
+	private String fingerprint(List<File> classpath) {
+		Fingerprint fingerprint = new Fingerprint();
+		for (File entry : classpath) {
+			fingerprint.add(entry.getAbsolutePath());
+		}
+		return fingerprint.toHex();
+	}
+
+	private boolean isUpToDate(File file, File fingerprintFile, String fingerprint) throws IOException {
+		if (!file.isFile() || !fingerprintFile.isFile()) {
+			return false;
+		}
+		byte[] existing = Files.readAllBytes(fingerprintFile.toPath());
+		return fingerprint.equals(new String(existing, StandardCharsets.UTF_8));
+	}
+
+	private void writeArgumentFile(File file, List<File> classpath) throws IOException {
+		StringBuilder content = new StringBuilder("-cp\n\"");
+		for (int i = 0; i < classpath.size(); i++) {
+			if (i > 0) {
+				content.append(File.pathSeparator);
+			}
+			//参数文件中反斜杠是转义字符
+			content.append(classpath.get(i).getAbsolutePath().replace("\\", "\\\\").replace("\"", "\\\""));
+		}
+		content.append("\"\n");
+		//参数文件使用平台默认编码读取
+		Files.write(file.toPath(), content.toString().getBytes(Charset.defaultCharset()));
+	}
+
+	private void writeManifestJar(File file, List<File> classpath) throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (File entry : classpath) {
+			if (content.length() > 0) {
+				content.append(" ");
+			}
+			//目录的URI以'/'结尾
+			content.append(entry.toURI().toString());
+		}
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, content.toString());
+		try (OutputStream outputStream = new FileOutputStream(file);
+				JarOutputStream jarOutputStream = new JarOutputStream(outputStream, manifest)) {
+			jarOutputStream.flush();
+		}
+	}
+
+	private static boolean isJava9OrLater() {
+		for (Method method : Runtime.class.getMethods()) {
+			if (method.getName().equals("version")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
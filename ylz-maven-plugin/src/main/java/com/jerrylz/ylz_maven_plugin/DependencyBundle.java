@@ -0,0 +1,502 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Merge the dependency jars of a classpath into a single jar whose entries are stored
+ * uncompressed and sorted by name. When several jars contain the same class, the first
+ * one in classpath order wins. Resources that are aggregated through
+ * {@link ClassLoader#getResources(String)} are merged: the service provider files, the
+ * {@code *.imports} files and the Dubbo extension files are concatenated,
+ * {@code spring.factories} values are joined and the keys of the other Spring
+ * properties files, such as {@code spring.handlers}, are merged. A jar that contains
+ * another resource already provided by a previous jar is left out of the bundle, as are
+ * signed jars, so that both copies remain visible. The manifest of the bundle has a
+ * section for each package with the specification and implementation attributes of the
+ * jar it comes from. Bundles are named after the fingerprint of the jars they merge, so
+ * that a bundle is only built when the set of jars changes.
+ * 将依赖jar合并为一个不压缩、条目有序的jar
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class DependencyBundle {
+
+	private static final int VERSION = 2;
+
+	private static final String BUNDLE_EXTENSION = ".jar";
+
+	private static final String EXCLUDED_EXTENSION = ".excluded";
+
+	private static final String SERVICES_PREFIX = "META-INF/services/";
+
+	private static final String SPRING_FACTORIES = "META-INF/spring.factories";
+
+	private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+	/**
+	 * Properties files whose keys are merged, the first jar winning for a key.
+	 */
+	private static final Set<String> MERGED_PROPERTIES = new HashSet<>(Arrays.asList("META-INF/spring.handlers",
+			"META-INF/spring.schemas", "META-INF/spring.tooling", "META-INF/spring-autoconfigure-metadata.properties"));
+
+	/**
+	 * Manifest attributes that describe the packages of a jar.
+	 */
+	private static final List<Attributes.Name> PACKAGE_ATTRIBUTES = Arrays.asList(Attributes.Name.SPECIFICATION_TITLE,
+			Attributes.Name.SPECIFICATION_VERSION, Attributes.Name.SPECIFICATION_VENDOR,
+			Attributes.Name.IMPLEMENTATION_TITLE, Attributes.Name.IMPLEMENTATION_VERSION,
+			Attributes.Name.IMPLEMENTATION_VENDOR);
+
+	private final File directory;
+
+	/**
+	 * Create a new instance.
+	 * @param directory the directory in which bundles are kept
+	 */
+	DependencyBundle(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Return the specified classpath with its jars replaced by a bundle, building the
+	 * bundle if the jars changed since it was built. The bundle takes the position of
+	 * the first bundled jar. Directories and signed jars are kept as they are.
+	 * 返回用合并后的jar替换依赖jar的类路径
+	 * @param classpath the classpath
+	 * @return the classpath using the bundle
+	 * @throws IOException if the bundle could not be built
+	 */
+	List<File> apply(List<File> classpath) throws IOException {
+		List<File> jars = new ArrayList<>();
+		Fingerprint fingerprint = new Fingerprint().add(Integer.toString(VERSION));
+		for (File entry : classpath) {
+			if (entry.isFile()) {
+				jars.add(entry);
+				fingerprint.add(entry);
+			}
+		}
+		if (jars.size() < 2) {
+			return classpath;
+		}
+		String name = fingerprint.toHex();
+		File bundle = new File(this.directory, name + BUNDLE_EXTENSION);
+		File excludedFile = new File(this.directory, name + EXCLUDED_EXTENSION);
+		Set<File> excluded;
+		if (bundle.isFile() && excludedFile.isFile()) {
+			excluded = readExcluded(excludedFile);
+		}
+		else {
+			excluded = build(jars, bundle, excludedFile);
+			deleteStaleBundles(name);
+		}
+		List<File> result = new ArrayList<>();
+		boolean added = false;
+		for (File entry : classpath) {
+			if (!entry.isFile() || excluded.contains(entry)) {
+				result.add(entry);
+			}
+			else if (!added) {
+				result.add(bundle);
+				added = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Build the bundle of the specified jars.
+	 * @param jars the jars, in classpath order
+	 * @param bundle the bundle to write
+	 * @param excludedFile the file listing the jars left out of the bundle
+	 * @return the jars left out of the bundle
+	 * @throws IOException if a jar could not be read or the bundle could not be written
+	 */
+	private Set<File> build(List<File> jars, File bundle, File excludedFile) throws IOException {
+		Files.createDirectories(this.directory.toPath());
+		List<ZipFile> zipFiles = new ArrayList<>();
+		Set<File> excluded = new LinkedHashSet<>();
+		try {
+			Map<String, Source> sources = new TreeMap<>();
+			Manifest manifest = new Manifest();
+			//所有jar已经提供的文件,以及被排除的jar提供的文件
+			Set<String> provided = new HashSet<>();
+			Set<String> excludedNames = new HashSet<>();
+			for (File jar : jars) {
+				ZipFile zipFile = new ZipFile(jar);
+				zipFiles.add(zipFile);
+				List<ZipEntry> entries = Collections.list(zipFile.entries()).stream()
+						.filter((entry) -> !entry.isDirectory()).collect(Collectors.toList());
+				//合并后签名失效,签名的jar保持独立;重复的资源文件需要保留两份
+				if (isSigned(zipFile) || hasProvidedResource(entries, provided)) {
+					excluded.add(jar);
+					entries.forEach((entry) -> excludedNames.add(entry.getName()));
+					entries.forEach((entry) -> provided.add(entry.getName()));
+					continue;
+				}
+				Manifest jarManifest = getManifest(zipFile);
+				for (ZipEntry entry : Collections.list(zipFile.entries())) {
+					String name = entry.getName();
+					if (isSkipped(name) || (excludedNames.contains(name) && !isMerged(name))) {
+						//被排除的jar在类路径上位于其后,其中的文件优先
+						continue;
+					}
+					Source source = sources.get(name);
+					if (source == null) {
+						sources.put(name, new Source(zipFile, entry));
+						addPackageAttributes(manifest, jarManifest, name);
+					}
+					else if (isMerged(name)) {
+						source.merge(zipFile, entry);
+					}
+				}
+				if (jarManifest != null
+						&& "true".equalsIgnoreCase(jarManifest.getMainAttributes().getValue("Multi-Release"))) {
+					manifest.getMainAttributes().putValue("Multi-Release", "true");
+				}
+				entries.forEach((entry) -> provided.add(entry.getName()));
+			}
+			File temp = new File(this.directory, UUID.randomUUID() + ".tmp");
+			try {
+				write(sources, manifest, temp);
+				writeExcluded(excluded, excludedFile);
+				Files.move(temp.toPath(), bundle.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				temp.delete();
+			}
+			return excluded;
+		}
+		finally {
+			for (ZipFile zipFile : zipFiles) {
+				zipFile.close();
+			}
+		}
+	}
+
+	private void write(Map<String, Source> sources, Manifest manifest, File file) throws IOException {
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue("Created-By", "ylz-maven-plugin");
+		ByteArrayOutputStream manifestContent = new ByteArrayOutputStream();
+		manifest.write(manifestContent);
+		try (JarOutputStream output = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			//清单必须是第一个条目
+			Source.putEntry(output, "META-INF/", System.currentTimeMillis(), new byte[0]);
+			Source.putEntry(output, JarFile.MANIFEST_NAME, System.currentTimeMillis(), manifestContent.toByteArray());
+			for (Map.Entry<String, Source> entry : sources.entrySet()) {
+				entry.getValue().write(entry.getKey(), output);
+			}
+		}
+	}
+
+	private boolean isSigned(ZipFile zipFile) {
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			String name = entries.nextElement().getName();
+			if (name.startsWith("META-INF/") && name.indexOf('/', "META-INF/".length()) == -1
+					&& name.toUpperCase().endsWith(".SF")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check if the specified entries contain a resource, other than a class or a merged
+	 * resource, that a previous jar already provides.
+	 */
+	private boolean hasProvidedResource(List<ZipEntry> entries, Set<String> provided) {
+		for (ZipEntry entry : entries) {
+			String name = entry.getName();
+			if (provided.contains(name) && !name.endsWith(".class") && !isMerged(name) && !isSkipped(name)
+					&& !isInformational(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check if the specified entry only documents its jar, such as the license or the
+	 * Maven metadata, in which case the first copy can win.
+	 */
+	private boolean isInformational(String name) {
+		if (name.startsWith("META-INF/maven/")) {
+			return true;
+		}
+		if (!name.startsWith("META-INF/") || name.indexOf('/', "META-INF/".length()) != -1) {
+			return false;
+		}
+		String fileName = name.substring("META-INF/".length()).toUpperCase();
+		return fileName.startsWith("LICENSE") || fileName.startsWith("NOTICE") || fileName.startsWith("DEPENDENCIES")
+				|| fileName.startsWith("README");
+	}
+
+	private Manifest getManifest(ZipFile zipFile) throws IOException {
+		ZipEntry entry = zipFile.getEntry(JarFile.MANIFEST_NAME);
+		if (entry == null) {
+			return null;
+		}
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			return new Manifest(inputStream);
+		}
+	}
+
+	/**
+	 * Add a section for the package of the specified class to the manifest of the
+	 * bundle, with the package attributes of the jar that contains it.
+	 */
+	private void addPackageAttributes(Manifest manifest, Manifest jarManifest, String name) {
+		if (jarManifest == null || !name.endsWith(".class")) {
+			return;
+		}
+		if (name.startsWith(VERSIONS_PREFIX)) {
+			int slash = name.indexOf('/', VERSIONS_PREFIX.length());
+			name = (slash != -1) ? name.substring(slash + 1) : name;
+		}
+		int lastSlash = name.lastIndexOf('/');
+		if (lastSlash == -1) {
+			return;
+		}
+		String path = name.substring(0, lastSlash + 1);
+		if (manifest.getEntries().containsKey(path)) {
+			return;
+		}
+		//包的属性优先取自清单中该包的条目,其次取自主属性,与类加载器定义包的方式一致
+		Attributes section = jarManifest.getAttributes(path);
+		Attributes attributes = new Attributes();
+		for (Attributes.Name attribute : PACKAGE_ATTRIBUTES) {
+			String value = (section != null) ? section.getValue(attribute) : null;
+			if (value == null) {
+				value = jarManifest.getMainAttributes().getValue(attribute);
+			}
+			if (value != null) {
+				attributes.put(attribute, value);
+			}
+		}
+		if (!attributes.isEmpty()) {
+			manifest.getEntries().put(path, attributes);
+		}
+	}
+
+	private boolean isSkipped(String name) {
+		//清单由合并后的jar重新生成
+		return name.equals("META-INF/") || name.equals(JarFile.MANIFEST_NAME) || name.equals("META-INF/INDEX.LIST");
+	}
+
+	private static boolean isMerged(String name) {
+		return isLineMerged(name) || SPRING_FACTORIES.equals(name) || MERGED_PROPERTIES.contains(name);
+	}
+
+	private static boolean isLineMerged(String name) {
+		return (name.startsWith(SERVICES_PREFIX) && !name.endsWith("/"))
+				|| (name.startsWith("META-INF/spring/") && name.endsWith(".imports"))
+				|| (name.startsWith("META-INF/dubbo/") && !name.endsWith("/"));
+	}
+
+	private void deleteStaleBundles(String name) {
+		File[] files = this.directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (!file.getName().startsWith(name) && (file.getName().endsWith(BUNDLE_EXTENSION)
+						|| file.getName().endsWith(EXCLUDED_EXTENSION))) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	private Set<File> readExcluded(File excludedFile) throws IOException {
+		Set<File> excluded = new LinkedHashSet<>();
+		for (String line : Files.readAllLines(excludedFile.toPath(), StandardCharsets.UTF_8)) {
+			if (!line.isEmpty()) {
+				excluded.add(new File(line));
+			}
+		}
+		return excluded;
+	}
+
+	private void writeExcluded(Set<File> excluded, File excludedFile) throws IOException {
+		List<String> lines = new ArrayList<>();
+		excluded.forEach((file) -> lines.add(file.getPath()));
+		Files.write(excludedFile.toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	private static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * The source of an entry of the bundle: the entry of the first jar that contains it,
+	 * and the entries of the following jars for merged entries.
+	 */
+	private static final class Source {
+
+		private final List<ZipFile> zipFiles = new ArrayList<>();
+
+		private final List<ZipEntry> entries = new ArrayList<>();
+
+		private Source(ZipFile zipFile, ZipEntry entry) {
+			merge(zipFile, entry);
+		}
+
+		private void merge(ZipFile zipFile, ZipEntry entry) {
+			this.zipFiles.add(zipFile);
+			this.entries.add(entry);
+		}
+
+		private void write(String name, JarOutputStream output) throws IOException {
+			ZipEntry first = this.entries.get(0);
+			if (this.entries.size() == 1 && first.getSize() >= 0 && first.getCrc() != -1) {
+				//大小与CRC已知,直接复制
+				putEntry(output, name, first.getTime(), first.getSize(), first.getCrc());
+				try (InputStream inputStream = this.zipFiles.get(0).getInputStream(first)) {
+					copy(inputStream, output);
+				}
+				output.closeEntry();
+				return;
+			}
+			putEntry(output, name, first.getTime(), (this.entries.size() == 1) ? read(0) : merge(name));
+		}
+
+		private static void putEntry(JarOutputStream output, String name, long time, byte[] content)
+				throws IOException {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			putEntry(output, name, time, content.length, crc.getValue());
+			output.write(content);
+			output.closeEntry();
+		}
+
+		private static void putEntry(JarOutputStream output, String name, long time, long size, long crc)
+				throws IOException {
+			ZipEntry entry = new ZipEntry(name);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setTime(time);
+			entry.setSize(size);
+			entry.setCompressedSize(size);
+			entry.setCrc(crc);
+			output.putNextEntry(entry);
+		}
+
+		private byte[] read(int index) throws IOException {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			try (InputStream inputStream = this.zipFiles.get(index).getInputStream(this.entries.get(index))) {
+				copy(inputStream, content);
+			}
+			return content.toByteArray();
+		}
+
+		private byte[] merge(String name) throws IOException {
+			if (isLineMerged(name)) {
+				//按类路径顺序拼接,每个文件以换行结束
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				for (int i = 0; i < this.entries.size(); i++) {
+					byte[] part = read(i);
+					content.write(part);
+					if (part.length > 0 && part[part.length - 1] != '\n') {
+						content.write('\n');
+					}
+				}
+				return content.toByteArray();
+			}
+			if (MERGED_PROPERTIES.contains(name)) {
+				return mergeProperties();
+			}
+			//spring.factories: 相同键的值按类路径顺序以逗号合并
+			Map<String, Set<String>> factories = new LinkedHashMap<>();
+			for (int i = 0; i < this.entries.size(); i++) {
+				Properties properties = new Properties();
+				try (InputStream inputStream = this.zipFiles.get(i).getInputStream(this.entries.get(i))) {
+					properties.load(inputStream);
+				}
+				for (String key : properties.stringPropertyNames()) {
+					Set<String> values = factories.computeIfAbsent(key.trim(), (k) -> new LinkedHashSet<>());
+					for (String value : properties.getProperty(key).split(",")) {
+						if (!value.trim().isEmpty()) {
+							values.add(value.trim());
+						}
+					}
+				}
+			}
+			StringBuilder content = new StringBuilder();
+			factories.forEach((key, values) -> content.append(key).append('=').append(String.join(",", values))
+					.append('\n'));
+			return content.toString().getBytes(StandardCharsets.ISO_8859_1);
+		}
+
+		/**
+		 * Merge properties files, the first file winning for a key.
+		 */
+		private byte[] mergeProperties() throws IOException {
+			Properties merged = new Properties();
+			for (int i = 0; i < this.entries.size(); i++) {
+				Properties properties = new Properties();
+				try (InputStream inputStream = this.zipFiles.get(i).getInputStream(this.entries.get(i))) {
+					properties.load(inputStream);
+				}
+				for (String key : properties.stringPropertyNames()) {
+					if (!merged.containsKey(key)) {
+						merged.setProperty(key, properties.getProperty(key));
+					}
+				}
+			}
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			merged.store(content, null);
+			return content.toByteArray();
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the class loaders of the dependencies of applications run in the Maven JVM,
+ * shared by the invocations of the plugin in a long-lived JVM such as a Maven daemon.
+ * Class loaders are keyed by their type and the ordered files of the dependencies,
+ * including their size and modification time, and the least recently used ones are closed once the
+ * cache is full and no run uses them anymore. A repeated run then only loads the classes
+ * of the project again.
+ * 依赖类加载器缓存（跨多次执行复用,LRU淘汰）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+final class DependencyClassLoaderCache {
+
+	private static final DependencyClassLoaderCache instance = new DependencyClassLoaderCache();
+
+	/**
+	 * The cached class loaders, least recently used first.
+	 */
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private DependencyClassLoaderCache() {
+	}
+
+	/**
+	 * Return the cache shared by the invocations of the plugin.
+	 * @return the shared cache
+	 */
+	static DependencyClassLoaderCache get() {
+		return instance;
+	}
+
+	/**
+	 * Acquire the class loader of the specified dependencies, creating it if necessary.
+	 * The class loader is not closed until the returned lease is closed.
+	 * 获取依赖类加载器
+	 * @param urls the urls of the dependencies, in classpath order
+	 * @param type the type of the class loader created by the factory
+	 * @param maxSize the maximum number of class loaders to keep, {@code 0} to close the
+	 * class loader once the lease is closed
+	 * @param factory the factory creating the class loader if it is not cached
+	 * @return the lease of the class loader
+	 * @throws IOException if the class loader could not be created
+	 */
+	synchronized Lease acquire(URL[] urls, String type, int maxSize, Factory factory) throws IOException {
+		String key = getKey(urls, type);
+		Entry entry = this.entries.get(key);
+		boolean reused = entry != null;
+		if (entry == null) {
+			entry = new Entry(factory.create(urls));
+			this.entries.put(key, entry);
+		}
+		entry.leases++;
+		evict(maxSize);
+		return new Lease(entry, reused);
+	}
+
+	/**
+	 * Return the number of cached class loaders.
+	 * @return the number of class loaders
+	 */
+	synchronized int size() {
+		return this.entries.size();
+	}
+
+	private void evict(int maxSize) throws IOException {
+		Iterator<Entry> iterator = this.entries.values().iterator();
+		while (this.entries.size() > maxSize && iterator.hasNext()) {
+			Entry eldest = iterator.next();
+			iterator.remove();
+			eldest.evicted = true;
+			//仍在使用的类加载器在租约结束时关闭
+			if (eldest.leases == 0) {
+				eldest.classLoader.close();
+			}
+		}
+	}
+
+	private synchronized void release(Entry entry) throws IOException {
+		entry.leases--;
+		if (entry.evicted && entry.leases == 0) {
+			entry.classLoader.close();
+		}
+	}
+
+	private static String getKey(URL[] urls, String type) {
+		Fingerprint fingerprint = new Fingerprint();
+		fingerprint.add(type);
+		for (URL url : urls) {
+			try {
+				fingerprint.add(new File(url.toURI()));
+			}
+			catch (URISyntaxException | IllegalArgumentException ex) {
+				fingerprint.add(url.toString());
+			}
+		}
+		return fingerprint.toHex();
+	}
+
+	/**
+	 * Factory of the class loader of a set of dependencies.
+	 */
+	@FunctionalInterface
+	interface Factory {
+
+		/**
+		 * Create the class loader of the specified dependencies.
+		 * @param urls the urls of the dependencies
+		 * @return the class loader
+		 * @throws IOException if the class loader could not be created
+		 */
+		URLClassLoader create(URL[] urls) throws IOException;
+
+	}
+
+	private static final class Entry {
+
+		private final URLClassLoader classLoader;
+
+		private int leases;
+
+		private boolean evicted;
+
+		private Entry(URLClassLoader classLoader) {
+			this.classLoader = classLoader;
+		}
+
+	}
+
+	/**
+	 * The use of a cached class loader by a run.
+	 */
+	final class Lease implements Closeable {
+
+		private final Entry entry;
+
+		private final boolean reused;
+
+		private boolean closed;
+
+		private Lease(Entry entry, boolean reused) {
+			this.entry = entry;
+			this.reused = reused;
+		}
+
+		/**
+		 * Return the class loader of the dependencies.
+		 * @return the class loader
+		 */
+		ClassLoader getClassLoader() {
+			return this.entry.classLoader;
+		}
+
+		/**
+		 * Check if the class loader was created by a previous run.
+		 * @return {@code true} if the class loader has been reused
+		 */
+		boolean isReused() {
+			return this.reused;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				release(this.entry);
+			}
+		}
+
+	}
+
+}
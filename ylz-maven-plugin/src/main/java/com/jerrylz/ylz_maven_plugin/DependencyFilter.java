@@ -16,7 +16,7 @@
 
 package com.jerrylz.ylz_maven_plugin;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -27,6 +27,7 @@ import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
 
 /**
  * Base class for {@link ArtifactsFilter} based on a {@link FilterableDependency} list.
+ * The list is compiled once in a {@link DependencyMatcher}.
  * 依赖过滤器
  * @author Stephane Nicoll
  * @author David Turanski
@@ -37,6 +38,9 @@ public abstract class DependencyFilter extends AbstractArtifactsFilter {
 	//依赖集合
 	private final List<? extends FilterableDependency> filters;
 
+	//编译后的匹配器
+	private final DependencyMatcher matcher;
+
 	/**
 	 * Create a new instance with the list of {@link FilterableDependency} instance(s) to
 	 * use.
@@ -45,6 +49,7 @@ public abstract class DependencyFilter extends AbstractArtifactsFilter {
 	 */
 	public DependencyFilter(List<? extends FilterableDependency> dependencies) {
 		this.filters = dependencies;
+		this.matcher = DependencyMatcher.of(dependencies);
 	}
 
 	/**
@@ -56,7 +61,7 @@ public abstract class DependencyFilter extends AbstractArtifactsFilter {
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public Set filter(Set artifacts) throws ArtifactFilterException {
-		Set result = new HashSet();
+		Set result = new LinkedHashSet();
 		for (Object artifact : artifacts) {
 			//调用子类的过滤方法,如果返回false
 			if (!filter((Artifact) artifact)) {
@@ -67,6 +72,16 @@ public abstract class DependencyFilter extends AbstractArtifactsFilter {
 		return result;
 	}
 
+	/**
+	 * 判断单个artifact是否保留,无需构建集合
+	 * @param artifact
+	 * @return
+	 */
+	@Override
+	public boolean isArtifactIncluded(Artifact artifact) {
+		return !filter(artifact);
+	}
+
 	//待子类实现
 	protected abstract boolean filter(Artifact artifact);
 
@@ -101,4 +116,14 @@ public abstract class DependencyFilter extends AbstractArtifactsFilter {
 		return this.filters;
 	}
 
+	/**
+	 * Check if the specified artifact matches at least one of the dependencies.
+	 * 判断artifact是否匹配任一依赖
+	 * @param artifact the Maven {@link Artifact}
+	 * @return {@code true} if the artifact matches
+	 */
+	protected final boolean matches(Artifact artifact) {
+		return this.matcher.matches(artifact);
+	}
+
 }
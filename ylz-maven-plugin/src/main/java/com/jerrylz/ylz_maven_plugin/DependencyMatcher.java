@@ -0,0 +1,235 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Matcher compiled from a list of {@link FilterableDependency} rules. A coordinate of a
+ * rule is either an exact value, a glob ({@code *} and {@code ?}) or a regular
+ * expression enclosed in slashes, such as {@code /spring-.*}/}. Exact rules are looked
+ * up by {@code groupId:artifactId[:classifier]}, rules whose groupId is a prefix ending
+ * with {@code *} are indexed in a prefix trie and each other rule is compiled to its own
+ * regular expression, so that the groups and back references of a rule never refer to
+ * another rule. A rule without classifier matches any classifier. Compiled matchers
+ * are cached so that all the goals of a build share them.
+ * 依赖匹配器（精确匹配使用哈希查找,groupId前缀使用前缀树,其他规则各自编译为正则）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+final class DependencyMatcher {
+
+	private static final int CACHE_SIZE = 16;
+
+	private static final Map<List<List<String>>, DependencyMatcher> cache =
+			new LinkedHashMap<List<List<String>>, DependencyMatcher>(CACHE_SIZE, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<List<String>>, DependencyMatcher> eldest) {
+			return size() > CACHE_SIZE;
+		}
+
+	};
+
+	private final Set<String> exact = new HashSet<>();
+
+	private final TrieNode groupIdPrefixes = new TrieNode();
+
+	private final List<Pattern> patterns = new ArrayList<>();
+
+	private final int size;
+
+	private DependencyMatcher(List<? extends FilterableDependency> dependencies) {
+		for (FilterableDependency dependency : dependencies) {
+			String groupId = dependency.getGroupId();
+			String artifactId = dependency.getArtifactId();
+			String classifier = dependency.getClassifier();
+			if (isExact(groupId) && isExact(artifactId) && (classifier == null || isExact(classifier))) {
+				this.exact.add(key(groupId, artifactId, classifier));
+			}
+			else if (isPrefix(groupId)) {
+				//groupId前缀规则放入前缀树
+				this.groupIdPrefixes.add(groupId.substring(0, groupId.length() - 1),
+						Pattern.compile(toRegex(artifactId) + ":" + toClassifierRegex(classifier)));
+			}
+			else {
+				this.patterns.add(Pattern.compile(
+						toRegex(groupId) + ":" + toRegex(artifactId) + ":" + toClassifierRegex(classifier)));
+			}
+		}
+		this.size = dependencies.size();
+	}
+
+	/**
+	 * Return the matcher of the specified rules, compiling it if necessary.
+	 * 获取（或编译）依赖匹配器
+	 * @param dependencies the rules
+	 * @return the matcher
+	 */
+	static DependencyMatcher of(List<? extends FilterableDependency> dependencies) {
+		//以原始字段为键,正则坐标中的':'与null分类器不会产生冲突
+		List<List<String>> key = new ArrayList<>(dependencies.size());
+		for (FilterableDependency dependency : dependencies) {
+			key.add(Arrays.asList(dependency.getGroupId(), dependency.getArtifactId(), dependency.getClassifier()));
+		}
+		synchronized (cache) {
+			return cache.computeIfAbsent(key, (k) -> new DependencyMatcher(dependencies));
+		}
+	}
+
+	/**
+	 * Clear the cache of compiled matchers, so that the next matchers are compiled
+	 * again.
+	 */
+	static void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Return the number of rules of this matcher.
+	 * @return the number of rules
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Check if the specified artifact matches at least one rule.
+	 * 判断artifact是否匹配
+	 * @param artifact the artifact
+	 * @return {@code true} if the artifact matches
+	 */
+	boolean matches(Artifact artifact) {
+		return matches(artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier());
+	}
+
+	boolean matches(String groupId, String artifactId, String classifier) {
+		if (this.exact.contains(key(groupId, artifactId, null))
+				|| (classifier != null && this.exact.contains(key(groupId, artifactId, classifier)))) {
+			return true;
+		}
+		String remainder = artifactId + ":" + ((classifier != null) ? classifier : "");
+		if (this.groupIdPrefixes.matches(groupId, remainder)) {
+			return true;
+		}
+		if (!this.patterns.isEmpty()) {
+			String coordinates = groupId + ":" + remainder;
+			for (Pattern pattern : this.patterns) {
+				if (pattern.matcher(coordinates).matches()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static String key(String groupId, String artifactId, String classifier) {
+		return (classifier != null) ? groupId + ":" + artifactId + ":" + classifier : groupId + ":" + artifactId;
+	}
+
+	private static boolean isRegex(String value) {
+		return value.length() > 1 && value.startsWith("/") && value.endsWith("/");
+	}
+
+	private static boolean isExact(String value) {
+		return !isRegex(value) && value.indexOf('*') == -1 && value.indexOf('?') == -1;
+	}
+
+	private static boolean isPrefix(String value) {
+		return !isRegex(value) && value.endsWith("*") && isExact(value.substring(0, value.length() - 1));
+	}
+
+	private static String toClassifierRegex(String classifier) {
+		return (classifier != null) ? toRegex(classifier) : "[^:]*";
+	}
+
+	private static String toRegex(String value) {
+		if (isRegex(value)) {
+			return "(?:" + value.substring(1, value.length() - 1) + ")";
+		}
+		StringBuilder regex = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char c : value.toCharArray()) {
+			if (c == '*' || c == '?') {
+				if (literal.length() > 0) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append((c == '*') ? "[^:]*" : "[^:]");
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		return regex.toString();
+	}
+
+	/**
+	 * Node of the groupId prefix trie.
+	 */
+	private static final class TrieNode {
+
+		private final Map<Character, TrieNode> children = new HashMap<>();
+
+		/**
+		 * Patterns of {@code artifactId:classifier} of the rules whose prefix ends here.
+		 */
+		private final List<Pattern> remainders = new ArrayList<>();
+
+		private void add(String prefix, Pattern remainder) {
+			TrieNode node = this;
+			for (int i = 0; i < prefix.length(); i++) {
+				node = node.children.computeIfAbsent(prefix.charAt(i), (c) -> new TrieNode());
+			}
+			node.remainders.add(remainder);
+		}
+
+		private boolean matches(String groupId, String remainder) {
+			TrieNode node = this;
+			for (int i = 0; node != null; i++) {
+				for (Pattern pattern : node.remainders) {
+					if (pattern.matcher(remainder).matches()) {
+						return true;
+					}
+				}
+				if (i == groupId.length()) {
+					return false;
+				}
+				node = node.children.get(groupId.charAt(i));
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -40,14 +40,8 @@ public class ExcludeFilter extends DependencyFilter {
 
 	@Override
 	protected boolean filter(Artifact artifact) {
-		for (FilterableDependency dependency : getFilters()) {
-			//如果匹配返回true
-			if (equals(artifact, dependency)) {
-				return true;
-			}
-		}
-		//未匹配返回false
-		return false;
+		//匹配返回true
+		return matches(artifact);
 	}
 
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The exploded layout of a repackaged Spring Boot jar. The classes and the nested jars
+ * are extracted once into a directory named after the checksum of the jar, and reused
+ * as long as the jar does not change. The classpath starts with the classes and follows
+ * the order of the classpath index of the jar.
+ * 可执行jar的解压缓存
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ExplodedArchive {
+
+	private static final String START_CLASS_ATTRIBUTE = "Start-Class";
+
+	private static final String CLASSES_ATTRIBUTE = "Spring-Boot-Classes";
+
+	private static final String LIB_ATTRIBUTE = "Spring-Boot-Lib";
+
+	private static final String CLASSPATH_INDEX_ATTRIBUTE = "Spring-Boot-Classpath-Index";
+
+	/**
+	 * Name of the file describing an extracted layout, written once the extraction is
+	 * complete.
+	 */
+	private static final String LAYOUT_FILE = "layout.properties";
+
+	/**
+	 * Name of the file remembering the checksum of the last jar, to avoid computing it
+	 * again when the jar did not change.
+	 */
+	private static final String CHECKSUM_FILE = "checksum.properties";
+
+	private final File directory;
+
+	/**
+	 * Create a new instance.
+	 * @param directory the directory in which the layouts are extracted
+	 */
+	ExplodedArchive(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Return the exploded layout of the specified jar, extracting it if the jar changed
+	 * since it was last extracted.
+	 * 返回可执行jar解压后的布局,jar变化时重新解压
+	 * @param archive the repackaged jar
+	 * @return the layout
+	 * @throws IOException if the jar could not be extracted or is not a repackaged jar
+	 */
+	Layout explode(File archive) throws IOException {
+		String checksum = getChecksum(archive);
+		File target = new File(this.directory, checksum);
+		File layoutFile = new File(target, LAYOUT_FILE);
+		if (!layoutFile.isFile()) {
+			extract(archive, target);
+			deleteStaleLayouts(checksum);
+		}
+		Properties layout = new Properties();
+		try (InputStream inputStream = new FileInputStream(layoutFile)) {
+			layout.load(inputStream);
+		}
+		List<File> classpath = new ArrayList<>();
+		for (String entry : layout.getProperty("classpath").split("\n")) {
+			if (!entry.isEmpty()) {
+				classpath.add(new File(target, entry));
+			}
+		}
+		return new Layout(layout.getProperty("startClass"), classpath);
+	}
+
+	/**
+	 * Extract the classes and the nested jars of the specified archive into a temporary
+	 * directory that is then moved to the target directory.
+	 */
+	private void extract(File archive, File target) throws IOException {
+		File temp = new File(this.directory, target.getName() + "-" + UUID.randomUUID() + ".tmp");
+		Path root = temp.toPath().toAbsolutePath().normalize();
+		try (JarFile jarFile = new JarFile(archive)) {
+			Attributes attributes = (jarFile.getManifest() != null) ? jarFile.getManifest().getMainAttributes()
+					: new Attributes();
+			String startClass = attributes.getValue(START_CLASS_ATTRIBUTE);
+			if (startClass == null) {
+				throw new IOException("No '" + START_CLASS_ATTRIBUTE + "' manifest attribute found in " + archive
+						+ ", make sure it has been repackaged");
+			}
+			String classes = getFolder(attributes.getValue(CLASSES_ATTRIBUTE), "BOOT-INF/classes/");
+			String lib = getFolder(attributes.getValue(LIB_ATTRIBUTE), "BOOT-INF/lib/");
+			Set<String> libs = new TreeSet<>();
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (entry.isDirectory() || !(name.startsWith(classes) || name.startsWith(lib))) {
+					continue;
+				}
+				Path file = root.resolve(name).normalize();
+				if (!file.startsWith(root)) {
+					throw new IOException("Invalid entry " + name + " in " + archive);
+				}
+				Files.createDirectories(file.getParent());
+				try (InputStream inputStream = jarFile.getInputStream(entry)) {
+					Files.copy(inputStream, file);
+				}
+				if (name.startsWith(lib) && name.indexOf('/', lib.length()) == -1) {
+					libs.add(name);
+				}
+			}
+			List<String> classpath = new ArrayList<>();
+			classpath.add(classes);
+			classpath.addAll(getOrderedLibs(jarFile, attributes, lib, libs));
+			Properties layout = new Properties();
+			layout.setProperty("startClass", startClass);
+			layout.setProperty("classpath", String.join("\n", classpath));
+			Files.createDirectories(root);
+			//布局文件最后写入,标记解压完成
+			try (OutputStream outputStream = new FileOutputStream(new File(temp, LAYOUT_FILE))) {
+				layout.store(outputStream, archive.getAbsolutePath());
+			}
+			try {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException ex) {
+				//其他构建已经完成了相同的解压
+				if (!new File(target, LAYOUT_FILE).isFile()) {
+					throw ex;
+				}
+			}
+		}
+		finally {
+			delete(temp);
+		}
+	}
+
+	/**
+	 * Return the nested jars in the order of the classpath index of the archive. The
+	 * jars that are not listed in the index follow, sorted by name.
+	 */
+	private List<String> getOrderedLibs(JarFile jarFile, Attributes attributes, String lib, Set<String> libs)
+			throws IOException {
+		Set<String> ordered = new LinkedHashSet<>();
+		String indexName = attributes.getValue(CLASSPATH_INDEX_ATTRIBUTE);
+		JarEntry index = jarFile.getJarEntry((indexName != null) ? indexName : "BOOT-INF/classpath.idx");
+		if (index != null) {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(jarFile.getInputStream(index), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					//格式为- "BOOT-INF/lib/xxx.jar",早期版本只包含文件名
+					String name = line.trim();
+					if (name.startsWith("- ")) {
+						name = name.substring(2).trim();
+					}
+					if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+						name = name.substring(1, name.length() - 1);
+					}
+					if (!name.isEmpty()) {
+						name = (name.indexOf('/') != -1) ? name : lib + name;
+						if (libs.contains(name)) {
+							ordered.add(name);
+						}
+					}
+				}
+			}
+		}
+		ordered.addAll(libs);
+		return new ArrayList<>(ordered);
+	}
+
+	private String getFolder(String value, String defaultValue) {
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		return value.endsWith("/") ? value : value + "/";
+	}
+
+	/**
+	 * Return the checksum of the specified archive, reusing the checksum of the last
+	 * archive if its path, size and modification time did not change.
+	 */
+	private String getChecksum(File archive) throws IOException {
+		File checksumFile = new File(this.directory, CHECKSUM_FILE);
+		String key = new Fingerprint().add(archive).toHex();
+		Properties checksums = new Properties();
+		if (checksumFile.isFile()) {
+			try (InputStream inputStream = new FileInputStream(checksumFile)) {
+				checksums.load(inputStream);
+			}
+		}
+		String checksum = checksums.getProperty(key);
+		if (checksum != null) {
+			return checksum;
+		}
+		checksum = digest(archive);
+		//只记录最后一个jar
+		checksums.clear();
+		checksums.setProperty(key, checksum);
+		Files.createDirectories(this.directory.toPath());
+		try (OutputStream outputStream = new FileOutputStream(checksumFile)) {
+			checksums.store(outputStream, null);
+		}
+		return checksum;
+	}
+
+	private String digest(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		try (InputStream inputStream = new FileInputStream(file)) {
+			byte[] buffer = new byte[65536];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private void deleteStaleLayouts(String checksum) throws IOException {
+		File[] files = this.directory.listFiles(File::isDirectory);
+		if (files != null) {
+			for (File file : files) {
+				if (!file.getName().equals(checksum) && !file.getName().endsWith(".tmp")) {
+					delete(file);
+				}
+			}
+		}
+	}
+
+	private void delete(File file) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) throws IOException {
+				Files.delete(path);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	/**
+	 * An extracted layout.
+	 */
+	static final class Layout {
+
+		private final String startClass;
+
+		private final List<File> classpath;
+
+		private Layout(String startClass, List<File> classpath) {
+			this.startClass = startClass;
+			this.classpath = classpath;
+		}
+
+		String getStartClass() {
+			return this.startClass;
+		}
+
+		List<File> getClasspath() {
+			return this.classpath;
+		}
+
+	}
+
+}
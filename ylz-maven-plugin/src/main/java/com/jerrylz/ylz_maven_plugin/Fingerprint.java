@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Accumulates values into a SHA-1 digest that identifies the state a cached file was
+ * derived from.
+ * 指纹（用于判断缓存文件是否过期）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class Fingerprint {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+
+	Fingerprint() {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Add a value, {@code null} being distinct from the empty string.
+	 * @param value the value to add
+	 * @return this instance
+	 */
+	Fingerprint add(String value) {
+		if (value == null) {
+			this.digest.update((byte) 0);
+		}
+		else {
+			this.digest.update((byte) 1);
+			this.digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+		//分隔符,避免相邻的值拼接后产生相同的摘要
+		this.digest.update((byte) '\n');
+		return this;
+	}
+
+	/**
+	 * Add a file identified by its path, size and last modification time.
+	 * @param file the file to add
+	 * @return this instance
+	 */
+	Fingerprint add(File file) {
+		add(file.getAbsolutePath());
+		add(Long.toString(file.length()));
+		return add(Long.toString(file.lastModified()));
+	}
+
+	/**
+	 * Return the hex representation of the digest. The fingerprint should not be used
+	 * anymore once this method has been called.
+	 * @return the fingerprint
+	 */
+	String toHex() {
+		byte[] bytes = this.digest.digest();
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+}
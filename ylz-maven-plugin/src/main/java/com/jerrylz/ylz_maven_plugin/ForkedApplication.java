@@ -0,0 +1,314 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServerConnection;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A Spring application running in a forked process that exposes the
+ * {@code SpringApplicationAdmin} MBean over JMX so that its readiness can be checked
+ * and that it can be stopped gracefully. A single {@link AdminConnector} is used for
+ * all the interactions with the process. The readiness can also be detected by scanning
+ * the output of the process for a pattern, for applications that do not enable the
+ * MBean.
+ * fork进程中运行的spring应用
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ForkedApplication {
+
+	/**
+	 * Application argument that enables the {@code SpringApplicationAdmin} MBean.
+	 */
+	static final String ENABLE_MBEAN_PROPERTY = "--spring.application.admin.enabled=true";
+
+	/**
+	 * Prefix of the application argument that sets the name of the
+	 * {@code SpringApplicationAdmin} MBean.
+	 */
+	static final String JMX_NAME_PROPERTY_PREFIX = "--spring.application.admin.jmx-name=";
+
+	private final ForkedProcess process;
+
+	private final AdminConnector connector;
+
+	private final int jmxPort;
+
+	private final String jmxName;
+
+	private final Log log;
+
+	private final long startTime;
+
+	private LogPatternScanner readyScanner;
+
+	/**
+	 * Create a new instance for an application that has just been started.
+	 * @param process the process of the application
+	 * @param jmxPort the port of the JMX connector of the forked JVM, used if the
+	 * process cannot be attached by pid
+	 * @param jmxName the name of the {@code SpringApplicationAdmin} MBean
+	 * @param log the log to use
+	 */
+	ForkedApplication(ForkedProcess process, int jmxPort, String jmxName, Log log) {
+		this.process = process;
+		this.connector = new AdminConnector(AdminConnector.getPid(process.getProcess()), jmxPort, log);
+		this.jmxPort = jmxPort;
+		this.jmxName = jmxName;
+		this.log = log;
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * Detect the readiness of the application by scanning its output for the specified
+	 * pattern rather than by querying its MBean.
+	 * 通过匹配输出判断应用是否就绪
+	 * @param readyPattern the pattern logged once the application is ready
+	 */
+	void useReadyPattern(Pattern readyPattern) {
+		this.readyScanner = new LogPatternScanner(this.process.getLogFile(), readyPattern);
+	}
+
+	/**
+	 * Return the port of the RMI connector to expose in a forked process. The specified
+	 * port is only used if the process cannot be attached by pid. Otherwise the connector
+	 * is a mere fallback in case attaching fails at runtime, for instance if the process
+	 * runs as another user or disables the attach mechanism, and a free port is allocated
+	 * for each fork so that concurrent forks do not compete for the same port.
+	 * 获取fork进程的JMX端口（支持Attach时为每个进程分配空闲端口）
+	 * @param jmxPort the configured port, {@code 0} to always allocate a free port
+	 * @return the port to use
+	 * @throws MojoExecutionException if no free port could be allocated
+	 */
+	static int resolveJmxPort(int jmxPort) throws MojoExecutionException {
+		if (jmxPort > 0 && !AdminConnector.isAttachSupported()) {
+			return jmxPort;
+		}
+		try {
+			return RoundRobinProxy.allocatePorts(1).get(0);
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to allocate a JMX port", ex);
+		}
+	}
+
+	/**
+	 * Return the JVM arguments that expose the platform MBean server of the forked
+	 * process on the specified port.
+	 * 获取开启远程JMX的JVM参数
+	 * @param jmxPort the port to use, as returned by {@link #resolveJmxPort(int)}
+	 * @return the JVM arguments
+	 */
+	static List<String> getJmxArguments(int jmxPort) {
+		List<String> arguments = new ArrayList<>();
+		arguments.add("-Dcom.sun.management.jmxremote");
+		arguments.add("-Dcom.sun.management.jmxremote.port=" + jmxPort);
+		arguments.add("-Dcom.sun.management.jmxremote.authenticate=false");
+		arguments.add("-Dcom.sun.management.jmxremote.ssl=false");
+		arguments.add("-Djava.rmi.server.hostname=127.0.0.1");
+		return arguments;
+	}
+
+	/**
+	 * Return the port of the RMI connector of the process.
+	 * @return the JMX port
+	 */
+	int getJmxPort() {
+		return this.jmxPort;
+	}
+
+	/**
+	 * Return the pid of the process.
+	 * @return the pid or {@code null} if it cannot be determined
+	 */
+	Long getPid() {
+		return AdminConnector.getPid(this.process.getProcess());
+	}
+
+	/**
+	 * Return the connection to the MBean server of the process.
+	 * @return the cached connection
+	 * @throws IOException if the connection could not be established
+	 */
+	MBeanServerConnection getConnection() throws IOException {
+		return this.connector.getConnection();
+	}
+
+	/**
+	 * Close the connection to the MBean server of the process, leaving it running.
+	 */
+	void disconnect() {
+		this.connector.close();
+		closeReadyScanner();
+	}
+
+	private void closeReadyScanner() {
+		if (this.readyScanner != null) {
+			try {
+				this.readyScanner.close();
+			}
+			catch (IOException ex) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * Return the startup time reported by the application in its output, if a ready
+	 * pattern with a group is used.
+	 * @return the startup time in milliseconds or {@code -1} if it is not known
+	 */
+	long getReportedStartupTime() {
+		return (this.readyScanner != null) ? this.readyScanner.getReportedStartupTime() : -1;
+	}
+
+	/**
+	 * Return the time elapsed since the process has been started.
+	 * @return the elapsed time in milliseconds
+	 */
+	long getElapsedTime() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startTime);
+	}
+
+	/**
+	 * Wait for the application to be ready, polling at a fixed interval.
+	 * @param wait the time to wait between two attempts in milliseconds
+	 * @param maxAttempts the maximum number of attempts
+	 * @return the time it took the application to be ready, in milliseconds
+	 * @throws MojoExecutionException if the application is not ready in time or exited
+	 */
+	long waitForReady(long wait, int maxAttempts) throws MojoExecutionException {
+		return waitForReady(new ReadinessProbe(wait, wait, wait * maxAttempts, this.log));
+	}
+
+	/**
+	 * Wait for the application to be ready using the specified probe.
+	 * @param probe the probe to use
+	 * @return the time it took the application to be ready, in milliseconds
+	 * @throws MojoExecutionException if the application is not ready in time or exited
+	 */
+	long waitForReady(ReadinessProbe probe) throws MojoExecutionException {
+		probe.await(() -> {
+			if (isReady()) {
+				return true;
+			}
+			if (!isAlive()) {
+				throw new MojoExecutionException("Application exited before it was ready");
+			}
+			return false;
+		});
+		return getElapsedTime();
+	}
+
+	private boolean isReady() throws MojoExecutionException {
+		if (this.readyScanner != null) {
+			try {
+				return this.readyScanner.scan();
+			}
+			catch (IOException ex) {
+				throw new MojoExecutionException("Failed to scan the output of the application", ex);
+			}
+		}
+		try {
+			return new SpringApplicationAdminClient(this.connector.getConnection(), this.jmxName).isReady();
+		}
+		catch (IOException ex) {
+			this.connector.reset();
+			if (hasCauseWithType(ex, ConnectException.class)) {
+				this.log.debug("MBean server is not up yet (" + ex.getMessage() + ")");
+				return false;
+			}
+			throw new MojoExecutionException("Failed to connect to MBean server", ex);
+		}
+	}
+
+	/**
+	 * Stop the application gracefully and wait for the process to exit.
+	 * @param timeout the maximum time to wait for the process to exit in milliseconds
+	 * @return the exit code of the process
+	 * @throws MojoExecutionException if the application could not be stopped
+	 */
+	int stop(long timeout) throws MojoExecutionException {
+		try {
+			new SpringApplicationAdminClient(this.connector.getConnection(), this.jmxName).stop();
+		}
+		catch (InstanceNotFoundException ex) {
+			throw new MojoExecutionException(
+					"Spring application lifecycle JMX bean not found. Could not stop application gracefully", ex);
+		}
+		catch (IOException ex) {
+			// The response won't be received as the server has died - ignoring
+			this.log.debug("Service is not reachable anymore (" + ex.getMessage() + ")");
+		}
+		finally {
+			this.connector.close();
+		}
+		return waitForExit(timeout);
+	}
+
+	/**
+	 * Wait for the process to exit, killing it if it does not exit in time.
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return the exit code of the process
+	 * @throws MojoExecutionException if the process did not exit in time
+	 */
+	int waitForExit(long timeout) throws MojoExecutionException {
+		Process process = this.process.getProcess();
+		try {
+			if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+				this.process.kill();
+				throw new MojoExecutionException("Application did not exit within " + timeout + "ms and was killed");
+			}
+			return process.exitValue();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			this.process.kill();
+			throw new MojoExecutionException("Interrupted while waiting for the application to exit", ex);
+		}
+	}
+
+	boolean isAlive() {
+		return this.process.getProcess().isAlive();
+	}
+
+	/**
+	 * Kill the process if it is still running.
+	 */
+	void kill() {
+		this.connector.close();
+		closeReadyScanner();
+		this.process.kill();
+	}
+
+	private static boolean hasCauseWithType(Throwable t, Class<? extends Exception> type) {
+		return type.isAssignableFrom(t.getClass()) || t.getCause() != null && hasCauseWithType(t.getCause(), type);
+	}
+
+}
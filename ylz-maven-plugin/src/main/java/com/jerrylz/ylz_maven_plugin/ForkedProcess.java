@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.loader.tools.JavaExecutable;
+import org.springframework.boot.loader.tools.SignalUtils;
+
+/**
+ * A forked JVM whose output is drained by a dedicated thread into a
+ * {@link ProcessOutput}, which writes it to a {@link RotatingLogFile} and to the console
+ * asynchronously. The application is never slowed down by the console and the log file
+ * receives all of its output.
+ * fork进程（输出由独立线程读取到环形缓冲区,再异步写入滚动日志文件和控制台,日志文件不丢数据）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ForkedProcess implements Closeable {
+
+	private final Process process;
+
+	private final ProcessOutput output;
+
+	private final Thread pump;
+
+	private ForkedProcess(Process process, ProcessOutput output) {
+		this.process = process;
+		this.output = output;
+		this.pump = new Thread(this::pump, "ylz-output-pump");
+		this.pump.setDaemon(true);
+		this.pump.start();
+	}
+
+	/**
+	 * Start a JVM with the specified arguments.
+	 * @param workingDirectory the working directory
+	 * @param args the JVM and application arguments
+	 * @param environmentVariables the environment variables
+	 * @param output the output that receives the output of the process
+	 * @return the started process
+	 * @throws IOException if the process could not be started
+	 */
+	static ForkedProcess start(File workingDirectory, List<String> args, Map<String, String> environmentVariables,
+			ProcessOutput output) throws IOException {
+		List<String> command = new ArrayList<>(args.size() + 1);
+		command.add(new JavaExecutable().toString());
+		command.addAll(args);
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(workingDirectory);
+		builder.environment().putAll(environmentVariables);
+		builder.redirectErrorStream(true);
+		builder.redirectInput(ProcessBuilder.Redirect.INHERIT);
+		ForkedProcess forkedProcess = new ForkedProcess(builder.start(), output);
+		SignalUtils.attachSignalHandler(forkedProcess::handleSigInt);
+		return forkedProcess;
+	}
+
+	/**
+	 * Read the output of the process into the output buffer, only waiting for the log
+	 * thread, never for the console.
+	 */
+	private void pump() {
+		byte[] chunk = new byte[ProcessOutput.CHUNK_SIZE];
+		try (InputStream inputStream = this.process.getInputStream()) {
+			int read;
+			while ((read = inputStream.read(chunk)) != -1) {
+				this.output.write(chunk, 0, read);
+			}
+		}
+		catch (IOException ex) {
+			// Stream closed when the process is destroyed
+		}
+		finally {
+			this.output.finish();
+		}
+	}
+
+	/**
+	 * Give the process the opportunity to handle the interruption of the build before
+	 * killing it.
+	 */
+	private void handleSigInt() {
+		long end = System.currentTimeMillis() + ProcessOutput.JOIN_TIMEOUT;
+		while (System.currentTimeMillis() < end) {
+			if (!this.process.isAlive()) {
+				return;
+			}
+			try {
+				Thread.sleep(500);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		kill();
+	}
+
+	Process getProcess() {
+		return this.process;
+	}
+
+	/**
+	 * Return the file that receives the full output of the process.
+	 * @return the log file
+	 */
+	File getLogFile() {
+		return this.output.getLogFile();
+	}
+
+	/**
+	 * Return the time it took the process to write its first output.
+	 * @return the time in milliseconds or {@code -1} if it did not write anything yet
+	 */
+	long getTimeToFirstOutput() {
+		return this.output.getTimeToFirstOutput();
+	}
+
+	/**
+	 * Wait for the process to exit.
+	 * @return the exit code of the process
+	 */
+	int waitFor() {
+		try {
+			return this.process.waitFor();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return 1;
+		}
+	}
+
+	/**
+	 * Kill the process if it is still running, forcibly if it does not exit in time.
+	 */
+	void kill() {
+		if (!this.process.isAlive()) {
+			return;
+		}
+		this.process.destroy();
+		try {
+			if (!this.process.waitFor(ProcessOutput.JOIN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				this.process.destroyForcibly();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			this.process.destroyForcibly();
+		}
+	}
+
+	/**
+	 * Wait for the remaining output to be written and close the log file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.pump.join(ProcessOutput.JOIN_TIMEOUT);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		this.output.close();
+	}
+
+}
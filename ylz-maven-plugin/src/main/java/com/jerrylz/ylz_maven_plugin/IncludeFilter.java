@@ -42,14 +42,8 @@ public class IncludeFilter extends DependencyFilter {
 	 */
 	@Override
 	protected boolean filter(Artifact artifact) {
-		for (FilterableDependency dependency : getFilters()) {
-			//如果匹配返回false
-			if (equals(artifact, dependency)) {
-				return false;
-			}
-		}
 		//未匹配则返回true
-		return true;
+		return !matches(artifact);
 	}
 
 }
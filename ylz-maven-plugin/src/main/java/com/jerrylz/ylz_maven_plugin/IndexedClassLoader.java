@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.Manifest;
+
+/**
+ * {@link URLClassLoader} that finds classes and resources through a
+ * {@link ClassPathIndex} instead of probing every entry of the classpath in order. Only
+ * the directories and the jars that contain the package of a class or resource are
+ * looked up, and a jar is only opened on the first lookup that needs it. Used directly
+ * when the application runs in the Maven JVM and by the {@link IndexedLauncher} of a
+ * forked JVM. This class must only rely on the JDK.
+ * 基于类路径索引的类加载器
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+public class IndexedClassLoader extends URLClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	private final ClassPathIndex index;
+
+	/**
+	 * The jar of each entry, {@code null} for directories.
+	 */
+	private final IndexedJar[] jars;
+
+	private final ProtectionDomain[] protectionDomains;
+
+	private final ResourceOverlay overlay;
+
+	/**
+	 * Create a new instance.
+	 * @param index the index of the classpath
+	 * @param parent the parent class loader
+	 * @param overlay the resource overlay to serve resources from first or {@code null}
+	 * @throws MalformedURLException if an entry of the classpath is invalid
+	 */
+	IndexedClassLoader(ClassPathIndex index, ClassLoader parent, ResourceOverlay overlay)
+			throws MalformedURLException {
+		super(toUrls(index), parent);
+		this.index = index;
+		List<ClassPathIndex.Entry> entries = index.getEntries();
+		this.jars = new IndexedJar[entries.size()];
+		this.protectionDomains = new ProtectionDomain[entries.size()];
+		URL[] urls = getURLs();
+		for (int i = 0; i < this.jars.length; i++) {
+			if (!entries.get(i).isDirectory()) {
+				this.jars[i] = new IndexedJar(entries.get(i));
+			}
+			this.protectionDomains[i] = new ProtectionDomain(new CodeSource(urls[i], (Certificate[]) null), null,
+					this, null);
+		}
+		this.overlay = overlay;
+	}
+
+	private static URL[] toUrls(ClassPathIndex index) throws MalformedURLException {
+		List<URL> urls = new ArrayList<>();
+		for (ClassPathIndex.Entry entry : index.getEntries()) {
+			urls.add(entry.getFile().toURI().toURL());
+		}
+		return urls.toArray(new URL[0]);
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		String path = name.replace('.', '/') + ".class";
+		try {
+			for (int candidate : this.index.getCandidates(ClassPathIndex.getPackageName(path))) {
+				byte[] bytes = read(candidate, path);
+				if (bytes != null) {
+					definePackageIfNecessary(name, candidate);
+					return defineClass(name, bytes, 0, bytes.length, this.protectionDomains[candidate]);
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new ClassNotFoundException(name, ex);
+		}
+		throw new ClassNotFoundException(name);
+	}
+
+	private byte[] read(int candidate, String path) throws IOException {
+		IndexedJar jar = this.jars[candidate];
+		if (jar != null) {
+			String entry = jar.find(path);
+			return (entry != null) ? jar.read(entry) : null;
+		}
+		File file = new File(this.index.getEntries().get(candidate).getFile(), path);
+		return file.isFile() ? Files.readAllBytes(file.toPath()) : null;
+	}
+
+	private void definePackageIfNecessary(String className, int candidate) throws IOException {
+		int lastDot = className.lastIndexOf('.');
+		if (lastDot == -1) {
+			return;
+		}
+		String packageName = className.substring(0, lastDot);
+		if (getPackage(packageName) != null) {
+			return;
+		}
+		IndexedJar jar = this.jars[candidate];
+		Manifest manifest = (jar != null) ? jar.getManifest() : null;
+		try {
+			if (manifest != null) {
+				definePackage(packageName, manifest, jar.getUrl());
+			}
+			else {
+				definePackage(packageName, null, null, null, null, null, null, null);
+			}
+		}
+		catch (IllegalArgumentException ex) {
+			//并发加载时包可能已被定义
+			if (getPackage(packageName) == null) {
+				throw ex;
+			}
+		}
+	}
+
+	@Override
+	public URL findResource(String name) {
+		try {
+			for (int candidate : this.index.getResourceCandidates(name)) {
+				URL resource = getResource(candidate, name);
+				if (resource != null) {
+					return resource;
+				}
+			}
+		}
+		catch (IOException ex) {
+			// Not readable
+		}
+		return null;
+	}
+
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		List<URL> resources = new ArrayList<>();
+		for (int candidate : this.index.getResourceCandidates(name)) {
+			URL resource = getResource(candidate, name);
+			if (resource != null) {
+				resources.add(resource);
+			}
+		}
+		return Collections.enumeration(resources);
+	}
+
+	private URL getResource(int candidate, String name) throws IOException {
+		IndexedJar jar = this.jars[candidate];
+		if (jar != null) {
+			String entry = jar.find(name);
+			return (entry != null) ? jar.getUrl(entry) : null;
+		}
+		File file = new File(this.index.getEntries().get(candidate).getFile(), name);
+		return file.exists() ? file.toURI().toURL() : null;
+	}
+
+	@Override
+	public URL getResource(String name) {
+		URL resource = (this.overlay != null) ? this.overlay.getResource(name) : null;
+		return (resource != null) ? resource : super.getResource(name);
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		Enumeration<URL> resources = super.getResources(name);
+		return (this.overlay != null) ? this.overlay.getResources(name, resources) : resources;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (IndexedJar jar : this.jars) {
+			if (jar != null) {
+				jar.close();
+			}
+		}
+		super.close();
+	}
+
+}
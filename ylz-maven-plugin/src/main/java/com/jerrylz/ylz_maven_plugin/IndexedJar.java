@@ -0,0 +1,279 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A jar of a {@link ClassPathIndex} that is only opened on the first lookup that needs
+ * it. Its central directory is then read in a single read at the position recorded in
+ * the index, without searching for it. This class is used by the launcher of a forked
+ * JVM and must only rely on the JDK.
+ * 延迟打开的已索引jar
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+final class IndexedJar implements Closeable {
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	private static final int STORED = 0;
+
+	private static final int DEFLATED = 8;
+
+	private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+	private static final int JAVA_VERSION = LaunchPreset.getJavaVersion();
+
+	private final ClassPathIndex.Entry entry;
+
+	private final URL url;
+
+	private volatile boolean opened;
+
+	private FileChannel channel;
+
+	/**
+	 * Location of each entry of the jar: method, compressed size, size and offset of
+	 * the local header.
+	 */
+	private Map<String, long[]> records;
+
+	/**
+	 * The jar if its central directory could not be indexed.
+	 */
+	private ZipFile zipFile;
+
+	private Manifest manifest;
+
+	private boolean multiRelease;
+
+	/**
+	 * Create a new instance.
+	 * @param entry the index entry of the jar
+	 * @throws MalformedURLException if the location of the jar is invalid
+	 */
+	IndexedJar(ClassPathIndex.Entry entry) throws MalformedURLException {
+		this.entry = entry;
+		this.url = entry.getFile().toURI().toURL();
+	}
+
+	/**
+	 * Return the url of the jar.
+	 * @return the url
+	 */
+	URL getUrl() {
+		return this.url;
+	}
+
+	/**
+	 * Find the entry with the specified name. The entry of the most recent version that
+	 * the JVM supports is used if the jar is a multi-release jar.
+	 * 查找条目,多版本jar优先使用当前Java版本的条目
+	 * @param name the name of the entry
+	 * @return the name of the entry in the jar or {@code null} if the jar does not
+	 * contain it
+	 * @throws IOException if the jar could not be opened
+	 */
+	String find(String name) throws IOException {
+		open();
+		if (this.multiRelease && !name.startsWith("META-INF/")) {
+			for (int version = JAVA_VERSION; version >= 9; version--) {
+				String versionedName = getEntryName(VERSIONS_PREFIX + version + "/" + name);
+				if (versionedName != null) {
+					return versionedName;
+				}
+			}
+		}
+		//与URLClassLoader一致,多版本jar使用条目的实际名称,否则使用查找的名称
+		String entryName = getEntryName(name);
+		return (entryName == null || this.multiRelease) ? entryName : name;
+	}
+
+	private String getEntryName(String name) {
+		if (this.zipFile != null) {
+			ZipEntry zipEntry = this.zipFile.getEntry(name);
+			return (zipEntry != null) ? zipEntry.getName() : null;
+		}
+		if (this.records.containsKey(name)) {
+			return name;
+		}
+		//与ZipFile一致,目录也可以不带结尾的斜杠查找
+		String directoryName = name + "/";
+		return (!name.endsWith("/") && this.records.containsKey(directoryName)) ? directoryName : null;
+	}
+
+	/**
+	 * Return the url of the specified entry.
+	 * @param name the name of the entry
+	 * @return the url
+	 * @throws MalformedURLException if the name is invalid
+	 */
+	URL getUrl(String name) throws MalformedURLException {
+		return new URL("jar:" + this.url + "!/" + name);
+	}
+
+	/**
+	 * Read the specified entry.
+	 * @param name the name of the entry in the jar, as returned by {@link #find(String)}
+	 * @return the content of the entry or {@code null} if the jar does not contain it
+	 * @throws IOException if the entry could not be read
+	 */
+	byte[] read(String name) throws IOException {
+		open();
+		return readEntry(name);
+	}
+
+	private byte[] readEntry(String name) throws IOException {
+		if (this.zipFile != null) {
+			ZipEntry zipEntry = this.zipFile.getEntry(name);
+			if (zipEntry == null) {
+				return null;
+			}
+			try (InputStream inputStream = this.zipFile.getInputStream(zipEntry)) {
+				return readAll(inputStream);
+			}
+		}
+		long[] record = this.records.get(name);
+		if (record == null) {
+			return null;
+		}
+		long offset = this.entry.getBase() + record[3];
+		ByteBuffer header = ClassPathIndex.read(this.channel, offset, LOCAL_HEADER_SIZE);
+		long dataOffset = offset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF)
+				+ (header.getShort(28) & 0xFFFF);
+		byte[] data = ClassPathIndex.read(this.channel, dataOffset, (int) record[1]).array();
+		if (record[0] == STORED) {
+			return data;
+		}
+		if (record[0] != DEFLATED) {
+			throw new IOException("Unsupported compression method " + record[0] + " for " + name);
+		}
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(data);
+			byte[] result = new byte[(int) record[2]];
+			int length = 0;
+			while (length < result.length && !inflater.finished()) {
+				int inflated = inflater.inflate(result, length, result.length - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != result.length) {
+				throw new IOException("Truncated entry " + name + " in " + this.entry.getFile());
+			}
+			return result;
+		}
+		catch (DataFormatException ex) {
+			throw new IOException("Invalid entry " + name + " in " + this.entry.getFile(), ex);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Return the manifest of the jar.
+	 * @return the manifest or {@code null} if the jar has none
+	 * @throws IOException if the manifest could not be read
+	 */
+	Manifest getManifest() throws IOException {
+		open();
+		return this.manifest.getMainAttributes().isEmpty() ? null : this.manifest;
+	}
+
+	/**
+	 * Open the jar and read its central directory, once.
+	 * @throws IOException if the jar could not be opened
+	 */
+	private void open() throws IOException {
+		if (this.opened) {
+			return;
+		}
+		synchronized (this) {
+			if (this.opened) {
+				return;
+			}
+			if (this.entry.getDirectoryPosition() < 0) {
+				this.zipFile = new ZipFile(this.entry.getFile());
+			}
+			else {
+				FileChannel channel = FileChannel.open(this.entry.getFile().toPath(), StandardOpenOption.READ);
+				try {
+					Map<String, long[]> records = new HashMap<>();
+					ClassPathIndex.readCentralDirectory(
+							ClassPathIndex.read(channel, this.entry.getDirectoryPosition(),
+									this.entry.getDirectorySize()),
+							(name, method, compressedSize, size, localHeaderOffset) -> records.put(name,
+									new long[] { method, compressedSize, size, localHeaderOffset }));
+					this.records = records;
+					this.channel = channel;
+				}
+				catch (IOException ex) {
+					channel.close();
+					throw ex;
+				}
+			}
+			byte[] content = readEntry(JarFile.MANIFEST_NAME);
+			this.manifest = (content != null) ? new Manifest(new ByteArrayInputStream(content)) : new Manifest();
+			this.multiRelease = JAVA_VERSION >= 9
+					&& "true".equalsIgnoreCase(this.manifest.getMainAttributes().getValue("Multi-Release"));
+			this.opened = true;
+		}
+	}
+
+	private static byte[] readAll(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+		return output.toByteArray();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+		}
+		if (this.zipFile != null) {
+			this.zipFile.close();
+		}
+	}
+
+}
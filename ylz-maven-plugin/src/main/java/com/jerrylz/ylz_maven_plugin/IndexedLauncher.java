@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Main class of a forked JVM that loads the application through an
+ * {@link IndexedClassLoader}. The classpath of the JVM only holds the plugin, the
+ * classpath of the application is read from its {@link ClassPathIndex}. This class must
+ * only rely on the JDK.
+ * 基于类路径索引启动应用的启动类
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+public final class IndexedLauncher {
+
+	private IndexedLauncher() {
+	}
+
+	/**
+	 * Launch the application.
+	 * @param args the index file, the main class and the application arguments
+	 * @throws Exception if the application could not be launched
+	 */
+	public static void main(String[] args) throws Exception {
+		ClassPathIndex index = ClassPathIndex.read(new File(args[0]));
+		//父加载器为平台类加载器,插件的类对应用不可见
+		ResourceOverlay overlay = ResourceOverlay.fromSystemProperties();
+		if (overlay != null) {
+			overlay.watch();
+		}
+		IndexedClassLoader classLoader = new IndexedClassLoader(index,
+				ClassLoader.getSystemClassLoader().getParent(), overlay);
+		System.setProperty("java.class.path", index.getEntries().stream()
+				.map((entry) -> entry.getFile().getPath()).collect(Collectors.joining(File.pathSeparator)));
+		Thread.currentThread().setContextClassLoader(classLoader);
+		Class<?> startClass = Class.forName(args[1], false, classLoader);
+		Method mainMethod = startClass.getMethod("main", String[].class);
+		mainMethod.setAccessible(true);
+		try {
+			mainMethod.invoke(null, new Object[] { Arrays.copyOfRange(args, 2, args.length) });
+		}
+		catch (InvocationTargetException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw (Error) cause;
+		}
+	}
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read the jars of a classpath in parallel so that they are in the page cache of the
+ * operating system when the forked JVM opens them. When the classes loaded by a previous
+ * run are known, only the central directory and the loaded class entries of each jar are
+ * read, in offset order and coalesced into large sequential reads. Otherwise each jar is
+ * read entirely.
+ * 预读类路径中的jar,使其进入操作系统的页缓存
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class JarPrefetcher {
+
+	private static final String DOT_CLASS = ".class";
+
+	private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	/**
+	 * Allowance for the extra field of a local header, which may differ from the one of
+	 * the central directory.
+	 */
+	private static final int LOCAL_EXTRA_ALLOWANCE = 256;
+
+	/**
+	 * Ranges separated by less than this number of bytes are read as one range.
+	 */
+	private static final long MAX_GAP = 128 * 1024;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final ClassPathIndex index;
+
+	private final Set<String> entryNames;
+
+	/**
+	 * One buffer per thread of the prefetch rather than per jar, direct memory being
+	 * only released by the garbage collector.
+	 */
+	private final ThreadLocal<ByteBuffer> buffers = ThreadLocal
+			.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+	/**
+	 * Create a new instance.
+	 * @param index the index of the jars to read
+	 * @param entryNames the names of the entries to read or {@code null} to read the
+	 * jars entirely
+	 */
+	JarPrefetcher(ClassPathIndex index, Set<String> entryNames) {
+		this.index = index;
+		this.entryNames = entryNames;
+	}
+
+	/**
+	 * Read the names of the class entries of a class list in the format of
+	 * {@code -XX:DumpLoadedClassList}.
+	 * @param classList the class list
+	 * @return the names of the class entries
+	 * @throws IOException if the class list could not be read
+	 */
+	static Set<String> readClassList(File classList) throws IOException {
+		Set<String> entryNames = new HashSet<>();
+		try (BufferedReader reader = Files.newBufferedReader(classList.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				//跳过注释与lambda条目,类名后可能带有id等属性
+				if (line.isEmpty() || line.startsWith("#") || line.startsWith("@")) {
+					continue;
+				}
+				int space = line.indexOf(' ');
+				entryNames.add(((space != -1) ? line.substring(0, space) : line) + DOT_CLASS);
+			}
+		}
+		return entryNames;
+	}
+
+	/**
+	 * Read the jars using the specified number of threads.
+	 * @param threads the number of threads
+	 * @return the result of the prefetch
+	 * @throws IOException if a jar could not be read
+	 */
+	Result prefetch(int threads) throws IOException {
+		List<Callable<long[]>> tasks = new ArrayList<>();
+		AtomicInteger reads = new AtomicInteger();
+		for (ClassPathIndex.Entry entry : this.index.getEntries()) {
+			if (!entry.isDirectory()) {
+				tasks.add(() -> prefetch(entry, reads));
+			}
+		}
+		long start = System.nanoTime();
+		AtomicInteger count = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())),
+				(runnable) -> {
+					Thread thread = new Thread(runnable, "ylz-prefetch-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		long bytes = 0;
+		long readTime = 0;
+		try {
+			for (Future<long[]> future : executor.invokeAll(tasks)) {
+				long[] measure = future.get();
+				bytes += measure[0];
+				readTime += measure[1];
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException ex) {
+			throw (ex.getCause() instanceof IOException) ? (IOException) ex.getCause()
+					: new IOException(ex.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return new Result(tasks.size(), bytes, reads.get(), System.nanoTime() - start, readTime);
+	}
+
+	/**
+	 * Read the relevant ranges of a jar.
+	 * @param entry the jar
+	 * @param reads the counter of read operations
+	 * @return the number of bytes read and the time spent in nanoseconds
+	 * @throws IOException if the jar could not be read
+	 */
+	private long[] prefetch(ClassPathIndex.Entry entry, AtomicInteger reads) throws IOException {
+		long start = System.nanoTime();
+		long bytes = 0;
+		ByteBuffer buffer = this.buffers.get();
+		try (FileChannel channel = FileChannel.open(entry.getFile().toPath(), StandardOpenOption.READ)) {
+			for (long[] range : getRanges(entry, channel)) {
+				bytes += read(channel, range[0], range[1], buffer);
+				reads.incrementAndGet();
+			}
+		}
+		return new long[] { bytes, System.nanoTime() - start };
+	}
+
+	/**
+	 * Return the ranges of a jar to read, sorted and coalesced.
+	 * @param entry the jar
+	 * @param channel the channel of the jar
+	 * @return the ranges, as start and end positions
+	 * @throws IOException if the central directory could not be read
+	 */
+	private List<long[]> getRanges(ClassPathIndex.Entry entry, FileChannel channel) throws IOException {
+		long directoryPosition = entry.getDirectoryPosition();
+		if (this.entryNames == null || directoryPosition < 0) {
+			//没有类列表或为Zip64格式时读取整个jar
+			return Collections.singletonList(new long[] { 0, channel.size() });
+		}
+		ByteBuffer directory = ClassPathIndex.read(channel, directoryPosition, entry.getDirectorySize());
+		List<long[]> ranges = new ArrayList<>();
+		long base = entry.getBase();
+		ClassPathIndex.readCentralDirectory(directory, (name, method, compressedSize, size, offset) -> {
+			if (isPrefetched(name)) {
+				long position = base + offset;
+				long end = position + LOCAL_HEADER_SIZE + name.getBytes(StandardCharsets.UTF_8).length
+						+ LOCAL_EXTRA_ALLOWANCE + compressedSize;
+				ranges.add(new long[] { position, Math.min(end, directoryPosition) });
+			}
+		});
+		ranges.sort((first, second) -> Long.compare(first[0], second[0]));
+		List<long[]> coalesced = new ArrayList<>();
+		for (long[] range : ranges) {
+			long[] last = coalesced.isEmpty() ? null : coalesced.get(coalesced.size() - 1);
+			if (last != null && range[0] - last[1] < MAX_GAP) {
+				last[1] = Math.max(last[1], range[1]);
+			}
+			else {
+				coalesced.add(range);
+			}
+		}
+		//中央目录紧随最后一个条目,一并读取
+		coalesced.add(new long[] { directoryPosition, directoryPosition + entry.getDirectorySize() });
+		return coalesced;
+	}
+
+	private boolean isPrefetched(String name) {
+		if (name.startsWith(VERSIONS_PREFIX)) {
+			int slash = name.indexOf('/', VERSIONS_PREFIX.length());
+			name = (slash != -1) ? name.substring(slash + 1) : name;
+		}
+		return this.entryNames.contains(name) || "META-INF/MANIFEST.MF".equals(name);
+	}
+
+	private long read(FileChannel channel, long start, long end, ByteBuffer buffer) throws IOException {
+		long position = start;
+		while (position < end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				break;
+			}
+			position += read;
+		}
+		return position - start;
+	}
+
+	/**
+	 * The result of a prefetch.
+	 */
+	static final class Result {
+
+		private final int jars;
+
+		private final long bytes;
+
+		private final int reads;
+
+		private final long elapsed;
+
+		private final long readTime;
+
+		private Result(int jars, long bytes, int reads, long elapsed, long readTime) {
+			this.jars = jars;
+			this.bytes = bytes;
+			this.reads = reads;
+			this.elapsed = elapsed;
+			this.readTime = readTime;
+		}
+
+		int getJars() {
+			return this.jars;
+		}
+
+		long getBytes() {
+			return this.bytes;
+		}
+
+		int getReads() {
+			return this.reads;
+		}
+
+		/**
+		 * Return the wall-clock time of the prefetch.
+		 * @return the elapsed time in nanoseconds
+		 */
+		long getElapsed() {
+			return this.elapsed;
+		}
+
+		/**
+		 * Return the time spent reading the jars, summed over all the threads.
+		 * @return the cumulative read time in nanoseconds
+		 */
+		long getReadTime() {
+			return this.readTime;
+		}
+
+	}
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.maven.plugin.logging.Log;
+
+import org.springframework.boot.loader.tools.JavaExecutable;
+
+/**
+ * A pool of idle JVMs that have been booted with the JVM arguments, agents and classpath
+ * of the application and wait for a launch request on a local socket. Each idle JVM is
+ * described by a file in the pool directory. An idle JVM is claimed by renaming its file
+ * so that it is never handed to two builds. Idle JVMs that were started for a different
+ * launch configuration are shut down.
+ * 预热的JVM池
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class JvmPool {
+
+	private static final String POOL_FILE_EXTENSION = ".pool";
+
+	private static final SecureRandom random = new SecureRandom();
+
+	private final File directory;
+
+	private final String key;
+
+	private final Log log;
+
+	/**
+	 * The JVMs started by this instance, by pool file.
+	 */
+	private final Map<File, Process> spawned = new LinkedHashMap<>();
+
+	/**
+	 * Create a new instance.
+	 * @param directory the directory of the pool
+	 * @param key the fingerprint of the launch configuration of the idle JVMs
+	 * @param log the log to use
+	 */
+	JvmPool(File directory, String key, Log log) {
+		this.directory = directory;
+		this.key = key;
+		this.log = log;
+	}
+
+	/**
+	 * Claim an idle JVM, shutting down the idle JVMs that do not match the launch
+	 * configuration of this pool. If no JVM is idle yet but one is starting, wait for it.
+	 * @param startTimeout the maximum time to wait for a starting JVM in milliseconds
+	 * @return the claimed JVM or {@code null} if none is available
+	 */
+	PooledJvm claim(long startTimeout) {
+		long deadline = System.currentTimeMillis() + startTimeout;
+		while (true) {
+			boolean starting = false;
+			for (File file : listPoolFiles()) {
+				Properties properties = load(file);
+				if (properties == null) {
+					continue;
+				}
+				if (!this.key.equals(properties.getProperty(PooledLauncher.PROPERTY_KEY))) {
+					shutdown(file, properties);
+				}
+				else if (properties.getProperty(PooledLauncher.PROPERTY_PORT) == null) {
+					starting = true;
+				}
+				else {
+					PooledJvm jvm = claim(file, properties);
+					if (jvm != null) {
+						return jvm;
+					}
+				}
+			}
+			if (!starting || System.currentTimeMillis() > deadline) {
+				return null;
+			}
+			try {
+				Thread.sleep(50);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+	}
+
+	private PooledJvm claim(File file, Properties properties) {
+		File claimed = new File(this.directory, file.getName() + ".claimed");
+		try {
+			//重命名成功才算领取成功
+			Files.move(file.toPath(), claimed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+		try {
+			Socket socket = connect(properties);
+			return new PooledJvm(socket, properties.getProperty(PooledLauncher.PROPERTY_TOKEN));
+		}
+		catch (IOException ex) {
+			this.log.debug("Idle JVM " + file.getName() + " is not reachable (" + ex.getMessage() + ")");
+			return null;
+		}
+		finally {
+			claimed.delete();
+			getLogFile(file).delete();
+		}
+	}
+
+	private void shutdown(File file, Properties properties) {
+		this.log.debug("Shutting down idle JVM " + file.getName() + " started for another launch configuration");
+		file.delete();
+		getLogFile(file).delete();
+		if (properties.getProperty(PooledLauncher.PROPERTY_PORT) != null) {
+			try (Socket socket = connect(properties)) {
+				DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+				output.writeUTF(properties.getProperty(PooledLauncher.PROPERTY_TOKEN));
+				output.writeUTF(PooledLauncher.COMMAND_SHUTDOWN);
+				output.flush();
+			}
+			catch (IOException ex) {
+				// Already gone
+			}
+		}
+	}
+
+	/**
+	 * Start idle JVMs in the background until the pool holds the specified number of
+	 * JVMs.
+	 * @param size the number of idle JVMs to keep
+	 * @param workingDirectory the working directory of the JVMs
+	 * @param jvmArguments the JVM arguments, including the classpath
+	 * @param environmentVariables the environment variables
+	 * @param idleTimeout the time after which an idle JVM exits, in milliseconds
+	 * @throws IOException if a JVM could not be started
+	 */
+	void fill(int size, File workingDirectory, List<String> jvmArguments, Map<String, String> environmentVariables,
+			int idleTimeout) throws IOException {
+		int available = 0;
+		for (File file : listPoolFiles()) {
+			Properties properties = load(file);
+			if (properties != null && this.key.equals(properties.getProperty(PooledLauncher.PROPERTY_KEY))) {
+				available++;
+			}
+		}
+		for (int i = available; i < size; i++) {
+			spawn(workingDirectory, jvmArguments, environmentVariables, idleTimeout);
+		}
+	}
+
+	private void spawn(File workingDirectory, List<String> jvmArguments, Map<String, String> environmentVariables,
+			int idleTimeout) throws IOException {
+		Files.createDirectories(this.directory.toPath());
+		String id = UUID.randomUUID().toString();
+		File poolFile = new File(this.directory, id + POOL_FILE_EXTENSION);
+		Properties properties = new Properties();
+		properties.setProperty(PooledLauncher.PROPERTY_KEY, this.key);
+		properties.setProperty(PooledLauncher.PROPERTY_TOKEN, Long.toHexString(random.nextLong()));
+		try (OutputStream outputStream = new FileOutputStream(poolFile)) {
+			properties.store(outputStream, null);
+		}
+		List<String> command = new ArrayList<>(getDetachCommand());
+		command.add(new JavaExecutable().toString());
+		//启动类从引导类路径加载,不影响应用的类路径
+		command.add("-Xbootclasspath/a:" + getLauncherLocation());
+		command.addAll(jvmArguments);
+		command.add(PooledLauncher.class.getName());
+		command.add(poolFile.getAbsolutePath());
+		command.add(Integer.toString(idleTimeout));
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(workingDirectory);
+		builder.environment().putAll(environmentVariables);
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(getLogFile(poolFile)));
+		this.spawned.put(poolFile, builder.start());
+		this.log.debug("Started idle JVM " + poolFile.getName());
+	}
+
+	/**
+	 * Return the command that starts an idle JVM outside of the process group of the
+	 * build, so that it does not exit with the build when it is interrupted with Ctrl-C.
+	 * Where {@code setsid} is not available, the JVM inherits an ignored {@code SIGINT}
+	 * from a shell instead. On Windows, idle JVMs exit with the build that started them.
+	 * @return the command to prepend, empty if the JVM cannot be detached
+	 */
+	private static List<String> getDetachCommand() {
+		if (System.getProperty("os.name", "").toLowerCase().contains("windows")) {
+			return Collections.emptyList();
+		}
+		for (String setsid : new String[] { "/usr/bin/setsid", "/bin/setsid" }) {
+			if (new File(setsid).canExecute()) {
+				//新的会话与进程组,不再接收终端的Ctrl-C
+				return Collections.singletonList(setsid);
+			}
+		}
+		//如macOS没有setsid,由shell忽略SIGINT后执行JVM,JVM继承该设置
+		return Arrays.asList("/bin/sh", "-c", "trap '' INT; exec \"$0\" \"$@\"");
+	}
+
+	/**
+	 * Shut down the JVMs started by this instance that have not been claimed, including
+	 * the ones that are still starting.
+	 * 关闭本实例启动且未被领取的JVM
+	 */
+	void shutdown() {
+		for (Map.Entry<File, Process> entry : this.spawned.entrySet()) {
+			File file = entry.getKey();
+			//池文件不存在说明JVM已被领取或已退出
+			Properties properties = file.isFile() ? load(file) : null;
+			if (properties != null) {
+				shutdown(file, properties);
+				entry.getValue().destroy();
+			}
+		}
+		this.spawned.clear();
+	}
+
+	/**
+	 * Return the file that receives the output of an idle JVM.
+	 * @param poolFile the pool file of the JVM
+	 * @return the log file
+	 */
+	static File getLogFile(File poolFile) {
+		String name = poolFile.getName();
+		return new File(poolFile.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".log");
+	}
+
+	private List<File> listPoolFiles() {
+		List<File> files = new ArrayList<>();
+		File[] candidates = this.directory.listFiles();
+		if (candidates != null) {
+			for (File candidate : candidates) {
+				if (candidate.getName().endsWith(POOL_FILE_EXTENSION)) {
+					files.add(candidate);
+				}
+			}
+		}
+		return files;
+	}
+
+	private Properties load(File file) {
+		Properties properties = new Properties();
+		try (InputStream inputStream = new FileInputStream(file)) {
+			properties.load(inputStream);
+			return properties;
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private Socket connect(Properties properties) throws IOException {
+		int port = Integer.parseInt(properties.getProperty(PooledLauncher.PROPERTY_PORT));
+		return new Socket(InetAddress.getLoopbackAddress(), port);
+	}
+
+	/**
+	 * Return the location of the {@link PooledLauncher}.
+	 * @return the plugin jar or classes directory
+	 */
+	static String getLauncherLocation() {
+		try {
+			return new File(PooledLauncher.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+					.getAbsolutePath();
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException("Unable to locate the plugin classes", ex);
+		}
+	}
+
+	/**
+	 * An idle JVM that has been claimed.
+	 */
+	static final class PooledJvm implements Closeable {
+
+		private final Socket socket;
+
+		private final String token;
+
+		private PooledJvm(Socket socket, String token) {
+			this.socket = socket;
+			this.token = token;
+		}
+
+		/**
+		 * Launch the application and copy its output until it exits.
+		 * @param startClassName the class to run
+		 * @param applicationArguments the application arguments
+		 * @param output the stream to copy the output of the application to
+		 * @return the exit status of the application
+		 * @throws IOException if the connection to the JVM failed
+		 */
+		int run(String startClassName, List<String> applicationArguments, OutputStream output) throws IOException {
+			return run(startClassName, Collections.emptyList(), applicationArguments, output);
+		}
+
+		/**
+		 * Launch the application with additional classpath entries and copy its output
+		 * until it exits. The additional entries are loaded by a child of the system
+		 * class loader of the JVM and take precedence over the entries of the JVM, as
+		 * they would on a flat classpath where the project comes first.
+		 * @param startClassName the class to run
+		 * @param classpath the classpath entries that the JVM was not started with
+		 * @param applicationArguments the application arguments
+		 * @param output the stream to copy the output of the application to
+		 * @return the exit status of the application
+		 * @throws IOException if the connection to the JVM failed
+		 * @throws EOFException if the JVM exited without reporting its exit status
+		 */
+		int run(String startClassName, List<File> classpath, List<String> applicationArguments, OutputStream output)
+				throws IOException {
+			DataOutputStream request = new DataOutputStream(this.socket.getOutputStream());
+			request.writeUTF(this.token);
+			request.writeUTF(PooledLauncher.COMMAND_RUN);
+			request.writeUTF(startClassName);
+			request.writeInt(applicationArguments.size());
+			for (String argument : applicationArguments) {
+				request.writeUTF(argument);
+			}
+			request.writeInt(classpath.size());
+			for (File entry : classpath) {
+				request.writeUTF(entry.getAbsolutePath());
+			}
+			request.flush();
+			DataInputStream input = new DataInputStream(this.socket.getInputStream());
+			byte[] buffer = new byte[8192];
+			while (true) {
+				int length = input.readInt();
+				if (length == PooledLauncher.EXIT_FRAME) {
+					return input.readInt();
+				}
+				if (buffer.length < length) {
+					buffer = new byte[length];
+				}
+				input.readFully(buffer, 0, length);
+				output.write(buffer, 0, length);
+				output.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.socket.close();
+		}
+
+	}
+
+}
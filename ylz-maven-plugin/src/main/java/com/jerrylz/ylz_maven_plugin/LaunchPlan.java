@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * The fully resolved description of a forked launch: everything that is needed to
+ * build the command line of the application process. A plan can be stored and reused
+ * as long as the fingerprint of the inputs it was resolved from does not change.
+ * 启动计划（fork进程启动所需的全部信息）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class LaunchPlan {
+
+	private final String startClass;
+
+	private final List<String> jvmArguments;
+
+	private final List<File> classpath;
+
+	private final List<String> applicationArguments;
+
+	private final Map<String, String> environment;
+
+	LaunchPlan(String startClass, List<String> jvmArguments, List<File> classpath,
+			List<String> applicationArguments, Map<String, String> environment) {
+		this.startClass = startClass;
+		this.jvmArguments = Collections.unmodifiableList(new ArrayList<>(jvmArguments));
+		this.classpath = Collections.unmodifiableList(new ArrayList<>(classpath));
+		this.applicationArguments = Collections.unmodifiableList(new ArrayList<>(applicationArguments));
+		this.environment = Collections.unmodifiableMap(new LinkedHashMap<>(environment));
+	}
+
+	String getStartClass() {
+		return this.startClass;
+	}
+
+	/**
+	 * Return the JVM arguments, including agents.
+	 * @return the JVM arguments
+	 */
+	List<String> getJvmArguments() {
+		return this.jvmArguments;
+	}
+
+	List<File> getClasspath() {
+		return this.classpath;
+	}
+
+	List<String> getApplicationArguments() {
+		return this.applicationArguments;
+	}
+
+	Map<String, String> getEnvironment() {
+		return this.environment;
+	}
+
+	/**
+	 * Write this plan to the specified file.
+	 * @param file the file to write
+	 * @param fingerprint the fingerprint of the inputs this plan was resolved from
+	 * @throws IOException if the file could not be written
+	 */
+	void save(File file, String fingerprint) throws IOException {
+		JSONObject json = new JSONObject(true);
+		json.put("fingerprint", fingerprint);
+		json.put("startClass", this.startClass);
+		json.put("jvmArguments", this.jvmArguments);
+		List<String> paths = new ArrayList<>(this.classpath.size());
+		for (File entry : this.classpath) {
+			paths.add(entry.getAbsolutePath());
+		}
+		json.put("classpath", paths);
+		json.put("applicationArguments", this.applicationArguments);
+		json.put("environment", this.environment);
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), JSON.toJSONString(json, true).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Load a plan previously written with {@link #save(File, String)}.
+	 * @param file the file to read
+	 * @param fingerprint the fingerprint of the current inputs
+	 * @return the plan or {@code null} if the file does not exist, cannot be read or was
+	 * resolved from different inputs
+	 */
+	static LaunchPlan load(File file, String fingerprint) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			JSONObject json = JSON.parseObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			if (json == null || !fingerprint.equals(json.getString("fingerprint"))) {
+				return null;
+			}
+			List<File> classpath = new ArrayList<>();
+			for (String path : toStrings(json.getJSONArray("classpath"))) {
+				classpath.add(new File(path));
+			}
+			Map<String, String> environment = new LinkedHashMap<>();
+			JSONObject env = json.getJSONObject("environment");
+			if (env != null) {
+				for (String key : env.keySet()) {
+					environment.put(key, env.getString(key));
+				}
+			}
+			return new LaunchPlan(json.getString("startClass"), toStrings(json.getJSONArray("jvmArguments")), classpath,
+					toStrings(json.getJSONArray("applicationArguments")), environment);
+		}
+		catch (IOException | RuntimeException ex) {
+			//缓存文件损坏时重新解析
+			return null;
+		}
+	}
+
+	private static List<String> toStrings(JSONArray array) {
+		List<String> result = new ArrayList<>();
+		if (array != null) {
+			for (int i = 0; i < array.size(); i++) {
+				result.add(array.getString(i));
+			}
+		}
+		return result;
+	}
+
+}
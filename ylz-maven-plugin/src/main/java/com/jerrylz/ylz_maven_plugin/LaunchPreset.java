@@ -0,0 +1,312 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Named sets of JVM arguments tuned for a launch goal. The arguments of a preset adapt
+ * to the number of processors and the memory available to the build, which reflect the
+ * limits of the container on Java 10 and later, and to the version of the JVM.
+ * 启动预设（根据CPU与内存调整的JVM参数组合）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+enum LaunchPreset {
+
+	/**
+	 * Start as fast as possible: C1 only, serial GC, no bytecode verification before
+	 * Java 13 and the default CDS archive.
+	 */
+	FAST_STARTUP {
+
+		@Override
+		void addJvmArguments(List<String> args, Host host, int javaVersion) {
+			args.add("-XX:TieredStopAtLevel=1");
+			if (javaVersion < 13) {
+				args.add("-Xverify:none");
+			}
+			args.add("-XX:+UseSerialGC");
+			args.add("-Xshare:auto");
+		}
+
+	},
+
+	/**
+	 * Maximize peak throughput: full tiered compilation, parallel GC with one thread per
+	 * processor and a fixed heap of a quarter of the memory.
+	 */
+	THROUGHPUT {
+
+		@Override
+		void addJvmArguments(List<String> args, Host host, int javaVersion) {
+			args.add("-XX:+UseParallelGC");
+			args.add("-XX:ParallelGCThreads=" + host.getProcessors());
+			String heap = toMegabytes(host.getMemory() / 4);
+			args.add("-Xms" + heap);
+			args.add("-Xmx" + heap);
+		}
+
+	},
+
+	/**
+	 * Keep GC pauses short: ZGC from Java 15, G1 with a pause goal otherwise, string
+	 * deduplication and a fixed heap of a quarter of the memory.
+	 */
+	LOW_LATENCY {
+
+		@Override
+		void addJvmArguments(List<String> args, Host host, int javaVersion) {
+			if (javaVersion >= 15 && host.getProcessors() > 1) {
+				args.add("-XX:+UseZGC");
+				if (javaVersion >= 18) {
+					args.add("-XX:+UseStringDeduplication");
+				}
+			}
+			else {
+				args.add("-XX:+UseG1GC");
+				args.add("-XX:MaxGCPauseMillis=50");
+				args.add("-XX:+UseStringDeduplication");
+			}
+			String heap = toMegabytes(host.getMemory() / 4);
+			args.add("-Xms" + heap);
+			args.add("-Xmx" + heap);
+		}
+
+	},
+
+	/**
+	 * Keep the footprint small: serial GC, a heap of an eighth of the memory between 64
+	 * and 512 MB, C1 only, smaller thread stacks and code cache.
+	 */
+	LOW_MEMORY {
+
+		@Override
+		void addJvmArguments(List<String> args, Host host, int javaVersion) {
+			args.add("-XX:+UseSerialGC");
+			if (javaVersion >= 18) {
+				args.add("-XX:+UseStringDeduplication");
+			}
+			long heap = Math.max(64 * MEGABYTE, Math.min(512 * MEGABYTE, host.getMemory() / 8));
+			args.add("-Xmx" + toMegabytes(heap));
+			args.add("-Xss512k");
+			args.add("-XX:TieredStopAtLevel=1");
+			args.add("-XX:ReservedCodeCacheSize=32m");
+			args.add("-Xshare:auto");
+		}
+
+	};
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	/**
+	 * Prefixes of the size options whose value is part of the option name.
+	 */
+	private static final List<String> SIZE_OPTIONS = Arrays.asList("-Xms", "-Xmx", "-Xss", "-Xmn");
+
+	/**
+	 * Add the JVM arguments of this preset.
+	 * @param args the arguments to add to
+	 * @param host the resources of the host
+	 * @param javaVersion the feature version of the JVM, {@code 8} for Java 8
+	 */
+	abstract void addJvmArguments(List<String> args, Host host, int javaVersion);
+
+	/**
+	 * Return the JVM arguments of this preset for the current host and JVM.
+	 * @return the JVM arguments
+	 */
+	List<String> getJvmArguments() {
+		List<String> args = new ArrayList<>();
+		addJvmArguments(args, Host.current(), getJavaVersion());
+		return args;
+	}
+
+	/**
+	 * Return the name of this preset as used in the configuration.
+	 * @return the name, such as {@code fast-startup}
+	 */
+	String getName() {
+		return name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+	}
+
+	/**
+	 * Return the preset with the specified name.
+	 * 根据名称查找预设
+	 * @param name the name of the preset, such as {@code fast-startup}
+	 * @return the preset
+	 * @throws IllegalArgumentException if there is no such preset
+	 */
+	static LaunchPreset fromName(String name) {
+		for (LaunchPreset preset : values()) {
+			if (preset.getName().equalsIgnoreCase(name.trim())) {
+				return preset;
+			}
+		}
+		throw new IllegalArgumentException("Unknown launch preset '" + name + "', valid values are "
+				+ Arrays.stream(values()).map(LaunchPreset::getName).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Merge the arguments of a preset with the arguments configured by the user. The
+	 * preset arguments come first and those that set an option the user also set are
+	 * dropped, so the user always wins. A maximum heap set by the user also drops the
+	 * initial heap of the preset. A garbage collector selected by the user replaces
+	 * the garbage collector of the preset and its specific options.
+	 * 合并预设参数与用户参数,用户参数优先
+	 * @param presetArguments the arguments of the preset
+	 * @param userArguments the arguments configured by the user
+	 * @return the merged arguments
+	 */
+	static List<String> merge(List<String> presetArguments, Collection<String> userArguments) {
+		Set<String> userOptions = new LinkedHashSet<>();
+		boolean userGc = false;
+		for (String argument : userArguments) {
+			userOptions.add(getOptionName(argument));
+			userGc |= isGcSelection(argument);
+		}
+		List<String> merged = new ArrayList<>();
+		for (String argument : presetArguments) {
+			String optionName = getOptionName(argument);
+			if (userOptions.contains(optionName)) {
+				continue;
+			}
+			//用户设置了最大堆时忽略预设的初始堆,避免初始堆大于最大堆
+			if ("-Xms".equals(optionName) && userOptions.contains("-Xmx")) {
+				continue;
+			}
+			//用户选择了GC时忽略预设的GC及其专属参数
+			if (userGc && (isGcSelection(argument) || isGcSpecific(argument))) {
+				continue;
+			}
+			merged.add(argument);
+		}
+		merged.addAll(userArguments);
+		return merged;
+	}
+
+	/**
+	 * Return the name of the option set by the specified argument, without its value or
+	 * boolean prefix.
+	 * @param argument the argument
+	 * @return the option name
+	 */
+	static String getOptionName(String argument) {
+		if (argument.startsWith("-XX:")) {
+			String option = argument.substring(4);
+			if (option.startsWith("+") || option.startsWith("-")) {
+				option = option.substring(1);
+			}
+			int equals = option.indexOf('=');
+			return "-XX:" + ((equals != -1) ? option.substring(0, equals) : option);
+		}
+		for (String sizeOption : SIZE_OPTIONS) {
+			if (argument.startsWith(sizeOption)) {
+				return sizeOption;
+			}
+		}
+		if (argument.startsWith("-Xshare:") || argument.startsWith("-Xverify:")) {
+			return argument.substring(0, argument.indexOf(':'));
+		}
+		int equals = argument.indexOf('=');
+		return (equals != -1) ? argument.substring(0, equals) : argument;
+	}
+
+	private static boolean isGcSelection(String argument) {
+		return argument.startsWith("-XX:+Use") && argument.endsWith("GC");
+	}
+
+	private static boolean isGcSpecific(String argument) {
+		return argument.startsWith("-XX:ParallelGCThreads=") || argument.startsWith("-XX:MaxGCPauseMillis=")
+				|| argument.equals("-XX:+UseStringDeduplication");
+	}
+
+	private static String toMegabytes(long bytes) {
+		return Math.max(1, bytes / MEGABYTE) + "m";
+	}
+
+	/**
+	 * Return the feature version of the current JVM, which is also the JVM of the forked
+	 * process.
+	 * @return the feature version, {@code 8} for Java 8
+	 */
+	static int getJavaVersion() {
+		String version = System.getProperty("java.specification.version", "1.8");
+		if (version.startsWith("1.")) {
+			version = version.substring(2);
+		}
+		try {
+			return Integer.parseInt(version);
+		}
+		catch (NumberFormatException ex) {
+			return 8;
+		}
+	}
+
+	/**
+	 * The processors and memory available on the host.
+	 */
+	static final class Host {
+
+		private final int processors;
+
+		private final long memory;
+
+		Host(int processors, long memory) {
+			this.processors = processors;
+			this.memory = memory;
+		}
+
+		/**
+		 * Return the resources available to the current JVM, which are the limits of the
+		 * container when the JVM is container aware.
+		 * @return the host resources
+		 */
+		static Host current() {
+			long memory = -1;
+			OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+			if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+				memory = ((com.sun.management.OperatingSystemMXBean) bean).getTotalPhysicalMemorySize();
+			}
+			if (memory <= 0) {
+				//无法获取物理内存时按默认最大堆（内存的四分之一）估算
+				memory = Runtime.getRuntime().maxMemory() * 4;
+			}
+			return new Host(Runtime.getRuntime().availableProcessors(), memory);
+		}
+
+		int getProcessors() {
+			return this.processors;
+		}
+
+		long getMemory() {
+			return this.memory;
+		}
+
+	}
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.LifecycleExecutor;
+import org.apache.maven.lifecycle.MavenExecutionPlan;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import org.springframework.boot.loader.tools.JavaExecutable;
+
+import com.jerrylz.ylz_maven_plugin.JvmPool.PooledJvm;
+
+/**
+ * Run an executable archive application without compiling the tests or resolving the
+ * test dependencies. The {@code compile} phase is only executed when a source or
+ * resource file is newer than the newest file of the classes directory. With
+ * {@code speculativeLaunch}, the JVM of the application is started on the dependencies
+ * while the project compiles and receives the classes of the project once they are
+ * ready.
+ * 精简的运行指令（不编译测试,不解析测试依赖,类文件最新时跳过编译）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+@Mojo(name = "run-lean", requiresProject = true, defaultPhase = LifecyclePhase.VALIDATE,
+		requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+public class LeanRunMojo extends AbstractForegroundRunMojo {
+
+	/**
+	 * The current build session.
+	 */
+	@Parameter(defaultValue = "${session}", readonly = true, required = true)
+	private MavenSession session;
+
+	@Component
+	private LifecycleExecutor lifecycleExecutor;
+
+	@Component
+	private BuildPluginManager buildPluginManager;
+
+	/**
+	 * Flag to always execute the {@code compile} phase, even if the classes directory is
+	 * up to date.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.forceCompile", defaultValue = "false")
+	private boolean forceCompile;
+
+	/**
+	 * Flag to start the JVM of the application on the dependencies before the project is
+	 * compiled. The classes loaded by the previous run are loaded, without being
+	 * initialized, while the project compiles. The classes of the project are then
+	 * loaded by a child class loader.
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.run.speculativeLaunch", defaultValue = "false")
+	private boolean speculativeLaunch;
+
+	/**
+	 * The pool holding the JVM started before the compilation, if any.
+	 */
+	private JvmPool speculativePool;
+
+	/**
+	 * The dependencies the speculative JVM was started with.
+	 */
+	private Set<File> speculativeClasspath;
+
+	/**
+	 * Shuts the speculative JVM down when the build is interrupted.
+	 */
+	private Thread speculativePoolCloser;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		try {
+			super.execute();
+		}
+		finally {
+			//运行失败或JVM未被使用时关闭编译前启动的JVM
+			shutdownSpeculativeJvm();
+		}
+	}
+
+	@Override
+	protected void prepare() throws MojoExecutionException, MojoFailureException {
+		if (this.speculativeLaunch && isFork() && isSingleLaunch() && !isFromArchive()) {
+			startSpeculativeJvm();
+		}
+		if (!this.forceCompile && isUpToDate()) {
+			getLog().info("Classes are up to date, skipping compile");
+			return;
+		}
+		try (PhaseMetrics.Phase phase = getPhaseMetrics().start(PhaseMetrics.COMPILE)) {
+			compile();
+		}
+	}
+
+	/**
+	 * Start the JVM of the application on the dependencies only, so that it boots and
+	 * loads the classes of the previous run while the project compiles.
+	 * 编译前启动只包含依赖的JVM
+	 */
+	private void startSpeculativeJvm() throws MojoExecutionException {
+		File directory = new File(getWorkDirectory(), "warmup");
+		File classList = new File(directory, "warmup.classlist");
+		File recordedClassList = new File(directory, "warmup.classlist.new");
+		List<String> jvmArguments = resolveForkJvmArguments();
+		try {
+			//上一次运行记录的类列表作为本次预加载的列表
+			if (recordedClassList.length() > 0) {
+				Files.move(recordedClassList.toPath(), classList.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.createDirectories(directory.toPath());
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to prepare the class list of the speculative JVM: " + ex.getMessage());
+		}
+		if (LaunchPreset.getJavaVersion() >= 10) {
+			jvmArguments.add("-XX:DumpLoadedClassList=" + recordedClassList.getAbsolutePath());
+		}
+		if (classList.isFile()) {
+			jvmArguments.add("-D" + PooledLauncher.CLASS_LIST_PROPERTY + "=" + classList.getAbsolutePath());
+		}
+		List<File> dependencies = toFiles(getBaseClassPathUrls());
+		addClasspath(jvmArguments, dependencies);
+		File workingDirectory = getForkWorkingDirectory();
+		Fingerprint fingerprint = new Fingerprint();
+		fingerprint.add(new JavaExecutable().toString()).add(workingDirectory.getAbsolutePath());
+		jvmArguments.forEach(fingerprint::add);
+		JvmPool pool = new JvmPool(directory, fingerprint.toHex(), getLog());
+		try {
+			pool.fill(1, workingDirectory, jvmArguments, determineEnvironmentVariables(),
+					(int) TimeUnit.MINUTES.toMillis(10));
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to start speculative JVM: " + ex.getMessage());
+			return;
+		}
+		this.speculativePool = pool;
+		this.speculativeClasspath = new HashSet<>(dependencies);
+		//构建被中断时(如编译期间Ctrl-C)关闭JVM
+		this.speculativePoolCloser = new Thread(pool::shutdown);
+		Runtime.getRuntime().addShutdownHook(this.speculativePoolCloser);
+	}
+
+	/**
+	 * Shut down the speculative JVM, if any, unless it has been claimed.
+	 * 关闭未被使用的推测启动JVM
+	 */
+	private void shutdownSpeculativeJvm() {
+		if (this.speculativePool == null) {
+			return;
+		}
+		this.speculativePool.shutdown();
+		this.speculativePool = null;
+		try {
+			Runtime.getRuntime().removeShutdownHook(this.speculativePoolCloser);
+		}
+		catch (IllegalStateException ex) {
+			// Shutting down
+		}
+		this.speculativePoolCloser = null;
+	}
+
+	@Override
+	protected void runWithForkedJvm(File workingDirectory, LaunchPlan plan)
+			throws MojoExecutionException, MojoFailureException {
+		if (this.speculativePool == null) {
+			super.runWithForkedJvm(workingDirectory, plan);
+			return;
+		}
+		PhaseMetrics.Phase spawn = getPhaseMetrics().start(PhaseMetrics.SPAWN);
+		PooledJvm jvm = this.speculativePool.claim(TimeUnit.SECONDS.toMillis(30));
+		spawn.close();
+		if (jvm == null) {
+			getLog().info("Speculative JVM is not available, forking a new one");
+			shutdownSpeculativeJvm();
+			super.runWithForkedJvm(workingDirectory, plan);
+			return;
+		}
+		//JVM只包含依赖,项目的类目录在编译后传入
+		List<File> projectClasspath = new ArrayList<>();
+		for (File entry : plan.getClasspath()) {
+			if (!this.speculativeClasspath.contains(entry)) {
+				projectClasspath.add(entry);
+			}
+		}
+		getLog().info("Launching application in the speculative JVM");
+		runInPooledJvm(jvm, plan.getStartClass(), projectClasspath, plan.getApplicationArguments());
+	}
+
+	/**
+	 * Execute the mojos bound to the {@code compile} phase of the lifecycle of the
+	 * project. The dependencies they need have already been resolved for this goal.
+	 * 执行compile阶段绑定的插件
+	 */
+	private void compile() throws MojoExecutionException, MojoFailureException {
+		MavenExecutionPlan plan;
+		try {
+			plan = this.lifecycleExecutor.calculateExecutionPlan(this.session, LifecyclePhase.COMPILE.id());
+		}
+		catch (Exception ex) {
+			throw new MojoExecutionException("Unable to calculate the compile phase of the project", ex);
+		}
+		for (MojoExecution execution : plan.getMojoExecutions()) {
+			getLog().debug("Executing " + execution);
+			try {
+				this.buildPluginManager.executeMojo(this.session, execution);
+			}
+			catch (MojoExecutionException | MojoFailureException ex) {
+				throw ex;
+			}
+			catch (Exception ex) {
+				throw new MojoExecutionException("Failed to execute " + execution, ex);
+			}
+		}
+	}
+
+	/**
+	 * Check if the newest file of the classes directory is newer than every source
+	 * file, resource file and the pom of the project.
+	 * @return {@code true} if the classes directory is up to date
+	 * @throws MojoExecutionException if the files could not be read
+	 */
+	private boolean isUpToDate() throws MojoExecutionException {
+		MavenProject project = getProject();
+		try {
+			long classes = getLastModified(getClassesDirectory());
+			if (classes < 0) {
+				return false;
+			}
+			List<File> sources = new ArrayList<>();
+			project.getCompileSourceRoots().forEach((root) -> sources.add(new File(root)));
+			for (Resource resource : project.getResources()) {
+				sources.add(new File(resource.getDirectory()));
+			}
+			if (project.getFile() != null) {
+				sources.add(project.getFile());
+			}
+			for (File source : sources) {
+				//任一源文件比类文件新则需要编译
+				if (getLastModified(source) > classes) {
+					if (getLog().isDebugEnabled()) {
+						getLog().debug("Files of " + source + " are newer than " + getClassesDirectory());
+					}
+					return false;
+				}
+			}
+			return true;
+		}
+		catch (IOException | UncheckedIOException ex) {
+			throw new MojoExecutionException("Unable to check if " + getClassesDirectory() + " is up to date", ex);
+		}
+	}
+
+	/**
+	 * Return the modification time of the newest regular file of the specified file or
+	 * directory.
+	 * @param file the file or directory
+	 * @return the modification time or {@code -1} if there is no such file
+	 * @throws IOException if the directory could not be read
+	 */
+	private long getLastModified(File file) throws IOException {
+		if (file.isFile()) {
+			return file.lastModified();
+		}
+		if (!file.isDirectory()) {
+			return -1;
+		}
+		try (Stream<Path> paths = Files.walk(file.toPath())) {
+			return paths.filter(Files::isRegularFile).mapToLong((path) -> path.toFile().lastModified()).max()
+					.orElse(-1);
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scan an append-only log file for a pattern. Each scan reads only the bytes appended
+ * since the previous one, up to the last complete line, into a reused buffer, so the
+ * file is never read twice and no mapping holds on to it. If the pattern has a group,
+ * it is read as the startup time in seconds reported by the application, as in
+ * {@code Started .* in ([0-9.]+) seconds}. A rotated file is detected by its file key,
+ * or by its length where the file system has no file keys, and is scanned from the
+ * start once the rest of the previous file has been scanned.
+ * 增量扫描日志文件（复用缓冲区,只读取新追加的完整行）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class LogPatternScanner implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final File file;
+
+	private final Pattern pattern;
+
+	/**
+	 * Buffer the appended bytes are read into, reused by all the scans.
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private FileChannel channel;
+
+	/**
+	 * Key of the file open in the channel or {@code null} if it is not known.
+	 */
+	private Object fileKey;
+
+	/**
+	 * Position of the first byte that has not been scanned yet.
+	 */
+	private long position;
+
+	private boolean matched;
+
+	private long reportedStartupTime = -1;
+
+	/**
+	 * Create a new instance.
+	 * @param file the log file, which may not exist yet
+	 * @param pattern the pattern to look for
+	 */
+	LogPatternScanner(File file, Pattern pattern) {
+		this.file = file;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Scan the lines appended since the previous call.
+	 * @return {@code true} if the pattern has been found
+	 * @throws IOException if the file could not be read
+	 */
+	boolean scan() throws IOException {
+		if (this.matched) {
+			return true;
+		}
+		if (this.channel != null && isRotated()) {
+			//文件已被滚动时先扫描原文件的剩余内容
+			if (scanAppended()) {
+				return true;
+			}
+			close();
+		}
+		if (this.channel == null && !open()) {
+			return false;
+		}
+		return scanAppended();
+	}
+
+	private boolean isRotated() throws IOException {
+		if (this.file.length() < this.position) {
+			return true;
+		}
+		if (this.fileKey == null) {
+			return false;
+		}
+		try {
+			Object currentKey = Files.readAttributes(this.file.toPath(), BasicFileAttributes.class).fileKey();
+			return currentKey != null && !currentKey.equals(this.fileKey);
+		}
+		catch (NoSuchFileException ex) {
+			//新文件尚未创建,继续读取原文件
+			return false;
+		}
+	}
+
+	private boolean scanAppended() throws IOException {
+		while (this.channel.size() > this.position) {
+			this.buffer.clear();
+			this.channel.read(this.buffer, this.position);
+			int end = this.buffer.position();
+			while (end > 0 && this.buffer.get(end - 1) != '\n') {
+				end--;
+			}
+			if (end == 0) {
+				if (this.buffer.hasRemaining()) {
+					//最后一行尚未写完
+					return false;
+				}
+				//行比缓冲区长时扩大缓冲区
+				this.buffer = ByteBuffer.allocate(this.buffer.capacity() * 2);
+				continue;
+			}
+			this.buffer.flip();
+			this.buffer.limit(end);
+			this.position += end;
+			Matcher matcher = this.pattern.matcher(StandardCharsets.UTF_8.decode(this.buffer));
+			if (matcher.find()) {
+				this.matched = true;
+				if (matcher.groupCount() > 0 && matcher.group(1) != null) {
+					this.reportedStartupTime = parseSeconds(matcher.group(1));
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean open() throws IOException {
+		close();
+		this.position = 0;
+		if (!this.file.isFile()) {
+			return false;
+		}
+		this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+		this.fileKey = Files.readAttributes(this.file.toPath(), BasicFileAttributes.class).fileKey();
+		return true;
+	}
+
+	private long parseSeconds(String seconds) {
+		try {
+			return Math.round(Double.parseDouble(seconds) * TimeUnit.SECONDS.toMillis(1));
+		}
+		catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Return the startup time reported by the application, captured by the first group
+	 * of the pattern.
+	 * @return the startup time in milliseconds or {@code -1} if it is not known
+	 */
+	long getReportedStartupTime() {
+		return this.reportedStartupTime;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+			this.channel = null;
+			this.fileKey = null;
+		}
+	}
+
+}
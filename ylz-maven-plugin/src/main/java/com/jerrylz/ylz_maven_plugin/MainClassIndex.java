@@ -0,0 +1,287 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+
+/**
+ * A persistent index of the classes of a directory that declare a {@code main} method.
+ * Only the class files whose size or modification time changed since the index was
+ * written are parsed again, in parallel. Finds the same main class as
+ * {@link org.springframework.boot.loader.tools.MainClassFinder#findSingleMainClass(File, String)}.
+ * 启动类索引（增量、并行扫描包含main方法的类）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class MainClassIndex {
+
+	private static final int VERSION = 1;
+
+	private static final String DOT_CLASS = ".class";
+
+	private static final String MAIN_METHOD_NAME = "main";
+
+	private static final String MAIN_METHOD_DESCRIPTOR = "([Ljava/lang/String;)V";
+
+	private final File indexFile;
+
+	/**
+	 * Create a new instance.
+	 * @param indexFile the file in which the index is persisted
+	 */
+	MainClassIndex(File indexFile) {
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Find a single main class in the specified folder, preferring the classes
+	 * annotated with the specified annotation.
+	 * 查找唯一的启动类
+	 * @param rootFolder the root folder to search
+	 * @param annotationName the name of the annotation to look for
+	 * @return the main class or {@code null}
+	 * @throws IOException if the folder cannot be read
+	 */
+	String findSingleMainClass(File rootFolder, String annotationName) throws IOException {
+		if (!rootFolder.exists()) {
+			return null;
+		}
+		if (!rootFolder.isDirectory()) {
+			throw new IllegalArgumentException("Invalid root folder '" + rootFolder + "'");
+		}
+		Map<String, Entry> entries = update(rootFolder);
+		List<Entry> mainClasses = new ArrayList<>();
+		for (Entry entry : entries.values()) {
+			if (entry.className != null) {
+				mainClasses.add(entry);
+			}
+		}
+		List<Entry> matching = mainClasses.stream()
+				.filter((entry) -> annotationName != null && entry.annotationNames.contains(annotationName))
+				.collect(Collectors.toList());
+		if (matching.isEmpty()) {
+			matching = mainClasses;
+		}
+		if (matching.size() > 1) {
+			throw new IllegalStateException("Unable to find a single main class from the following candidates "
+					+ matching.stream().map((entry) -> entry.className).collect(Collectors.toList()));
+		}
+		return matching.isEmpty() ? null : matching.get(0).className;
+	}
+
+	/**
+	 * Bring the index up to date with the specified folder and persist it.
+	 * @param rootFolder the root folder
+	 * @return the entries of the index, keyed by relative path
+	 * @throws IOException if the folder cannot be read
+	 */
+	private Map<String, Entry> update(File rootFolder) throws IOException {
+		Map<String, Entry> previous = read();
+		Map<String, Entry> current = new TreeMap<>();
+		List<Entry> changed = new ArrayList<>();
+		Path root = rootFolder.toPath();
+		//遍历目录,只收集大小或修改时间变化的类文件
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+				if (path.endsWith(DOT_CLASS)) {
+					long size = attributes.size();
+					long lastModified = attributes.lastModifiedTime().toMillis();
+					Entry entry = previous.get(path);
+					if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+						entry = new Entry(path, size, lastModified);
+						changed.add(entry);
+					}
+					current.put(path, entry);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+		if (!changed.isEmpty() || previous.size() != current.size()) {
+			try {
+				//并行解析变化的类文件
+				changed.parallelStream().forEach((entry) -> entry.parse(root.resolve(entry.path).toFile()));
+			}
+			catch (UncheckedIOException ex) {
+				throw ex.getCause();
+			}
+			write(current);
+		}
+		return current;
+	}
+
+	private Map<String, Entry> read() {
+		if (!this.indexFile.isFile()) {
+			return Collections.emptyMap();
+		}
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(this.indexFile)))) {
+			if (input.readInt() != VERSION) {
+				return Collections.emptyMap();
+			}
+			int count = input.readInt();
+			Map<String, Entry> entries = new HashMap<>(count * 2);
+			for (int i = 0; i < count; i++) {
+				Entry entry = new Entry(input.readUTF(), input.readLong(), input.readLong());
+				if (input.readBoolean()) {
+					entry.className = input.readUTF();
+					int annotations = input.readInt();
+					for (int j = 0; j < annotations; j++) {
+						entry.annotationNames.add(input.readUTF());
+					}
+				}
+				entries.put(entry.path, entry);
+			}
+			return entries;
+		}
+		catch (IOException ex) {
+			//索引文件损坏时重新扫描
+			return Collections.emptyMap();
+		}
+	}
+
+	private void write(Map<String, Entry> entries) throws IOException {
+		Files.createDirectories(this.indexFile.getParentFile().toPath());
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(this.indexFile)))) {
+			output.writeInt(VERSION);
+			output.writeInt(entries.size());
+			for (Entry entry : entries.values()) {
+				output.writeUTF(entry.path);
+				output.writeLong(entry.size);
+				output.writeLong(entry.lastModified);
+				output.writeBoolean(entry.className != null);
+				if (entry.className != null) {
+					output.writeUTF(entry.className);
+					output.writeInt(entry.annotationNames.size());
+					for (String annotationName : entry.annotationNames) {
+						output.writeUTF(annotationName);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * An indexed class file.
+	 */
+	private static final class Entry {
+
+		private final String path;
+
+		private final long size;
+
+		private final long lastModified;
+
+		/**
+		 * The name of the class if it declares a main method, {@code null} otherwise.
+		 */
+		private String className;
+
+		private final Set<String> annotationNames = new LinkedHashSet<>();
+
+		private Entry(String path, long size, long lastModified) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		private void parse(File file) {
+			try (InputStream inputStream = new FileInputStream(file)) {
+				ClassDescriptor descriptor = new ClassDescriptor();
+				new ClassReader(inputStream).accept(descriptor, ClassReader.SKIP_CODE);
+				if (descriptor.mainMethodFound) {
+					this.className = this.path.substring(0, this.path.length() - DOT_CLASS.length()).replace('/',
+							'.');
+					this.annotationNames.addAll(descriptor.annotationNames);
+				}
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+	/**
+	 * ASM visitor collecting the class level annotations and whether the class declares
+	 * a main method.
+	 */
+	private static class ClassDescriptor extends ClassVisitor {
+
+		private final Set<String> annotationNames = new LinkedHashSet<>();
+
+		private boolean mainMethodFound;
+
+		ClassDescriptor() {
+			super(SpringAsmInfo.ASM_VERSION);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			this.annotationNames.add(Type.getType(desc).getClassName());
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+				String[] exceptions) {
+			if ((access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC)) == (Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC)
+					&& MAIN_METHOD_NAME.equals(name) && MAIN_METHOD_DESCRIPTOR.equals(desc)) {
+				this.mainMethodFound = true;
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package com.jerrylz.ylz_maven_plugin;
 
+import java.util.List;
+
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.shared.artifact.filter.collection.AbstractArtifactFeatureFilter;
 
@@ -51,4 +53,23 @@ public class MatchingGroupIdFilter extends AbstractArtifactFeatureFilter {
 		return artifact.getGroupId();
 	}
 
+	/**
+	 * 判断单个artifact是否保留,无需构建集合
+	 * @param artifact
+	 * @return
+	 */
+	@Override
+	public boolean isArtifactIncluded(Artifact artifact) {
+		String groupId = getArtifactFeature(artifact);
+		List<String> excludes = getExcludes();
+		if (excludes != null) {
+			for (String exclude : excludes) {
+				if (compareFeatures(groupId, exclude)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 }
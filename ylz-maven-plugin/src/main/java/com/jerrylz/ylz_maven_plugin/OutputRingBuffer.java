@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ring buffer of bytes with a single writer thread and a single reader thread.
+ * The writer either drops the bytes that do not fit because the reader lags behind and
+ * counts them, or waits for the reader to make room.
+ * 无锁环形缓冲区（单写单读,写入方可丢弃放不下的数据并计数,或等待读取方腾出空间）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class OutputRingBuffer {
+
+	private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final byte[] buffer;
+
+	private final int mask;
+
+	/**
+	 * Position of the next byte to write.
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Position of the next byte to read.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private volatile Thread reader;
+
+	private volatile Thread writer;
+
+	private volatile boolean abandoned;
+
+	private volatile boolean closed;
+
+	/**
+	 * Create a new instance.
+	 * @param capacity the capacity in bytes, rounded up to a power of two
+	 */
+	OutputRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 1024) - 1) << 1;
+		this.buffer = new byte[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Write the specified bytes, or drop them if there is not enough room.
+	 * @param source the bytes to write
+	 * @param offset the offset of the first byte
+	 * @param length the number of bytes
+	 * @return {@code true} if the bytes have been written, {@code false} if they have
+	 * been dropped
+	 */
+	boolean offer(byte[] source, int offset, int length) {
+		if (!tryWrite(source, offset, length)) {
+			this.dropped.addAndGet(length);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Write the specified bytes, waiting for the reader to make room if necessary. The
+	 * bytes are only dropped once the reader has abandoned the buffer.
+	 * @param source the bytes to write
+	 * @param offset the offset of the first byte
+	 * @param length the number of bytes
+	 */
+	void put(byte[] source, int offset, int length) {
+		this.writer = Thread.currentThread();
+		while (length > 0) {
+			//超过容量的数据分段写入
+			int part = Math.min(length, this.buffer.length);
+			while (!tryWrite(source, offset, part)) {
+				if (this.abandoned) {
+					this.dropped.addAndGet(length);
+					return;
+				}
+				LockSupport.parkNanos(this, PARK_NANOS);
+			}
+			offset += part;
+			length -= part;
+		}
+	}
+
+	private boolean tryWrite(byte[] source, int offset, int length) {
+		long head = this.head.get();
+		if (length > this.buffer.length - (head - this.tail.get())) {
+			return false;
+		}
+		int index = (int) (head & this.mask);
+		int first = Math.min(length, this.buffer.length - index);
+		System.arraycopy(source, offset, this.buffer, index, first);
+		System.arraycopy(source, offset + first, this.buffer, 0, length - first);
+		//发布写入位置后唤醒读取线程
+		this.head.lazySet(head + length);
+		LockSupport.unpark(this.reader);
+		return true;
+	}
+
+	/**
+	 * Signal that the reader stopped reading, so that a waiting writer drops the bytes
+	 * instead.
+	 */
+	void abandon() {
+		this.abandoned = true;
+		LockSupport.unpark(this.writer);
+	}
+
+	/**
+	 * Signal that nothing more will be written.
+	 */
+	void close() {
+		this.closed = true;
+		LockSupport.unpark(this.reader);
+	}
+
+	/**
+	 * Return the total number of bytes dropped so far.
+	 * @return the number of dropped bytes
+	 */
+	long getDropped() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Write at most the specified number of unread bytes to the channel, waiting for
+	 * bytes to be available. Must only be called by the reader thread.
+	 * @param channel the channel to write to
+	 * @param maxBytes the maximum number of bytes to write
+	 * @return the number of bytes written, {@code -1} once the buffer is closed and has
+	 * been fully read
+	 * @throws IOException if the channel failed
+	 */
+	int drainTo(WritableByteChannel channel, int maxBytes) throws IOException {
+		this.reader = Thread.currentThread();
+		long tail = this.tail.get();
+		long available;
+		while ((available = this.head.get() - tail) == 0) {
+			if (this.closed) {
+				if (this.head.get() == tail) {
+					return -1;
+				}
+				continue;
+			}
+			LockSupport.parkNanos(this, PARK_NANOS);
+		}
+		int length = (int) Math.min(available, maxBytes);
+		int index = (int) (tail & this.mask);
+		int first = Math.min(length, this.buffer.length - index);
+		write(channel, ByteBuffer.wrap(this.buffer, index, first));
+		write(channel, ByteBuffer.wrap(this.buffer, 0, length - first));
+		//写完之后才释放空间
+		this.tail.lazySet(tail + length);
+		LockSupport.unpark(this.writer);
+		return length;
+	}
+
+	private void write(WritableByteChannel channel, ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+	}
+
+}
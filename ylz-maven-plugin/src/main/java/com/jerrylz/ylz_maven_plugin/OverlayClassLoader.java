@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
+
+/**
+ * {@link URLClassLoader} serving resources through a {@link ResourceOverlay} first. Used
+ * directly when the application runs in the Maven JVM and as the system class loader
+ * of a forked JVM, configured through the {@link ResourceOverlay} system properties. This
+ * class is loaded from the boot classpath of a forked JVM and must only rely on the JDK.
+ * 带资源覆盖层的类加载器
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+public class OverlayClassLoader extends URLClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	private final ResourceOverlay overlay;
+
+	/**
+	 * Create a new instance used as the system class loader of a forked JVM. Classes are
+	 * loaded by the default system class loader.
+	 * @param parent the default system class loader
+	 */
+	public OverlayClassLoader(ClassLoader parent) {
+		super(new URL[0], parent);
+		try {
+			this.overlay = ResourceOverlay.fromSystemProperties();
+			if (this.overlay != null) {
+				this.overlay.watch();
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to create resource overlay", ex);
+		}
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param urls the urls of the classpath
+	 * @param parent the parent class loader
+	 * @param overlay the resource overlay
+	 */
+	OverlayClassLoader(URL[] urls, ClassLoader parent, ResourceOverlay overlay) {
+		super(urls, parent);
+		this.overlay = overlay;
+	}
+
+	@Override
+	public URL getResource(String name) {
+		URL resource = (this.overlay != null) ? this.overlay.getResource(name) : null;
+		return (resource != null) ? resource : super.getResource(name);
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		Enumeration<URL> resources = super.getResources(name);
+		return (this.overlay != null) ? this.overlay.getResources(name, resources) : resources;
+	}
+
+	/**
+	 * Called by the JVM when an agent appends a jar to the search path of the system
+	 * class loader.
+	 * @param path the path of the jar
+	 * @throws MalformedURLException if the path is invalid
+	 */
+	void appendToClassPathForInstrumentation(String path) throws MalformedURLException {
+		addURL(new File(path).toURI().toURL());
+	}
+
+}
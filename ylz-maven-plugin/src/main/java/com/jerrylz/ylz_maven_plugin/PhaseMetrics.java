@@ -0,0 +1,272 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Wall-clock time and bytes allocated by the mojo thread for each phase of a goal
+ * execution. A phase that runs several times is accumulated. Each execution appends one
+ * JSON record per line to {@code ylz-metrics.json} in the build directory.
+ * 各阶段耗时及内存分配统计
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class PhaseMetrics {
+
+	/**
+	 * Name of the file the records are appended to, in the build directory.
+	 */
+	static final String FILE_NAME = "ylz-metrics.json";
+
+	static final String COMPILE = "compile";
+
+	static final String ARGUMENTS = "arguments";
+
+	static final String FILTERS = "filters";
+
+	static final String DEPENDENCY_FILTERING = "dependencyFiltering";
+
+	static final String MAIN_CLASS = "mainClass";
+
+	static final String CLASSPATH = "classpath";
+
+	static final String CLASSPATH_INDEX = "classpathIndex";
+
+	static final String BUNDLE = "bundle";
+
+	static final String PREFETCH = "prefetch";
+
+	static final String SPAWN = "spawn";
+
+	static final String FIRST_OUTPUT = "firstOutput";
+
+	static final String READY = "ready";
+
+	static final String REPORTED_STARTUP = "reportedStartup";
+
+	static final String SHUTDOWN = "shutdown";
+
+	private static final com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+	private final long startTime = System.nanoTime();
+
+	private final Map<String, Measure> measures = new LinkedHashMap<>();
+
+	private boolean written;
+
+	/**
+	 * Start measuring a phase.
+	 * @param name the name of the phase
+	 * @return the phase, to end once it is complete
+	 */
+	Phase start(String name) {
+		return new Phase(name);
+	}
+
+	/**
+	 * Record a phase that has been measured elsewhere, such as the time the application
+	 * took to be ready.
+	 * @param name the name of the phase
+	 * @param millis the duration of the phase in milliseconds
+	 */
+	synchronized void record(String name, long millis) {
+		this.measures.computeIfAbsent(name, (key) -> new Measure()).add(TimeUnit.MILLISECONDS.toNanos(millis), -1);
+	}
+
+	/**
+	 * Wrap the specified stream to record the time elapsed until the first byte is
+	 * written as the {@link #FIRST_OUTPUT} phase.
+	 * @param outputStream the stream the output of the application is copied to
+	 * @return the wrapped stream
+	 */
+	OutputStream recordFirstOutput(OutputStream outputStream) {
+		long start = System.nanoTime();
+		return new FilterOutputStream(outputStream) {
+
+			private boolean written;
+
+			@Override
+			public void write(int b) throws IOException {
+				recordFirstWrite();
+				this.out.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				recordFirstWrite();
+				this.out.write(b, off, len);
+			}
+
+			private void recordFirstWrite() {
+				if (!this.written) {
+					this.written = true;
+					record(FIRST_OUTPUT, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Append the record of this execution to the metrics file and log a one-line
+	 * summary. Only the first call has an effect.
+	 * 写入统计记录并打印摘要
+	 * @param buildDirectory the build directory of the project
+	 * @param goal the goal that has been executed
+	 * @param projectId the id of the project
+	 * @param log the log to use
+	 */
+	void write(File buildDirectory, String goal, String projectId, Log log) {
+		synchronized (this) {
+			if (this.written) {
+				return;
+			}
+			this.written = true;
+		}
+		long total = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startTime);
+		JSONObject json = new JSONObject(true);
+		json.put("goal", goal);
+		json.put("project", projectId);
+		json.put("timestamp", System.currentTimeMillis());
+		json.put("totalMillis", total);
+		JSONArray phases = new JSONArray();
+		StringBuilder summary = new StringBuilder("ylz:").append(goal).append(" ").append(total).append("ms");
+		synchronized (this) {
+			for (Map.Entry<String, Measure> entry : this.measures.entrySet()) {
+				Measure measure = entry.getValue();
+				JSONObject phase = new JSONObject(true);
+				phase.put("name", entry.getKey());
+				phase.put("count", measure.count);
+				phase.put("wallMillis", TimeUnit.NANOSECONDS.toMillis(measure.nanos));
+				if (measure.allocatedBytes >= 0) {
+					phase.put("allocatedBytes", measure.allocatedBytes);
+				}
+				phases.add(phase);
+				summary.append(phases.size() == 1 ? " [" : ", ").append(entry.getKey()).append(" ")
+						.append(TimeUnit.NANOSECONDS.toMillis(measure.nanos)).append("ms");
+			}
+		}
+		json.put("phases", phases);
+		if (!phases.isEmpty()) {
+			summary.append("]");
+		}
+		File file = new File(buildDirectory, FILE_NAME);
+		try {
+			Files.createDirectories(buildDirectory.toPath());
+			//每次执行追加一行JSON
+			Files.write(file.toPath(), (json.toJSONString() + "\n").getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+		catch (IOException ex) {
+			log.warn("Unable to write " + file + ": " + ex.getMessage());
+		}
+		log.info(summary);
+	}
+
+	private static long getAllocatedBytes() {
+		return (threadMXBean != null) ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadMXBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean
+					&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+					&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()) {
+				return (com.sun.management.ThreadMXBean) bean;
+			}
+		}
+		catch (LinkageError ex) {
+			// Not a HotSpot JVM
+		}
+		return null;
+	}
+
+	/**
+	 * A phase being measured.
+	 */
+	final class Phase implements AutoCloseable {
+
+		private final String name;
+
+		private final long startTime;
+
+		private final long startAllocatedBytes;
+
+		private Phase(String name) {
+			this.name = name;
+			this.startAllocatedBytes = getAllocatedBytes();
+			this.startTime = System.nanoTime();
+		}
+
+		/**
+		 * End the phase and record it. Must be called by the thread that started it.
+		 */
+		@Override
+		public void close() {
+			long nanos = System.nanoTime() - this.startTime;
+			long allocatedBytes = (this.startAllocatedBytes >= 0) ? getAllocatedBytes() - this.startAllocatedBytes
+					: -1;
+			synchronized (PhaseMetrics.this) {
+				PhaseMetrics.this.measures.computeIfAbsent(this.name, (key) -> new Measure()).add(nanos,
+						allocatedBytes);
+			}
+		}
+
+	}
+
+	/**
+	 * The accumulated measures of a phase.
+	 */
+	private static final class Measure {
+
+		private int count;
+
+		private long nanos;
+
+		private long allocatedBytes;
+
+		private void add(long nanos, long allocatedBytes) {
+			this.nanos += nanos;
+			if (allocatedBytes < 0 || this.allocatedBytes < 0) {
+				this.allocatedBytes = -1;
+			}
+			else {
+				this.allocatedBytes += allocatedBytes;
+			}
+			this.count++;
+		}
+
+	}
+
+}
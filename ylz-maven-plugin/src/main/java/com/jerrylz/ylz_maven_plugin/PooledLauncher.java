@@ -0,0 +1,313 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Main class of an idle JVM of a {@link JvmPool}. The JVM is booted with the JVM
+ * arguments, agents and classpath of the application and waits on a local socket for a
+ * launch request. The output of the application is then sent back over the socket in
+ * frames, followed by a frame holding the exit status once the JVM shuts down. The exit
+ * status is {@code 1} if the main method fails and {@code 0} otherwise, an exit status
+ * passed to {@link System#exit(int)} by the application cannot be observed.
+ * This class is loaded from the boot classpath and must only rely on the JDK and on the
+ * classes of the plugin that do, such as {@link RestartClassLoader}.
+ * JVM池中空闲JVM的启动类
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+public final class PooledLauncher {
+
+	static final String COMMAND_RUN = "run";
+
+	static final String COMMAND_SHUTDOWN = "shutdown";
+
+	static final String PROPERTY_KEY = "key";
+
+	static final String PROPERTY_TOKEN = "token";
+
+	static final String PROPERTY_PORT = "port";
+
+	/**
+	 * Length of the frame that holds the exit status, output frames have a positive
+	 * length.
+	 */
+	static final int EXIT_FRAME = -1;
+
+	private static volatile int exitStatus;
+
+	/**
+	 * System property holding a class list, in the format of
+	 * {@code -XX:DumpLoadedClassList}, of the classes to load while the JVM is idle.
+	 */
+	static final String CLASS_LIST_PROPERTY = "ylz.warmup.classlist";
+
+	private PooledLauncher() {
+	}
+
+	/**
+	 * Wait for a launch request.
+	 * @param args the pool file and the idle timeout in milliseconds
+	 * @throws Exception if the launcher fails
+	 */
+	public static void main(String[] args) throws Exception {
+		File poolFile = new File(args[0]);
+		int idleTimeout = Integer.parseInt(args[1]);
+		Properties properties = load(poolFile);
+		String token = properties.getProperty(PROPERTY_TOKEN);
+		preload(System.getProperty(CLASS_LIST_PROPERTY));
+		Socket socket = null;
+		try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			serverSocket.setSoTimeout(idleTimeout);
+			properties.setProperty(PROPERTY_PORT, Integer.toString(serverSocket.getLocalPort()));
+			publish(poolFile, properties);
+			while (socket == null) {
+				Socket candidate;
+				try {
+					candidate = serverSocket.accept();
+				}
+				catch (SocketTimeoutException ex) {
+					//空闲超时
+					poolFile.delete();
+					getLogFile(poolFile).delete();
+					return;
+				}
+				DataInputStream input = new DataInputStream(candidate.getInputStream());
+				if (!token.equals(input.readUTF())) {
+					candidate.close();
+					continue;
+				}
+				if (COMMAND_SHUTDOWN.equals(input.readUTF())) {
+					candidate.close();
+					poolFile.delete();
+					return;
+				}
+				socket = candidate;
+			}
+		}
+		DataInputStream input = new DataInputStream(socket.getInputStream());
+		String startClassName = input.readUTF();
+		String[] applicationArguments = new String[input.readInt()];
+		for (int i = 0; i < applicationArguments.length; i++) {
+			applicationArguments[i] = input.readUTF();
+		}
+		URL[] classpath = new URL[input.readInt()];
+		for (int i = 0; i < classpath.length; i++) {
+			classpath[i] = new File(input.readUTF()).toURI().toURL();
+		}
+		launch(socket, startClassName, classpath, applicationArguments);
+	}
+
+	/**
+	 * Load the classes of the specified class list in the background, without
+	 * initializing them.
+	 * @param classList the class list or {@code null}
+	 */
+	private static void preload(String classList) {
+		if (classList == null || !new File(classList).isFile()) {
+			return;
+		}
+		Thread preloader = new Thread(() -> {
+			ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+			try (BufferedReader reader = Files.newBufferedReader(Paths.get(classList), StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					//格式为"java/lang/Object"或"java/lang/Object id: 0",跳过注释与lambda条目
+					if (line.isEmpty() || line.startsWith("#") || line.startsWith("@")) {
+						continue;
+					}
+					int space = line.indexOf(' ');
+					String name = ((space != -1) ? line.substring(0, space) : line).replace('/', '.');
+					try {
+						Class.forName(name, false, classLoader);
+					}
+					catch (Throwable ex) {
+						// Not on the classpath of this JVM
+					}
+				}
+			}
+			catch (IOException ex) {
+				// Best effort
+			}
+		}, "ylz-preload");
+		preloader.setDaemon(true);
+		preloader.start();
+	}
+
+	private static void launch(Socket socket, String startClassName, URL[] classpath, String[] args)
+			throws Exception {
+		FramedOutputStream framedOutput = new FramedOutputStream(socket.getOutputStream());
+		PrintStream output = new PrintStream(framedOutput, true);
+		System.setOut(output);
+		System.setErr(output);
+		//退出前发送退出状态
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			output.flush();
+			framedOutput.exit(exitStatus);
+		}));
+		startWatchdog(socket.getInputStream());
+		try {
+			ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+			if (classpath.length > 0) {
+				//项目的类在JVM启动后才编译完成,由子类加载器优先加载
+				classLoader = new RestartClassLoader(classpath, classLoader);
+				Thread.currentThread().setContextClassLoader(classLoader);
+			}
+			Class<?> startClass = Class.forName(startClassName, false, classLoader);
+			Method mainMethod = startClass.getMethod("main", String[].class);
+			mainMethod.setAccessible(true);
+			mainMethod.invoke(null, new Object[] { args });
+		}
+		catch (InvocationTargetException ex) {
+			ex.getCause().printStackTrace();
+			exit(1);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			exit(1);
+		}
+	}
+
+	private static void exit(int status) {
+		exitStatus = status;
+		System.exit(status);
+	}
+
+	/**
+	 * Exit as soon as the build that requested the launch goes away.
+	 * @param inputStream the input stream of the launch connection
+	 */
+	private static void startWatchdog(InputStream inputStream) {
+		Thread watchdog = new Thread(() -> {
+			try {
+				while (inputStream.read() != -1) {
+					// Nothing is expected once the launch request has been received
+				}
+			}
+			catch (IOException ex) {
+				// Connection reset
+			}
+			System.exit(130);
+		}, "ylz-pool-watchdog");
+		watchdog.setDaemon(true);
+		watchdog.start();
+	}
+
+	/**
+	 * Stream writing each chunk of output as a frame of its length followed by its bytes.
+	 */
+	private static final class FramedOutputStream extends OutputStream {
+
+		private final DataOutputStream output;
+
+		private boolean exited;
+
+		private FramedOutputStream(OutputStream output) {
+			this.output = new DataOutputStream(output);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			if (!this.exited && len > 0) {
+				this.output.writeInt(len);
+				this.output.write(b, off, len);
+			}
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			this.output.flush();
+		}
+
+		/**
+		 * Write the exit frame, the output written afterwards is dropped.
+		 * @param status the exit status
+		 */
+		private synchronized void exit(int status) {
+			if (this.exited) {
+				return;
+			}
+			this.exited = true;
+			try {
+				this.output.writeInt(EXIT_FRAME);
+				this.output.writeInt(status);
+				this.output.flush();
+			}
+			catch (IOException ex) {
+				// The build went away
+			}
+		}
+
+	}
+
+	/**
+	 * Return the file that receives the output of the idle JVM, as named by
+	 * {@link JvmPool#getLogFile(File)}.
+	 * @param poolFile the pool file of the JVM
+	 * @return the log file
+	 */
+	private static File getLogFile(File poolFile) {
+		String name = poolFile.getName();
+		return new File(poolFile.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".log");
+	}
+
+	private static Properties load(File poolFile) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream inputStream = new FileInputStream(poolFile)) {
+			properties.load(inputStream);
+		}
+		return properties;
+	}
+
+	private static void publish(File poolFile, Properties properties) throws IOException {
+		File temp = new File(poolFile.getParentFile(), poolFile.getName() + ".tmp");
+		try (OutputStream outputStream = new FileOutputStream(temp)) {
+			properties.store(outputStream, null);
+		}
+		Files.move(temp.toPath(), poolFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
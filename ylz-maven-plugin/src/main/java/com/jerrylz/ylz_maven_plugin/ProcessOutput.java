@@ -0,0 +1,225 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The output of an application, buffered in an {@link OutputRingBuffer}. A dedicated
+ * thread writes it to a {@link RotatingLogFile} and hands it over to the console thread
+ * through a second buffer. The writer is never slowed down by the console: the output the
+ * console cannot keep up with is dropped from the console buffer and summarized. The log
+ * file receives all of it: when the log thread lags behind, the writer waits for room,
+ * which only slows the application down if the file system cannot keep up. Must be
+ * written by a single thread.
+ * 应用输出（异步写入滚动日志文件和控制台,日志文件不丢数据）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ProcessOutput extends OutputStream {
+
+	static final int CHUNK_SIZE = 8192;
+
+	static final long JOIN_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+	private final OutputRingBuffer buffer;
+
+	private final OutputRingBuffer consoleBuffer;
+
+	private final RotatingLogFile logFile;
+
+	private final WritableByteChannel console = Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+
+	private final Log log;
+
+	private final long startTime = System.nanoTime();
+
+	private final List<Thread> threads = new ArrayList<>();
+
+	private volatile long timeToFirstOutput = -1;
+
+	/**
+	 * Create a new instance and start the threads that write the output.
+	 * @param bufferSize the size of the output buffer in bytes
+	 * @param logFile the file that receives the full output
+	 * @param log the log to use
+	 */
+	ProcessOutput(int bufferSize, RotatingLogFile logFile, Log log) {
+		this.buffer = new OutputRingBuffer(bufferSize);
+		this.consoleBuffer = new OutputRingBuffer(bufferSize);
+		this.logFile = logFile;
+		this.log = log;
+		startThread("ylz-output-log", this::writeLog);
+		startThread("ylz-output-console", this::writeConsole);
+	}
+
+	private void startThread(String name, Runnable task) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		thread.start();
+		this.threads.add(thread);
+	}
+
+	@Override
+	public void write(int b) {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	/**
+	 * Write the specified output, only waiting for the log thread, never for the console.
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) {
+		if (len <= 0) {
+			return;
+		}
+		if (this.timeToFirstOutput < 0) {
+			this.timeToFirstOutput = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startTime);
+		}
+		this.buffer.put(b, off, len);
+	}
+
+	/**
+	 * Signal that the application will not write anything more.
+	 */
+	void finish() {
+		this.buffer.close();
+	}
+
+	/**
+	 * Write the output to the log file and hand it over to the console thread.
+	 */
+	private void writeLog() {
+		WritableByteChannel logAndConsole = new LogAndConsoleChannel();
+		try {
+			while (this.buffer.drainTo(logAndConsole, CHUNK_SIZE) != -1) {
+				// Keep draining
+			}
+		}
+		catch (IOException ex) {
+			this.log.warn("Unable to write the output of the application to " + this.logFile.getFile() + ": "
+					+ ex.getMessage());
+			//不再读取,避免写入输出的线程一直等待
+			this.buffer.abandon();
+		}
+		finally {
+			this.consoleBuffer.close();
+		}
+	}
+
+	private void writeConsole() {
+		long dropped = 0;
+		try {
+			while (this.consoleBuffer.drainTo(this.console, CHUNK_SIZE) != -1) {
+				//控制台跟不上时丢弃的输出只做汇总,完整输出在日志文件中
+				long totalDropped = this.consoleBuffer.getDropped();
+				if (totalDropped != dropped) {
+					writeNotice(this.console, (totalDropped - dropped) + " bytes of output not shown, see "
+							+ this.logFile.getFile());
+					dropped = totalDropped;
+				}
+			}
+		}
+		catch (IOException ex) {
+			// Console closed
+		}
+	}
+
+	private void writeNotice(WritableByteChannel channel, String notice) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap((System.lineSeparator() + "[ylz] ... " + notice + " ..."
+				+ System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	/**
+	 * Channel writing everything to the log file and offering a copy to the console
+	 * buffer.
+	 */
+	private final class LogAndConsoleChannel implements WritableByteChannel {
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			int length = source.remaining();
+			ProcessOutput.this.consoleBuffer.offer(source.array(), source.arrayOffset() + source.position(), length);
+			while (source.hasRemaining()) {
+				ProcessOutput.this.logFile.write(source);
+			}
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return ProcessOutput.this.logFile.isOpen();
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+	/**
+	 * Return the file that receives the full output.
+	 * @return the log file
+	 */
+	File getLogFile() {
+		return this.logFile.getFile();
+	}
+
+	/**
+	 * Return the time it took the application to write its first output.
+	 * @return the time in milliseconds or {@code -1} if it did not write anything yet
+	 */
+	long getTimeToFirstOutput() {
+		return this.timeToFirstOutput;
+	}
+
+	/**
+	 * Wait for the remaining output to be written and close the log file.
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+		for (Thread thread : this.threads) {
+			try {
+				thread.join(JOIN_TIMEOUT);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		this.logFile.close();
+	}
+
+}
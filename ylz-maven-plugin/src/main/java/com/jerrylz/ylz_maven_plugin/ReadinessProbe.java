@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Poll the readiness of an application with an exponential backoff: the first attempts
+ * are close to each other so that a fast application is detected early, the following
+ * ones are spaced out up to a maximum interval until the timeout is reached.
+ * 就绪状态轮询（指数退避）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class ReadinessProbe {
+
+	private final long initialWait;
+
+	private final long maxWait;
+
+	private final long timeout;
+
+	private final Log log;
+
+	private final Object lock = new Object();
+
+	private int attempts;
+
+	/**
+	 * Create a new instance.
+	 * @param initialWait the time to wait after the first attempt in milliseconds
+	 * @param maxWait the maximum time to wait between two attempts in milliseconds
+	 * @param timeout the time after which the application is considered as failed to
+	 * start, in milliseconds
+	 * @param log the log to use
+	 */
+	ReadinessProbe(long initialWait, long maxWait, long timeout, Log log) {
+		this.initialWait = Math.max(1, initialWait);
+		this.maxWait = Math.max(this.initialWait, maxWait);
+		this.timeout = timeout;
+		this.log = log;
+	}
+
+	/**
+	 * Wait until the specified check succeeds.
+	 * 等待应用就绪
+	 * @param check the readiness check
+	 * @throws MojoExecutionException if the check failed or the application is not ready
+	 * before the timeout
+	 */
+	void await(Check check) throws MojoExecutionException {
+		this.log.debug("Waiting for spring application to start...");
+		long start = System.nanoTime();
+		long wait = this.initialWait;
+		while (true) {
+			this.attempts++;
+			if (check.isReady()) {
+				return;
+			}
+			long remaining = this.timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			if (remaining <= 0) {
+				throw new MojoExecutionException(
+						"Spring application did not start before the configured timeout (" + this.timeout + "ms)");
+			}
+			long delay = Math.min(wait, remaining);
+			this.log.debug("Spring application is not ready yet, waiting " + delay + "ms (attempt " + this.attempts
+					+ ")");
+			sleep(delay);
+			//等待时间翻倍,不超过最大值
+			wait = Math.min(wait * 2, this.maxWait);
+		}
+	}
+
+	/**
+	 * Return the number of readiness checks performed so far.
+	 * @return the number of attempts
+	 */
+	int getAttempts() {
+		return this.attempts;
+	}
+
+	private void sleep(long wait) {
+		synchronized (this.lock) {
+			try {
+				this.lock.wait(wait);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for Spring Boot app to start.");
+			}
+		}
+	}
+
+	/**
+	 * A readiness check.
+	 */
+	@FunctionalInterface
+	interface Check {
+
+		/**
+		 * Check if the application is ready.
+		 * @return {@code true} if the application is ready
+		 * @throws MojoExecutionException if the application will never be ready
+		 */
+		boolean isReady() throws MojoExecutionException;
+
+	}
+
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serve the resources of the source resource directories in place of their copies in
+ * the classes directory, without deleting the copies. The resource names are indexed
+ * once when the overlay is created and the index is then kept up to date from file
+ * system events. When a name is in the index, its copy in the classes directory is
+ * hidden from {@link ClassLoader#getResources(String)} so that it only appears once.
+ * This class is loaded from the boot classpath of a forked JVM and must only rely on the
+ * JDK.
+ * 资源覆盖层（优先使用源资源目录,不删除classes目录中的副本）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+final class ResourceOverlay implements Closeable {
+
+	/**
+	 * System property holding the resource directories of a forked JVM, separated by
+	 * the path separator, in order of precedence.
+	 */
+	static final String RESOURCES_PROPERTY = "ylz.overlay.resources";
+
+	/**
+	 * System property holding the classes directory of a forked JVM.
+	 */
+	static final String CLASSES_PROPERTY = "ylz.overlay.classes";
+
+	private final List<Path> resourceDirectories;
+
+	private final List<String> hiddenPrefixes = new ArrayList<>();
+
+	/**
+	 * The file serving each resource name.
+	 */
+	private final Map<String, File> index = new ConcurrentHashMap<>();
+
+	private WatchService watchService;
+
+	/**
+	 * Create a new instance and index the resource directories.
+	 * @param resourceDirectories the resource directories, in order of precedence
+	 * @param classesDirectory the classes directory holding the copies of the resources
+	 * @throws IOException if the directories could not be indexed
+	 */
+	ResourceOverlay(List<File> resourceDirectories, File classesDirectory) throws IOException {
+		this.resourceDirectories = new ArrayList<>();
+		for (File directory : resourceDirectories) {
+			Path path = directory.toPath().toAbsolutePath().normalize();
+			this.resourceDirectories.add(path);
+			this.hiddenPrefixes.add(toUrlPrefix(directory));
+		}
+		this.hiddenPrefixes.add(toUrlPrefix(classesDirectory));
+		for (Path directory : this.resourceDirectories) {
+			if (Files.isDirectory(directory)) {
+				indexTree(directory);
+			}
+		}
+	}
+
+	/**
+	 * Create an overlay from the {@link #RESOURCES_PROPERTY} and
+	 * {@link #CLASSES_PROPERTY} system properties.
+	 * @return the overlay or {@code null} if the properties are not set
+	 * @throws IOException if the directories could not be indexed
+	 */
+	static ResourceOverlay fromSystemProperties() throws IOException {
+		String resources = System.getProperty(RESOURCES_PROPERTY);
+		String classes = System.getProperty(CLASSES_PROPERTY);
+		if (resources == null || classes == null) {
+			return null;
+		}
+		List<File> directories = new ArrayList<>();
+		for (String directory : resources.split(File.pathSeparator)) {
+			if (!directory.isEmpty()) {
+				directories.add(new File(directory));
+			}
+		}
+		return new ResourceOverlay(directories, new File(classes));
+	}
+
+	/**
+	 * Return the resource with the specified name if it is served by the overlay.
+	 * @param name the name of the resource
+	 * @return the url of the resource or {@code null}
+	 */
+	URL getResource(String name) {
+		File file = this.index.get(name);
+		if (file == null) {
+			return null;
+		}
+		try {
+			return file.toURI().toURL();
+		}
+		catch (MalformedURLException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Return the resources with the specified name: the one of the overlay first, then
+	 * the specified resources that are not a copy of it.
+	 * @param name the name of the resources
+	 * @param resources the resources found by the class loader
+	 * @return the resources
+	 */
+	Enumeration<URL> getResources(String name, Enumeration<URL> resources) {
+		URL resource = getResource(name);
+		if (resource == null) {
+			return resources;
+		}
+		List<URL> result = new ArrayList<>();
+		result.add(resource);
+		while (resources.hasMoreElements()) {
+			URL candidate = resources.nextElement();
+			if (!isHidden(candidate)) {
+				result.add(candidate);
+			}
+		}
+		return Collections.enumeration(result);
+	}
+
+	private boolean isHidden(URL url) {
+		String value = url.toString();
+		for (String prefix : this.hiddenPrefixes) {
+			if (value.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Keep the index up to date from file system events in a daemon thread until the
+	 * overlay is closed.
+	 * 监听资源目录变化,增量更新索引
+	 * @throws IOException if the directories could not be watched
+	 */
+	void watch() throws IOException {
+		if (this.watchService != null || this.resourceDirectories.isEmpty()) {
+			return;
+		}
+		this.watchService = this.resourceDirectories.get(0).getFileSystem().newWatchService();
+		for (Path directory : this.resourceDirectories) {
+			if (Files.isDirectory(directory)) {
+				register(directory);
+			}
+		}
+		Thread thread = new Thread(this::processEvents, "ylz-resource-overlay");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void processEvents() {
+		try {
+			while (true) {
+				WatchKey key = this.watchService.take();
+				Path directory = (Path) key.watchable();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						//事件丢失时重建索引
+						reindex();
+						continue;
+					}
+					Path path = directory.resolve((Path) event.context());
+					if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+						register(path);
+						indexTree(path);
+					}
+					else {
+						update(path);
+					}
+				}
+				key.reset();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ClosedWatchServiceException | IOException ex) {
+			// Closed or no longer watchable
+		}
+	}
+
+	private void register(Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+					throws IOException {
+				directory.register(ResourceOverlay.this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	private void indexTree(Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				update(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	private void reindex() throws IOException {
+		this.index.clear();
+		for (Path directory : this.resourceDirectories) {
+			if (Files.isDirectory(directory)) {
+				indexTree(directory);
+			}
+		}
+	}
+
+	/**
+	 * Update the entry of the resource at the specified path, or the entries under it if
+	 * it was a directory that has been deleted.
+	 * @param path the path of the file that changed
+	 */
+	private void update(Path path) {
+		String name = getName(path);
+		if (name == null) {
+			return;
+		}
+		if (this.index.containsKey(name) || Files.isRegularFile(path)) {
+			resolve(name);
+		}
+		else {
+			//删除的是目录,更新其下所有条目
+			String prefix = name + "/";
+			for (String candidate : new ArrayList<>(this.index.keySet())) {
+				if (candidate.startsWith(prefix)) {
+					resolve(candidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Index the resource with the specified name against the first resource directory
+	 * that contains it.
+	 * @param name the name of the resource
+	 */
+	private void resolve(String name) {
+		for (Path directory : this.resourceDirectories) {
+			File file = directory.resolve(name).toFile();
+			if (file.isFile()) {
+				this.index.put(name, file);
+				return;
+			}
+		}
+		this.index.remove(name);
+	}
+
+	private String getName(Path path) {
+		Path absolute = path.toAbsolutePath().normalize();
+		for (Path directory : this.resourceDirectories) {
+			if (absolute.startsWith(directory) && !absolute.equals(directory)) {
+				return directory.relativize(absolute).toString().replace(File.separatorChar, '/');
+			}
+		}
+		return null;
+	}
+
+	private static String toUrlPrefix(File directory) throws MalformedURLException {
+		String url = directory.getAbsoluteFile().toURI().toURL().toString();
+		return url.endsWith("/") ? url : url + "/";
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.watchService != null) {
+			this.watchService.close();
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Throwaway {@link ClassLoader} for the classes and resources of the project. The
+ * dependencies are loaded by a long-lived parent so that a restart only has to load the
+ * project classes again. Classes and resources of the project take precedence over the
+ * ones of the parent, as they do on a flat classpath where the project comes first.
+ * 重启类加载器（只加载项目目录,依赖由父加载器加载）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class RestartClassLoader extends URLClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	private final ResourceOverlay overlay;
+
+	private final boolean closeOverlay;
+
+	/**
+	 * Create a new instance.
+	 * @param urls the urls of the project directories
+	 * @param parent the class loader of the dependencies
+	 */
+	RestartClassLoader(URL[] urls, ClassLoader parent) {
+		this(urls, parent, null);
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param urls the urls of the project directories
+	 * @param parent the class loader of the dependencies
+	 * @param overlay the resource overlay to serve resources from first or {@code null}
+	 */
+	RestartClassLoader(URL[] urls, ClassLoader parent, ResourceOverlay overlay) {
+		this(urls, parent, overlay, false);
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param urls the urls of the project directories
+	 * @param parent the class loader of the dependencies
+	 * @param overlay the resource overlay to serve resources from first or {@code null}
+	 * @param closeOverlay whether the overlay is closed with the class loader, rather than
+	 * shared with the class loaders of the next restarts
+	 */
+	RestartClassLoader(URL[] urls, ClassLoader parent, ResourceOverlay overlay, boolean closeOverlay) {
+		super(urls, parent);
+		this.overlay = overlay;
+		this.closeOverlay = closeOverlay;
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> loadedClass = findLoadedClass(name);
+			if (loadedClass == null) {
+				//优先从项目目录加载
+				try {
+					loadedClass = findClass(name);
+				}
+				catch (ClassNotFoundException ex) {
+					loadedClass = getParent().loadClass(name);
+				}
+			}
+			if (resolve) {
+				resolveClass(loadedClass);
+			}
+			return loadedClass;
+		}
+	}
+
+	@Override
+	public URL getResource(String name) {
+		URL resource = (this.overlay != null) ? this.overlay.getResource(name) : null;
+		if (resource != null) {
+			return resource;
+		}
+		resource = findResource(name);
+		return (resource != null) ? resource : getParent().getResource(name);
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		List<URL> resources = new ArrayList<>(Collections.list(findResources(name)));
+		resources.addAll(Collections.list(getParent().getResources(name)));
+		Enumeration<URL> result = Collections.enumeration(resources);
+		return (this.overlay != null) ? this.overlay.getResources(name, result) : result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		}
+		finally {
+			//停止监听资源目录
+			if (this.closeOverlay && this.overlay != null) {
+				this.overlay.close();
+			}
+		}
+	}
+
+}
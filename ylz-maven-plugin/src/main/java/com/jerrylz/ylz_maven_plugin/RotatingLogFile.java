@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A log file that is rotated once it reaches a maximum size: {@code output.log} is
+ * renamed to {@code output.log.1}, {@code output.log.1} to {@code output.log.2} and so
+ * on. The file of the previous run is rotated when a new one is opened.
+ * 滚动日志文件
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class RotatingLogFile implements WritableByteChannel {
+
+	private final File file;
+
+	private final long maxSize;
+
+	private final int maxBackups;
+
+	private FileChannel channel;
+
+	private long size;
+
+	/**
+	 * Create a new instance.
+	 * @param file the log file
+	 * @param maxSize the size in bytes after which the file is rotated
+	 * @param maxBackups the number of rotated files to keep
+	 * @throws IOException if the file could not be opened
+	 */
+	RotatingLogFile(File file, long maxSize, int maxBackups) throws IOException {
+		this.file = file;
+		this.maxSize = maxSize;
+		this.maxBackups = maxBackups;
+		Files.createDirectories(file.getParentFile().toPath());
+		if (file.length() > 0) {
+			rotate();
+		}
+		open();
+	}
+
+	File getFile() {
+		return this.file;
+	}
+
+	@Override
+	public synchronized int write(ByteBuffer source) throws IOException {
+		if (this.size > 0 && this.size + source.remaining() > this.maxSize) {
+			this.channel.close();
+			rotate();
+			open();
+		}
+		int written = this.channel.write(source);
+		this.size += written;
+		return written;
+	}
+
+	private void open() throws IOException {
+		this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.size = 0;
+	}
+
+	private void rotate() throws IOException {
+		if (this.maxBackups <= 0) {
+			return;
+		}
+		Files.deleteIfExists(backup(this.maxBackups).toPath());
+		for (int i = this.maxBackups - 1; i >= 1; i--) {
+			File backup = backup(i);
+			if (backup.exists()) {
+				Files.move(backup.toPath(), backup(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		Files.move(this.file.toPath(), backup(1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private File backup(int index) {
+		return new File(this.file.getParentFile(), this.file.getName() + "." + index);
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return this.channel.isOpen();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.channel.close();
+	}
+
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Non-blocking TCP proxy that spreads the incoming connections over a set of backends in
+ * round-robin. A single selector thread copies the bytes in both directions. A backend
+ * that refuses the connection is skipped.
+ * 轮询转发的TCP代理（非阻塞）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class RoundRobinProxy implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InetSocketAddress address;
+
+	private final List<InetSocketAddress> backends;
+
+	private final Log log;
+
+	private final AtomicLongArray connections;
+
+	private Selector selector;
+
+	private ServerSocketChannel serverChannel;
+
+	private Thread thread;
+
+	private int next;
+
+	/**
+	 * Create a new instance.
+	 * @param address the address to listen on
+	 * @param backends the addresses of the backends
+	 * @param log the log to use
+	 */
+	RoundRobinProxy(InetSocketAddress address, List<InetSocketAddress> backends, Log log) {
+		this.address = address;
+		this.backends = new ArrayList<>(backends);
+		this.log = log;
+		this.connections = new AtomicLongArray(backends.size());
+	}
+
+	/**
+	 * Allocate the specified number of distinct free ports on the loopback interface.
+	 * 分配空闲端口
+	 * @param count the number of ports
+	 * @return the ports
+	 * @throws IOException if the ports could not be allocated
+	 */
+	static List<Integer> allocatePorts(int count) throws IOException {
+		List<ServerSocket> sockets = new ArrayList<>();
+		List<Integer> ports = new ArrayList<>();
+		try {
+			//同时持有所有端口,保证端口互不相同
+			for (int i = 0; i < count; i++) {
+				ServerSocket socket = new ServerSocket(0);
+				sockets.add(socket);
+				ports.add(socket.getLocalPort());
+			}
+		}
+		finally {
+			for (ServerSocket socket : sockets) {
+				socket.close();
+			}
+		}
+		return ports;
+	}
+
+	/**
+	 * Start listening and forwarding in a background thread.
+	 * @throws IOException if the proxy could not listen on its address
+	 */
+	void start() throws IOException {
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.socket().setReuseAddress(true);
+		this.serverChannel.bind(this.address);
+		this.serverChannel.configureBlocking(false);
+		this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+		this.thread = new Thread(this::run, "ylz-proxy");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Return the number of connections forwarded to each backend.
+	 * @return the number of connections, in the order of the backends
+	 */
+	long[] getConnectionCounts() {
+		long[] counts = new long[this.connections.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = this.connections.get(i);
+		}
+		return counts;
+	}
+
+	private void run() {
+		try {
+			while (this.selector.isOpen()) {
+				this.selector.select();
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					}
+					else {
+						((Endpoint) key.attachment()).handle(key);
+					}
+				}
+			}
+		}
+		catch (ClosedSelectorException ex) {
+			// Closed
+		}
+		catch (IOException ex) {
+			this.log.warn("Proxy stopped: " + ex.getMessage());
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel client = this.serverChannel.accept();
+		if (client == null) {
+			return;
+		}
+		client.configureBlocking(false);
+		client.socket().setTcpNoDelay(true);
+		Connection connection = new Connection(client);
+		connection.clientKey = client.register(this.selector, SelectionKey.OP_READ, connection.clientEndpoint);
+		connect(connection);
+	}
+
+	private void connect(Connection connection) {
+		while (connection.attempts < this.backends.size()) {
+			connection.attempts++;
+			//轮询选择后端
+			int index = this.next;
+			this.next = (this.next + 1) % this.backends.size();
+			try {
+				SocketChannel backend = SocketChannel.open();
+				backend.configureBlocking(false);
+				backend.socket().setTcpNoDelay(true);
+				connection.backend = backend;
+				connection.backendIndex = index;
+				if (backend.connect(this.backends.get(index))) {
+					connected(connection);
+				}
+				else {
+					connection.backendKey = backend.register(this.selector, SelectionKey.OP_CONNECT,
+							connection.backendEndpoint);
+				}
+				return;
+			}
+			catch (IOException ex) {
+				closeQuietly(connection.backend);
+			}
+		}
+		connection.close();
+	}
+
+	private void connected(Connection connection) throws IOException {
+		this.connections.incrementAndGet(connection.backendIndex);
+		if (connection.backendKey == null) {
+			connection.backendKey = connection.backend.register(this.selector, 0, connection.backendEndpoint);
+		}
+		connection.update();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.selector != null) {
+			this.selector.close();
+			this.serverChannel.close();
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			}
+			catch (IOException ex) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * The bytes flowing in one direction of a connection.
+	 */
+	private static final class Flow {
+
+		/**
+		 * Buffer in write mode, holding the bytes read but not written yet. A heap buffer
+		 * is cheap to allocate for each connection, the selector thread copying it through
+		 * its own cached direct buffer.
+		 */
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		private boolean eof;
+
+		private boolean shutdown;
+
+		private boolean hasPendingBytes() {
+			return this.buffer.position() > 0;
+		}
+
+		private boolean canRead() {
+			return !this.eof && this.buffer.hasRemaining();
+		}
+
+	}
+
+	/**
+	 * One side of a proxied connection.
+	 */
+	private final class Endpoint {
+
+		private final Connection connection;
+
+		private final boolean client;
+
+		private Endpoint(Connection connection, boolean client) {
+			this.connection = connection;
+			this.client = client;
+		}
+
+		private void handle(SelectionKey key) {
+			Connection connection = this.connection;
+			try {
+				if (key.isConnectable()) {
+					try {
+						connection.backend.finishConnect();
+					}
+					catch (IOException ex) {
+						//后端不可用时尝试下一个
+						key.cancel();
+						closeQuietly(connection.backend);
+						connection.backendKey = null;
+						connect(connection);
+						return;
+					}
+					connected(connection);
+					return;
+				}
+				if (key.isReadable()) {
+					Flow flow = this.client ? connection.upstream : connection.downstream;
+					if (((SocketChannel) key.channel()).read(flow.buffer) == -1) {
+						flow.eof = true;
+					}
+				}
+				connection.flush();
+				connection.update();
+			}
+			catch (IOException ex) {
+				connection.close();
+			}
+		}
+
+	}
+
+	/**
+	 * A client connection and the backend connection it is forwarded to.
+	 */
+	private final class Connection {
+
+		private final SocketChannel client;
+
+		private final Endpoint clientEndpoint = new Endpoint(this, true);
+
+		private final Endpoint backendEndpoint = new Endpoint(this, false);
+
+		private final Flow upstream = new Flow();
+
+		private final Flow downstream = new Flow();
+
+		private SelectionKey clientKey;
+
+		private SocketChannel backend;
+
+		private SelectionKey backendKey;
+
+		private int backendIndex;
+
+		private int attempts;
+
+		private Connection(SocketChannel client) {
+			this.client = client;
+		}
+
+		private boolean isConnected() {
+			return this.backend != null && this.backend.isConnected();
+		}
+
+		private void flush() throws IOException {
+			if (isConnected()) {
+				flush(this.upstream, this.backend);
+				flush(this.downstream, this.client);
+			}
+		}
+
+		private void flush(Flow flow, SocketChannel target) throws IOException {
+			if (flow.hasPendingBytes()) {
+				flow.buffer.flip();
+				target.write(flow.buffer);
+				flow.buffer.compact();
+			}
+			if (flow.eof && !flow.hasPendingBytes() && !flow.shutdown) {
+				//转发半关闭
+				target.shutdownOutput();
+				flow.shutdown = true;
+			}
+		}
+
+		private void update() {
+			if (this.upstream.shutdown && this.downstream.shutdown) {
+				close();
+				return;
+			}
+			int clientOps = (this.upstream.canRead() ? SelectionKey.OP_READ : 0)
+					| (this.downstream.hasPendingBytes() ? SelectionKey.OP_WRITE : 0);
+			this.clientKey.interestOps(clientOps);
+			if (this.backendKey != null && isConnected()) {
+				int backendOps = (this.downstream.canRead() ? SelectionKey.OP_READ : 0)
+						| (this.upstream.hasPendingBytes() ? SelectionKey.OP_WRITE : 0);
+				this.backendKey.interestOps(backendOps);
+			}
+		}
+
+		private void close() {
+			closeQuietly(this.client);
+			closeQuietly(this.backend);
+		}
+
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Start a spring application. Contrary to the {@code run} goal, this does not block and
+ * allows other goals to operate on the application. This goal is typically used in
+ * integration test scenario where the application is started before a test suite and
+ * stopped after. The readiness of the application is polled with an exponential backoff
+ * and the time it took to be ready is exposed as the
+ * {@code spring-boot.start.timeToReady} project property.
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ * @see StopMojo
+ */
+@Mojo(name = "start", requiresProject = true, defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST,
+		requiresDependencyResolution = ResolutionScope.TEST)
+public class StartMojo extends AbstractRunMojo {
+
+	/**
+	 * Name of the project property holding the time it took the application to be ready,
+	 * in milliseconds.
+	 */
+	static final String TIME_TO_READY_PROPERTY = "spring-boot.start.timeToReady";
+
+	/**
+	 * Name of the project property holding the pid of the forked process, used by the
+	 * {@code stop} goal to attach to it.
+	 */
+	static final String PID_PROPERTY = "spring-boot.start.pid";
+
+	/**
+	 * Name of the report written once the application is ready, in the plugin work
+	 * directory. It also holds the pid and JMX port of the forked process, used by the
+	 * {@code stop} goal to connect to it.
+	 */
+	static final String REPORT_FILE_NAME = "start-report.json";
+
+	/**
+	 * The JMX name of the automatically deployed MBean managing the lifecycle of the
+	 * spring application.
+	 */
+	@Parameter
+	private String jmxName = SpringApplicationAdminClient.DEFAULT_OBJECT_NAME;
+
+	/**
+	 * The port to use to expose the platform MBeanServer if the application is forked and
+	 * cannot be attached by pid. Otherwise a free port is allocated as a fallback and
+	 * recorded for the {@code stop} goal.
+	 */
+	@Parameter
+	private int jmxPort = 9001;
+
+	/**
+	 * The number of milliseconds to wait after the first check of the readiness of the
+	 * application. The interval doubles after each check, up to {@code maxWait}.
+	 */
+	@Parameter(property = "spring-boot.start.wait", defaultValue = "50")
+	private long wait;
+
+	/**
+	 * The maximum number of milliseconds to wait between two checks of the readiness of
+	 * the application.
+	 */
+	@Parameter(property = "spring-boot.start.maxWait", defaultValue = "500")
+	private long maxWait;
+
+	/**
+	 * The number of milliseconds after which the application is considered as failed to
+	 * start.
+	 */
+	@Parameter(property = "spring-boot.start.timeout", defaultValue = "60000")
+	private long timeout;
+
+	@Override
+	protected RunArguments resolveApplicationArguments() {
+		RunArguments applicationArguments = super.resolveApplicationArguments();
+		applicationArguments.getArgs().addLast(ForkedApplication.ENABLE_MBEAN_PROPERTY);
+		applicationArguments.getArgs().addLast(ForkedApplication.JMX_NAME_PROPERTY_PREFIX + this.jmxName);
+		return applicationArguments;
+	}
+
+	@Override
+	protected void addLaunchConfiguration(Fingerprint fingerprint) {
+		super.addLaunchConfiguration(fingerprint);
+		fingerprint.add(this.jmxName);
+	}
+
+	@Override
+	protected void runWithForkedJvm(File workingDirectory, LaunchPlan plan)
+			throws MojoExecutionException, MojoFailureException {
+		LaunchPlan launchPlan = isStartupReport() ? withStartupRecording(plan) : plan;
+		ForkedApplication application = startApplication(workingDirectory, getCommandLine(launchPlan),
+				plan.getEnvironment(), this.jmxPort, this.jmxName, "output.log");
+		try {
+			long timeToReady = waitForReady(application, plan.getStartClass());
+			if (isStartupReport()) {
+				reportStartup(application.getConnection(), plan, timeToReady);
+			}
+		}
+		catch (IOException ex) {
+			getLog().warn("Unable to create startup report: " + ex.getMessage());
+		}
+		finally {
+			application.disconnect();
+		}
+	}
+
+	@Override
+	protected void runWithForkedJvm(File workingDirectory, List<String> args, Map<String, String> environmentVariables)
+			throws MojoExecutionException {
+		ForkedApplication application = startApplication(workingDirectory, args, environmentVariables, this.jmxPort,
+				this.jmxName, "output.log");
+		try {
+			waitForReady(application, null);
+		}
+		finally {
+			application.disconnect();
+		}
+	}
+
+	private long waitForReady(ForkedApplication application, String startClassName) throws MojoExecutionException {
+		ReadinessProbe probe = createReadinessProbe();
+		try {
+			long timeToReady = application.waitForReady(probe);
+			recordReady(application, timeToReady);
+			reportReady(startClassName, application, timeToReady, probe.getAttempts());
+			Long pid = application.getPid();
+			if (pid != null) {
+				getProject().getProperties().setProperty(PID_PROPERTY, Long.toString(pid));
+			}
+			return timeToReady;
+		}
+		catch (MojoExecutionException | RuntimeException ex) {
+			//启动失败时结束进程,避免占用端口
+			application.kill();
+			throw ex;
+		}
+	}
+
+	@Override
+	protected void runWithMavenJvm(String startClassName, String... arguments) throws MojoExecutionException {
+		IsolatedThreadGroup threadGroup = new IsolatedThreadGroup(startClassName);
+		Thread launchThread = new Thread(threadGroup, new LaunchRunner(startClassName, arguments), "main");
+		//应用在指令结束后继续运行,依赖类加载器的租约不释放
+		launchThread.setContextClassLoader(isClassLoaderCacheEnabled()
+				? createProjectClassLoader(acquireDependencyClassLoader().getClassLoader())
+				: createClassLoader(getClassPathUrls()));
+		long startTime = System.nanoTime();
+		launchThread.start();
+		SpringApplicationAdminClient client = new SpringApplicationAdminClient(
+				ManagementFactory.getPlatformMBeanServer(), this.jmxName);
+		ReadinessProbe probe = createReadinessProbe();
+		probe.await(() -> {
+			threadGroup.rethrowUncaughtException();
+			return client.isReady();
+		});
+		long timeToReady = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		getPhaseMetrics().record(PhaseMetrics.READY, timeToReady);
+		reportReady(startClassName, null, timeToReady, probe.getAttempts());
+	}
+
+	private ReadinessProbe createReadinessProbe() {
+		return new ReadinessProbe(this.wait, this.maxWait, this.timeout, getLog());
+	}
+
+	/**
+	 * Expose the time it took the application to be ready as a project property and
+	 * write it to the build directory.
+	 * @param startClassName the start class of the application, if known
+	 * @param application the forked application or {@code null} if it runs in the Maven
+	 * JVM
+	 * @param timeToReady the time it took the application to be ready in milliseconds
+	 * @param attempts the number of readiness checks
+	 * @throws MojoExecutionException if the report could not be written
+	 */
+	private void reportReady(String startClassName, ForkedApplication application, long timeToReady, int attempts)
+			throws MojoExecutionException {
+		getLog().info("Application is ready (" + timeToReady + "ms, " + attempts + " readiness checks)");
+		getProject().getProperties().setProperty(TIME_TO_READY_PROPERTY, Long.toString(timeToReady));
+		JSONObject json = new JSONObject(true);
+		json.put("startClass", startClassName);
+		json.put("fork", application != null);
+		json.put("timeToReady", timeToReady);
+		long reportedStartupTime = (application != null) ? application.getReportedStartupTime() : -1;
+		if (reportedStartupTime >= 0) {
+			json.put("reportedStartupTime", reportedStartupTime);
+		}
+		json.put("attempts", attempts);
+		if (application != null) {
+			//供stop指令连接fork进程
+			json.put("pid", application.getPid());
+			json.put("jmxPort", application.getJmxPort());
+		}
+		File file = new File(getWorkDirectory(), REPORT_FILE_NAME);
+		try {
+			Files.createDirectories(file.getParentFile().toPath());
+			Files.write(file.toPath(), JSON.toJSONString(json, true).getBytes(StandardCharsets.UTF_8));
+		}
+		catch (IOException ex) {
+			throw new MojoExecutionException("Unable to write " + file, ex);
+		}
+	}
+
+}
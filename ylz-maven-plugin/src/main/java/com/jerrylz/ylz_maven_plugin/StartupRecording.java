@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+
+/**
+ * A Java Flight Recorder recording of the startup of a forked application. The forked
+ * JVM starts recording as soon as it boots and the recording is dumped over JMX once the
+ * application is ready.
+ * 应用启动过程的JFR记录
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class StartupRecording {
+
+	private static final String RECORDING_NAME = "ylz-startup";
+
+	private static final String DIAGNOSTIC_COMMAND_OBJECT_NAME = "com.sun.management:type=DiagnosticCommand";
+
+	/**
+	 * Events of the recording. Class loading is recorded without threshold so that the
+	 * time spent loading each jar can be computed.
+	 */
+	private static final String SETTINGS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<configuration version=\"2.0\" label=\"ylz startup\">\n"
+			+ event("jdk.JVMInformation", "period", "beginChunk")
+			+ event("jdk.ClassLoad", "threshold", "0 ms", "stackTrace", "false")
+			+ event("jdk.ExecutionSample", "period", "10 ms")
+			+ event("jdk.GarbageCollection", "threshold", "0 ms")
+			+ event("jdk.ThreadAllocationStatistics", "period", "everyChunk")
+			+ "</configuration>\n";
+
+	private final File directory;
+
+	/**
+	 * Create a new instance.
+	 * @param directory the directory of the recording and of the report
+	 */
+	StartupRecording(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Specify if the Maven JVM can read JFR recordings.
+	 * @return {@code true} if recordings can be analyzed
+	 */
+	static boolean isAnalysisSupported() {
+		try {
+			Class.forName("jdk.jfr.consumer.RecordingFile");
+			return true;
+		}
+		catch (ClassNotFoundException ex) {
+			return false;
+		}
+	}
+
+	File getRecordingFile() {
+		return new File(this.directory, "startup.jfr");
+	}
+
+	File getSettingsFile() {
+		return new File(this.directory, "startup.jfc");
+	}
+
+	File getReportFile() {
+		return new File(this.directory, "startup-report.json");
+	}
+
+	/**
+	 * Write the settings of the recording and return the JVM arguments that start it.
+	 * 获取开启JFR记录的JVM参数
+	 * @return the JVM arguments
+	 * @throws IOException if the settings could not be written
+	 */
+	List<String> prepare() throws IOException {
+		Files.createDirectories(this.directory.toPath());
+		Files.write(getSettingsFile().toPath(), SETTINGS.getBytes(StandardCharsets.UTF_8));
+		Files.deleteIfExists(getRecordingFile().toPath());
+		List<String> arguments = new ArrayList<>();
+		arguments.add("-XX:StartFlightRecording=name=" + RECORDING_NAME + ",settings="
+				+ getSettingsFile().getAbsolutePath());
+		return arguments;
+	}
+
+	/**
+	 * Dump the recording of the JVM behind the specified connection.
+	 * 导出JFR记录
+	 * @param connection the connection to the MBean server of the forked JVM
+	 * @throws IOException if the connection failed
+	 * @throws JMException if the recording could not be dumped
+	 */
+	void dump(MBeanServerConnection connection) throws IOException, JMException {
+		String[] arguments = { "name=" + RECORDING_NAME, "filename=" + getRecordingFile().getAbsolutePath() };
+		connection.invoke(new ObjectName(DIAGNOSTIC_COMMAND_OBJECT_NAME), "jfrDump", new Object[] { arguments },
+				new String[] { String[].class.getName() });
+	}
+
+	private static String event(String name, String... settings) {
+		StringBuilder event = new StringBuilder();
+		event.append("  <event name=\"").append(name).append("\">\n");
+		event.append("    <setting name=\"enabled\">true</setting>\n");
+		for (int i = 0; i < settings.length; i += 2) {
+			event.append("    <setting name=\"").append(settings[i]).append("\">").append(settings[i + 1])
+					.append("</setting>\n");
+		}
+		event.append("  </event>\n");
+		return event.toString();
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Startup report computed from a {@link StartupRecording}: time to {@code main}, time
+ * to ready, class loading time per classpath entry, hot methods, GC pauses and
+ * allocations. Requires the {@code jdk.jfr} module in the Maven JVM, see
+ * {@link StartupRecording#isAnalysisSupported()}.
+ * 启动报告（基于JFR记录分析）
+ *
+ * @author jerrylz
+ * @since 0.0.1
+ */
+class StartupReport {
+
+	private static final String OTHER_LOCATION = "<jdk>";
+
+	private static final int TOP = 10;
+
+	private final JSONObject json = new JSONObject(true);
+
+	private StartupReport() {
+	}
+
+	/**
+	 * Analyze the specified recording.
+	 * 分析JFR记录
+	 * @param recording the recording file
+	 * @param classpath the classpath of the application
+	 * @param startClassName the start class of the application
+	 * @param timeToReady the time it took the application to be ready, in milliseconds
+	 * @return the report
+	 * @throws IOException if the recording cannot be read
+	 */
+	static StartupReport analyze(File recording, List<File> classpath, String startClassName, long timeToReady)
+			throws IOException {
+		Instant jvmStartTime = null;
+		Instant mainTime = null;
+		List<RecordedEvent> classLoads = new ArrayList<>();
+		Map<String, Long> hotMethods = new HashMap<>();
+		long samples = 0;
+		List<RecordedEvent> collections = new ArrayList<>();
+		Map<String, Long> allocations = new HashMap<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(recording.toPath())) {
+			String type = event.getEventType().getName();
+			if ("jdk.JVMInformation".equals(type)) {
+				jvmStartTime = event.getInstant("jvmStartTime");
+			}
+			else if ("jdk.ClassLoad".equals(type)) {
+				classLoads.add(event);
+				if (mainTime == null && event.getClass("loadedClass") != null
+						&& startClassName.equals(event.getClass("loadedClass").getName())) {
+					mainTime = event.getStartTime();
+				}
+			}
+			else if ("jdk.ExecutionSample".equals(type)) {
+				String method = getTopMethod(event.getStackTrace());
+				if (method != null) {
+					hotMethods.merge(method, 1L, Long::sum);
+					samples++;
+				}
+			}
+			else if ("jdk.GarbageCollection".equals(type)) {
+				collections.add(event);
+			}
+			else if ("jdk.ThreadAllocationStatistics".equals(type)) {
+				RecordedThread thread = event.getThread("thread");
+				String name = (thread != null) ? thread.getJavaName() + "#" + thread.getJavaThreadId() : "<unknown>";
+				//分配量为累计值,取最大值
+				allocations.merge(name, event.getLong("allocated"), Math::max);
+			}
+		}
+		StartupReport report = new StartupReport();
+		report.json.put("startClass", startClassName);
+		report.json.put("timeToMain",
+				(jvmStartTime != null && mainTime != null) ? Duration.between(jvmStartTime, mainTime).toMillis() : null);
+		report.json.put("timeToReady", timeToReady);
+		report.json.put("classLoading", analyzeClassLoading(classLoads, classpath));
+		report.json.put("hotMethods", analyzeHotMethods(hotMethods, samples));
+		report.json.put("gc", analyzeCollections(collections));
+		report.json.put("allocation", analyzeAllocations(allocations));
+		return report;
+	}
+
+	private static JSONObject analyzeClassLoading(List<RecordedEvent> classLoads, List<File> classpath)
+			throws IOException {
+		Map<RecordedEvent, Duration> selfTimes = getSelfTimes(classLoads);
+		Set<String> classNames = new HashSet<>();
+		for (RecordedEvent event : classLoads) {
+			if (event.getClass("loadedClass") != null) {
+				classNames.add(event.getClass("loadedClass").getName());
+			}
+		}
+		Map<String, String> locations = locate(classNames, classpath);
+		Map<String, long[]> locationTotals = new HashMap<>();
+		Duration total = Duration.ZERO;
+		for (RecordedEvent event : classLoads) {
+			String className = (event.getClass("loadedClass") != null) ? event.getClass("loadedClass").getName()
+					: null;
+			String location = (className != null) ? locations.getOrDefault(className, OTHER_LOCATION)
+					: OTHER_LOCATION;
+			Duration selfTime = selfTimes.get(event);
+			long[] totals = locationTotals.computeIfAbsent(location, (key) -> new long[2]);
+			totals[0]++;
+			totals[1] += selfTime.toNanos();
+			total = total.plus(selfTime);
+		}
+		JSONArray entries = new JSONArray();
+		locationTotals.entrySet().stream()
+				.sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1]).reversed())
+				.forEach((entry) -> {
+					JSONObject location = new JSONObject(true);
+					location.put("location", entry.getKey());
+					location.put("classes", entry.getValue()[0]);
+					location.put("time", millis(Duration.ofNanos(entry.getValue()[1])));
+					entries.add(location);
+				});
+		JSONObject classLoading = new JSONObject(true);
+		classLoading.put("classes", classLoads.size());
+		classLoading.put("time", millis(total));
+		classLoading.put("locations", entries);
+		return classLoading;
+	}
+
+	/**
+	 * Return the time spent loading each class, excluding the time spent loading the
+	 * classes it triggered the loading of on the same thread.
+	 * @param classLoads the class load events
+	 * @return the self time of each event
+	 */
+	private static Map<RecordedEvent, Duration> getSelfTimes(List<RecordedEvent> classLoads) {
+		Map<Long, List<RecordedEvent>> byThread = new HashMap<>();
+		for (RecordedEvent event : classLoads) {
+			long threadId = (event.getThread() != null) ? event.getThread().getId() : -1;
+			byThread.computeIfAbsent(threadId, (key) -> new ArrayList<>()).add(event);
+		}
+		Map<RecordedEvent, Duration> selfTimes = new HashMap<>();
+		for (List<RecordedEvent> events : byThread.values()) {
+			events.sort(Comparator.comparing(RecordedEvent::getStartTime)
+					.thenComparing(Comparator.comparing((RecordedEvent event) -> event.getDuration()).reversed()));
+			Deque<RecordedEvent> enclosing = new ArrayDeque<>();
+			for (RecordedEvent event : events) {
+				while (!enclosing.isEmpty() && !enclosing.peek().getEndTime().isAfter(event.getStartTime())) {
+					enclosing.pop();
+				}
+				selfTimes.put(event, event.getDuration());
+				if (!enclosing.isEmpty()) {
+					RecordedEvent parent = enclosing.peek();
+					selfTimes.put(parent, selfTimes.get(parent).minus(event.getDuration()));
+				}
+				enclosing.push(event);
+			}
+		}
+		return selfTimes;
+	}
+
+	/**
+	 * Find the classpath entry of each class.
+	 * @param classNames the names of the classes
+	 * @param classpath the classpath
+	 * @return the file name of the classpath entry, keyed by class name
+	 * @throws IOException if a jar cannot be read
+	 */
+	private static Map<String, String> locate(Set<String> classNames, List<File> classpath) throws IOException {
+		Map<String, String> names = new HashMap<>();
+		for (String className : classNames) {
+			names.put(className.replace('.', '/') + ".class", className);
+		}
+		Map<String, String> locations = new HashMap<>();
+		for (File entry : classpath) {
+			if (entry.isFile()) {
+				try (ZipFile zipFile = new ZipFile(entry)) {
+					Enumeration<? extends ZipEntry> entries = zipFile.entries();
+					while (entries.hasMoreElements()) {
+						String className = names.get(entries.nextElement().getName());
+						if (className != null) {
+							locations.putIfAbsent(className, entry.getName());
+						}
+					}
+				}
+			}
+			else if (entry.isDirectory()) {
+				for (Map.Entry<String, String> name : names.entrySet()) {
+					if (!locations.containsKey(name.getValue()) && new File(entry, name.getKey()).isFile()) {
+						locations.put(name.getValue(), entry.getName());
+					}
+				}
+			}
+		}
+		return locations;
+	}
+
+	private static String getTopMethod(RecordedStackTrace stackTrace) {
+		if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+			return null;
+		}
+		RecordedFrame frame = stackTrace.getFrames().get(0);
+		if (frame.getMethod() == null) {
+			return null;
+		}
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+	}
+
+	private static JSONArray analyzeHotMethods(Map<String, Long> hotMethods, long samples) {
+		JSONArray methods = new JSONArray();
+		hotMethods.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(TOP)
+				.forEach((entry) -> {
+					JSONObject method = new JSONObject(true);
+					method.put("method", entry.getKey());
+					method.put("samples", entry.getValue());
+					method.put("percentage", Math.round(entry.getValue() * 1000.0 / samples) / 10.0);
+					methods.add(method);
+				});
+		return methods;
+	}
+
+	private static JSONObject analyzeCollections(List<RecordedEvent> collections) {
+		Duration total = Duration.ZERO;
+		Duration longest = Duration.ZERO;
+		JSONArray pauses = new JSONArray();
+		for (RecordedEvent event : collections) {
+			Duration pause = event.getDuration("sumOfPauses");
+			total = total.plus(pause);
+			if (pause.compareTo(longest) > 0) {
+				longest = pause;
+			}
+			JSONObject collection = new JSONObject(true);
+			collection.put("name", event.getString("name"));
+			collection.put("cause", event.getString("cause"));
+			collection.put("pause", millis(pause));
+			pauses.add(collection);
+		}
+		JSONObject gc = new JSONObject(true);
+		gc.put("collections", collections.size());
+		gc.put("totalPause", millis(total));
+		gc.put("longestPause", millis(longest));
+		gc.put("pauses", pauses);
+		return gc;
+	}
+
+	private static JSONObject analyzeAllocations(Map<String, Long> allocations) {
+		long total = 0;
+		for (long allocated : allocations.values()) {
+			total += allocated;
+		}
+		JSONArray threads = new JSONArray();
+		allocations.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(TOP)
+				.forEach((entry) -> {
+					JSONObject thread = new JSONObject(true);
+					thread.put("thread", entry.getKey());
+					thread.put("allocated", entry.getValue());
+					threads.add(thread);
+				});
+		JSONObject allocation = new JSONObject(true);
+		allocation.put("total", total);
+		allocation.put("threads", threads);
+		return allocation;
+	}
+
+	private static double millis(Duration duration) {
+		return Math.round(duration.toNanos() / 100000.0) / 10.0;
+	}
+
+	JSONObject toJson() {
+		return this.json;
+	}
+
+	/**
+	 * Write the report as JSON.
+	 * @param file the file to write
+	 * @throws IOException if the file could not be written
+	 */
+	void write(File file) throws IOException {
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), JSON.toJSONString(this.json, true).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Print a summary of the report.
+	 * 打印启动报告
+	 * @param log the log to use
+	 */
+	void log(Log log) {
+		log.info("Startup report:");
+		log.info("  Time to main: " + format(this.json.get("timeToMain")) + ", time to ready: "
+				+ format(this.json.get("timeToReady")));
+		JSONObject classLoading = this.json.getJSONObject("classLoading");
+		log.info("  Class loading: " + classLoading.get("classes") + " classes in "
+				+ format(classLoading.get("time")));
+		JSONArray locations = classLoading.getJSONArray("locations");
+		for (int i = 0; i < Math.min(TOP, locations.size()); i++) {
+			JSONObject location = locations.getJSONObject(i);
+			log.info("    " + format(location.get("time")) + "  " + location.get("classes") + " classes  "
+					+ location.get("location"));
+		}
+		log.info("  Hot methods:");
+		JSONArray methods = this.json.getJSONArray("hotMethods");
+		for (int i = 0; i < methods.size(); i++) {
+			JSONObject method = methods.getJSONObject(i);
+			log.info("    " + method.get("percentage") + "%  " + method.get("method"));
+		}
+		JSONObject gc = this.json.getJSONObject("gc");
+		log.info("  GC: " + gc.get("collections") + " pause(s), " + format(gc.get("totalPause")) + " total, "
+				+ format(gc.get("longestPause")) + " longest");
+		log.info("  Allocated: " + (this.json.getJSONObject("allocation").getLongValue("total") >> 20) + "MB");
+	}
+
+	private static String format(Object millis) {
+		return (millis != null) ? millis + "ms" : "n/a";
+	}
+
+}
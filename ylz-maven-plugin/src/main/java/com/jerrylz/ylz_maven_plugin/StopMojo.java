@@ -16,14 +16,17 @@
 
 package com.jerrylz.ylz_maven_plugin;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServerConnection;
-import javax.management.remote.JMXConnector;
 
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -31,6 +34,9 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
 /**
  * Stop a spring application that has been started by the "start" goal. Typically invoked
  * once a test suite has completed.
@@ -66,7 +72,8 @@ public class StopMojo extends AbstractMojo {
 
 	/**
 	 * The port to use to lookup the platform MBeanServer if the application has been
-	 * forked.
+	 * forked and cannot be attached by the pid recorded by the "start" goal. The port
+	 * recorded by the "start" goal takes precedence.
 	 */
 	@Parameter
 	private int jmxPort = 9001;
@@ -78,6 +85,23 @@ public class StopMojo extends AbstractMojo {
 	@Parameter(property = "spring-boot.stop.skip", defaultValue = "false")
 	private boolean skip;
 
+	/**
+	 * Flag to record the time it took to stop the application in
+	 * {@code ylz-metrics.json} in the build directory.
+	 * 是否记录停止耗时
+	 * @since 0.0.1
+	 */
+	@Parameter(property = "spring-boot.metrics", defaultValue = "true")
+	private boolean metrics;
+
+	/**
+	 * The current execution, used to name the goal in the metrics.
+	 */
+	@Parameter(defaultValue = "${mojoExecution}", readonly = true)
+	private MojoExecution mojoExecution;
+
+	private final PhaseMetrics phaseMetrics = new PhaseMetrics();
+
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		getLog().info("fork======="+fork);
@@ -86,7 +110,7 @@ public class StopMojo extends AbstractMojo {
 			return;
 		}
 		getLog().info("Stopping application...");
-		try {
+		try (PhaseMetrics.Phase phase = this.phaseMetrics.start(PhaseMetrics.SHUTDOWN)) {
 			if (isForked()) {
 				stopForkedProcess();
 			}
@@ -98,6 +122,13 @@ public class StopMojo extends AbstractMojo {
 			// The response won't be received as the server has died - ignoring
 			getLog().debug("Service is not reachable anymore (" + ex.getMessage() + ")");
 		}
+		finally {
+			if (this.metrics) {
+				this.phaseMetrics.write(new File(this.project.getBuild().getDirectory()),
+						(this.mojoExecution != null) ? this.mojoExecution.getGoal() : "stop", this.project.getId(),
+						getLog());
+			}
+		}
 	}
 
 	private boolean isForked() {
@@ -109,10 +140,37 @@ public class StopMojo extends AbstractMojo {
 	}
 
 	private void stopForkedProcess() throws IOException, MojoFailureException, MojoExecutionException {
-		try (JMXConnector connector = SpringApplicationAdminClient.connect(this.jmxPort)) {
-			MBeanServerConnection connection = connector.getMBeanServerConnection();
-			doStop(connection);
+		JSONObject report = readStartReport();
+		String pid = this.project.getProperties().getProperty(StartMojo.PID_PROPERTY);
+		Long processId = (pid != null) ? Long.valueOf(pid) : report.getLong("pid");
+		Integer port = report.getInteger("jmxPort");
+		try (AdminConnector connector = new AdminConnector(processId, (port != null) ? port : this.jmxPort,
+				getLog())) {
+			doStop(connector.getConnection());
+		}
+	}
+
+	/**
+	 * Read the report written by the "start" goal, which holds the pid and the JMX port of
+	 * the forked process.
+	 * 读取start指令记录的进程号与JMX端口
+	 * @return the report, empty if it does not exist or cannot be read
+	 */
+	private JSONObject readStartReport() {
+		File file = new File(new File(this.project.getBuild().getDirectory(), "ylz"), StartMojo.REPORT_FILE_NAME);
+		if (file.isFile()) {
+			try {
+				String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+				JSONObject report = JSON.parseObject(content);
+				if (report != null) {
+					return report;
+				}
+			}
+			catch (IOException | RuntimeException ex) {
+				getLog().debug("Unable to read " + file + " (" + ex.getMessage() + ")");
+			}
 		}
+		return new JSONObject();
 	}
 
 	private void stop() throws IOException, MojoFailureException, MojoExecutionException {
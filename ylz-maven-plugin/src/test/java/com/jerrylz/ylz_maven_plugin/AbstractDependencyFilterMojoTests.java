@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the parsing of the coordinates of {@link AbstractDependencyFilterMojo}.
+ *
+ * @author jerrylz
+ */
+public class AbstractDependencyFilterMojoTests {
+
+	@Test
+	public void splitPlainCoordinates() {
+		assertEquals(Arrays.asList("com.acme", "core"), split("com.acme:core"));
+		assertEquals(Arrays.asList("com.acme", "core", "tests"), split("com.acme:core:tests"));
+	}
+
+	@Test
+	public void splitGlobCoordinates() {
+		assertEquals(Arrays.asList("com.acme*", "*", "?"), split("com.acme*:*:?"));
+	}
+
+	@Test
+	public void splitKeepsColonsOfRegex() {
+		assertEquals(Arrays.asList("/a:b/", "core"), split("/a:b/:core"));
+		assertEquals(Arrays.asList("com.acme", "/x:y/"), split("com.acme:/x:y/"));
+		assertEquals(Arrays.asList("com.acme", "/x:y/", "tests"), split("com.acme:/x:y/:tests"));
+	}
+
+	@Test
+	public void splitSingleSlashAsLiteral() {
+		assertEquals(Arrays.asList("com.acme", "/"), split("com.acme:/"));
+	}
+
+	@Test
+	public void splitUnterminatedRegexOnColons() {
+		assertEquals(Arrays.asList("/a", "b", "c"), split("/a:b:c"));
+	}
+
+	@Test
+	public void splitKeepsEmptyCoordinates() {
+		assertEquals(Arrays.asList("com.acme", "", "tests"), split("com.acme::tests"));
+		assertEquals(Arrays.asList("com.acme"), split("com.acme"));
+	}
+
+	private List<String> split(String line) {
+		return AbstractDependencyFilterMojo.splitCoordinates(line);
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ClassPathIndex}.
+ *
+ * @author jerrylz
+ */
+public class ClassPathIndexTests {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void candidatesFollowClasspathOrder() throws IOException {
+		File first = jar("first.jar", "com/acme/A.class", "com/acme/web/B.class");
+		File directory = this.temp.newFolder("classes");
+		File second = jar("second.jar", "com/other/C.class", "com/acme/D.class");
+		ClassPathIndex index = ClassPathIndex.load(indexFile(), Arrays.asList(first, directory, second));
+		assertArrayEquals(new int[] { 0, 1, 2 }, index.getCandidates("com/acme"));
+		assertArrayEquals(new int[] { 0, 1 }, index.getCandidates("com/acme/web"));
+		assertArrayEquals(new int[] { 1, 2 }, index.getCandidates("com/other"));
+		assertArrayEquals(new int[] { 1 }, index.getCandidates("org/unknown"));
+	}
+
+	@Test
+	public void resourceCandidatesIncludeJarsContainingTheFolder() throws IOException {
+		File first = jar("first.jar", "com/acme/web/B.class");
+		File directory = this.temp.newFolder("classes");
+		File second = jar("second.jar", "com/other/C.class");
+		ClassPathIndex index = ClassPathIndex.load(indexFile(), Arrays.asList(first, directory, second));
+		assertArrayEquals(new int[] { 0, 1, 2 }, index.getResourceCandidates("com/"));
+		assertArrayEquals(new int[] { 0, 1 }, index.getResourceCandidates("com/acme"));
+		assertArrayEquals(new int[] { 0, 1 }, index.getResourceCandidates("com/acme/web/index.html"));
+	}
+
+	@Test
+	public void emptyDirectoryEntriesAreIndexed() throws IOException {
+		File jar = jar("first.jar", "static/", "com/acme/A.class");
+		ClassPathIndex index = ClassPathIndex.load(indexFile(), Arrays.asList(jar));
+		assertArrayEquals(new int[] { 0 }, index.getCandidates("static"));
+	}
+
+	@Test
+	public void directoryOfPlainJarIsLocated() throws IOException {
+		File jar = jar("first.jar", "com/acme/A.class", "com/acme/B.class");
+		ClassPathIndex.Entry entry = ClassPathIndex.load(indexFile(), Arrays.asList(jar)).getEntries().get(0);
+		assertFalse(entry.isDirectory());
+		assertEquals(0, entry.getBase());
+		assertEquals(Arrays.asList("com/acme/A.class", "com/acme/B.class"), readLocalHeaderNames(entry));
+	}
+
+	@Test
+	public void directoryOfJarWithPrefixIsLocated() throws IOException {
+		byte[] content = Files.readAllBytes(jar("plain.jar", "com/acme/A.class", "com/acme/B.class").toPath());
+		byte[] prefix = "#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n".getBytes(StandardCharsets.UTF_8);
+		File jar = this.temp.newFile("prefixed.jar");
+		try (OutputStream output = new FileOutputStream(jar)) {
+			output.write(prefix);
+			output.write(content);
+		}
+		ClassPathIndex.Entry entry = ClassPathIndex.load(indexFile(), Arrays.asList(jar)).getEntries().get(0);
+		assertEquals(prefix.length, entry.getBase());
+		assertEquals(Arrays.asList("com/acme/A.class", "com/acme/B.class"), readLocalHeaderNames(entry));
+	}
+
+	@Test
+	public void missingFileIsTreatedAsDirectory() throws IOException {
+		File missing = new File(this.temp.getRoot(), "missing.jar");
+		ClassPathIndex index = ClassPathIndex.load(indexFile(), Arrays.asList(missing));
+		assertTrue(index.getEntries().get(0).isDirectory());
+		assertArrayEquals(new int[] { 0 }, index.getCandidates("com/acme"));
+	}
+
+	@Test
+	public void indexIsWrittenAndReadBack() throws IOException {
+		File jar = jar("first.jar", "com/acme/A.class");
+		File directory = this.temp.newFolder("classes");
+		File indexFile = indexFile();
+		ClassPathIndex.load(indexFile, Arrays.asList(directory, jar));
+		assertTrue(indexFile.isFile());
+		ClassPathIndex index = ClassPathIndex.read(indexFile);
+		assertEquals(2, index.getEntries().size());
+		assertEquals(jar.getAbsoluteFile(), index.getEntries().get(1).getFile());
+		assertArrayEquals(new int[] { 0, 1 }, index.getCandidates("com/acme"));
+	}
+
+	@Test
+	public void unchangedIndexIsNotWrittenAgain() throws IOException {
+		File jar = jar("first.jar", "com/acme/A.class");
+		File indexFile = indexFile();
+		ClassPathIndex.load(indexFile, Arrays.asList(jar));
+		assertTrue(indexFile.setLastModified(1000));
+		ClassPathIndex.load(indexFile, Arrays.asList(jar));
+		assertEquals(1000, indexFile.lastModified());
+	}
+
+	@Test
+	public void changedJarIsScannedAgain() throws IOException {
+		File jar = jar("first.jar", "com/acme/A.class");
+		File indexFile = indexFile();
+		ClassPathIndex.load(indexFile, Arrays.asList(jar));
+		jar("first.jar", "com/acme/A.class", "com/other/B.class");
+		assertTrue(jar.setLastModified(jar.lastModified() + 2000));
+		ClassPathIndex index = ClassPathIndex.load(indexFile, Arrays.asList(jar));
+		assertArrayEquals(new int[] { 0 }, index.getCandidates("com/other"));
+	}
+
+	@Test
+	public void corruptIndexIsRebuilt() throws IOException {
+		File jar = jar("first.jar", "com/acme/A.class");
+		File indexFile = indexFile();
+		Files.write(indexFile.toPath(), new byte[] { 0, 0, 0, 1, 0 });
+		ClassPathIndex index = ClassPathIndex.load(indexFile, Arrays.asList(jar));
+		assertArrayEquals(new int[] { 0 }, index.getCandidates("com/acme"));
+		assertEquals(1, ClassPathIndex.read(indexFile).getEntries().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void readRejectsUnsupportedIndex() throws IOException {
+		File indexFile = indexFile();
+		Files.write(indexFile.toPath(), new byte[] { 0, 0, 0, 99 });
+		ClassPathIndex.read(indexFile);
+	}
+
+	@Test
+	public void packageNameOfEntry() {
+		assertEquals("com/acme", ClassPathIndex.getPackageName("com/acme/A.class"));
+		assertEquals("", ClassPathIndex.getPackageName("A.class"));
+	}
+
+	private List<String> readLocalHeaderNames(ClassPathIndex.Entry entry) throws IOException {
+		List<String> names = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(entry.getFile().toPath(), StandardOpenOption.READ)) {
+			ByteBuffer directory = ClassPathIndex.read(channel, entry.getDirectoryPosition(),
+					entry.getDirectorySize());
+			List<Long> offsets = new ArrayList<>();
+			ClassPathIndex.readCentralDirectory(directory,
+					(name, method, compressedSize, size, offset) -> offsets.add(offset));
+			for (long offset : offsets) {
+				//本地文件头的签名与文件名
+				ByteBuffer header = ClassPathIndex.read(channel, entry.getBase() + offset, 30);
+				assertEquals(0x04034b50, header.order(ByteOrder.LITTLE_ENDIAN).getInt(0));
+				int nameLength = header.getShort(26) & 0xFFFF;
+				ByteBuffer name = ClassPathIndex.read(channel, entry.getBase() + offset + 30, nameLength);
+				names.add(new String(name.array(), StandardCharsets.UTF_8));
+			}
+		}
+		return names;
+	}
+
+	private File indexFile() {
+		return new File(this.temp.getRoot(), "jars.idx");
+	}
+
+	private File jar(String name, String... entries) throws IOException {
+		File file = new File(this.temp.getRoot(), name);
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (ZipOutputStream output = new ZipOutputStream(content)) {
+			for (String entry : entries) {
+				output.putNextEntry(new ZipEntry(entry));
+				if (!entry.endsWith("/")) {
+					output.write(entry.getBytes(StandardCharsets.UTF_8));
+				}
+				output.closeEntry();
+			}
+		}
+		Files.write(file.toPath(), content.toByteArray());
+		return file;
+	}
+
+}
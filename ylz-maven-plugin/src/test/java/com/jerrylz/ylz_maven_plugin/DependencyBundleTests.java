@@ -0,0 +1,265 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DependencyBundle}.
+ *
+ * @author jerrylz
+ */
+public class DependencyBundleTests {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private File bundles;
+
+	private DependencyBundle bundle;
+
+	@Before
+	public void createBundle() throws IOException {
+		this.bundles = this.temp.newFolder("bundles");
+		this.bundle = new DependencyBundle(this.bundles);
+	}
+
+	@Test
+	public void singleJarIsNotBundled() throws IOException {
+		List<File> classpath = Arrays.asList(this.temp.newFolder("classes"), jar("a.jar", "com/acme/A.class", "a"));
+		assertSame(classpath, this.bundle.apply(classpath));
+	}
+
+	@Test
+	public void bundleTakesThePositionOfTheFirstJar() throws IOException {
+		File classes = this.temp.newFolder("classes");
+		File a = jar("a.jar", "com/acme/A.class", "a");
+		File resources = this.temp.newFolder("resources");
+		File b = jar("b.jar", "com/acme/B.class", "b");
+		List<File> classpath = this.bundle.apply(Arrays.asList(classes, a, resources, b));
+		assertEquals(3, classpath.size());
+		assertEquals(classes, classpath.get(0));
+		assertEquals(this.bundles, classpath.get(1).getParentFile());
+		assertEquals(resources, classpath.get(2));
+	}
+
+	@Test
+	public void firstJarWinsForClasses() throws IOException {
+		File a = jar("a.jar", "com/acme/A.class", "a");
+		File b = jar("b.jar", "com/acme/A.class", "b", "com/acme/B.class", "b");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		assertEquals("a", read(bundled, "com/acme/A.class"));
+		assertEquals("b", read(bundled, "com/acme/B.class"));
+	}
+
+	@Test
+	public void entriesAreStoredAndSorted() throws IOException {
+		File a = jar("a.jar", "com/acme/Z.class", "z", "com/acme/A.class", "a");
+		File b = jar("b.jar", "com/acme/M.class", "m");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		List<String> names = new ArrayList<>();
+		try (JarFile jarFile = new JarFile(bundled)) {
+			for (ZipEntry entry : Collections.list(jarFile.entries())) {
+				assertEquals(ZipEntry.STORED, entry.getMethod());
+				names.add(entry.getName());
+			}
+		}
+		assertEquals(Arrays.asList("META-INF/", "META-INF/MANIFEST.MF", "com/acme/A.class", "com/acme/M.class",
+				"com/acme/Z.class"), names);
+	}
+
+	@Test
+	public void springFactoriesValuesAreJoined() throws IOException {
+		File a = jar("a.jar", "META-INF/spring.factories", "com.acme.Key=com.acme.A\ncom.acme.Other=com.acme.O\n");
+		File b = jar("b.jar", "META-INF/spring.factories", "com.acme.Key=com.acme.B,\\\n  com.acme.A\n");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		Properties factories = properties(read(bundled, "META-INF/spring.factories"));
+		assertEquals("com.acme.A,com.acme.B", factories.getProperty("com.acme.Key"));
+		assertEquals("com.acme.O", factories.getProperty("com.acme.Other"));
+	}
+
+	@Test
+	public void serviceFilesAreConcatenated() throws IOException {
+		File a = jar("a.jar", "META-INF/services/com.acme.Service", "com.acme.A");
+		File b = jar("b.jar", "META-INF/services/com.acme.Service", "com.acme.B\n");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		assertEquals("com.acme.A\ncom.acme.B\n", read(bundled, "META-INF/services/com.acme.Service"));
+	}
+
+	@Test
+	public void importsFilesAreConcatenated() throws IOException {
+		String name = "META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports";
+		File a = jar("a.jar", name, "com.acme.AConfiguration\n");
+		File b = jar("b.jar", name, "com.acme.BConfiguration\n");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		assertEquals("com.acme.AConfiguration\ncom.acme.BConfiguration\n", read(bundled, name));
+	}
+
+	@Test
+	public void springHandlersFirstJarWinsPerKey() throws IOException {
+		File a = jar("a.jar", "META-INF/spring.handlers", "http\\://acme.com/a=com.acme.A\n");
+		File b = jar("b.jar", "META-INF/spring.handlers",
+				"http\\://acme.com/a=com.acme.B\nhttp\\://acme.com/b=com.acme.B\n");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		Properties handlers = properties(read(bundled, "META-INF/spring.handlers"));
+		assertEquals("com.acme.A", handlers.getProperty("http://acme.com/a"));
+		assertEquals("com.acme.B", handlers.getProperty("http://acme.com/b"));
+	}
+
+	@Test
+	public void jarWithProvidedResourceIsLeftOut() throws IOException {
+		File a = jar("a.jar", "application.properties", "a=1", "com/acme/A.class", "a");
+		File b = jar("b.jar", "com/acme/B.class", "b");
+		File c = jar("c.jar", "application.properties", "a=2", "com/acme/C.class", "c");
+		List<File> classpath = this.bundle.apply(Arrays.asList(a, b, c));
+		assertEquals(2, classpath.size());
+		assertEquals(c, classpath.get(1));
+		assertNull(read(classpath.get(0), "com/acme/C.class"));
+		assertEquals("a=1", read(classpath.get(0), "application.properties"));
+	}
+
+	@Test
+	public void informationalResourcesDoNotLeaveJarsOut() throws IOException {
+		File a = jar("a.jar", "META-INF/LICENSE.txt", "a", "META-INF/maven/com.acme/a/pom.xml", "a");
+		File b = jar("b.jar", "META-INF/LICENSE.txt", "b", "META-INF/maven/com.acme/a/pom.xml", "b");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		assertEquals("a", read(bundled, "META-INF/LICENSE.txt"));
+	}
+
+	@Test
+	public void signedJarIsLeftOut() throws IOException {
+		File a = jar("a.jar", "com/acme/A.class", "a");
+		File b = jar("b.jar", "com/acme/B.class", "b");
+		File signed = jar("signed.jar", "META-INF/ACME.SF", "signature", "com/acme/S.class", "s");
+		List<File> classpath = this.bundle.apply(Arrays.asList(a, signed, b));
+		assertEquals(2, classpath.size());
+		assertEquals(signed, classpath.get(1));
+		assertNull(read(classpath.get(0), "com/acme/S.class"));
+		assertEquals("b", read(classpath.get(0), "com/acme/B.class"));
+	}
+
+	@Test
+	public void manifestHasPackageAttributesOfTheJar() throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION, "1.2.3");
+		File a = jar("a.jar", manifest, "com/acme/A.class", "a");
+		File b = jar("b.jar", "org/other/B.class", "b");
+		File bundled = single(this.bundle.apply(Arrays.asList(a, b)));
+		try (JarFile jarFile = new JarFile(bundled)) {
+			Manifest bundleManifest = jarFile.getManifest();
+			assertEquals("1.2.3",
+					bundleManifest.getAttributes("com/acme/").getValue(Attributes.Name.IMPLEMENTATION_VERSION));
+			assertNull(bundleManifest.getAttributes("org/other/"));
+		}
+	}
+
+	@Test
+	public void bundleIsReusedUntilAJarChanges() throws IOException {
+		File a = jar("a.jar", "com/acme/A.class", "a");
+		File b = jar("b.jar", "com/acme/B.class", "b", "application.properties", "b");
+		File c = jar("c.jar", "application.properties", "c");
+		List<File> first = this.bundle.apply(Arrays.asList(a, b, c));
+		File bundled = first.get(0);
+		assertTrue(bundled.setLastModified(1000));
+		assertEquals(first, this.bundle.apply(Arrays.asList(a, b, c)));
+		assertEquals(1000, bundled.lastModified());
+		jar("a.jar", "com/acme/A.class", "changed");
+		assertTrue(a.setLastModified(a.lastModified() + 2000));
+		File rebuilt = single(this.bundle.apply(Arrays.asList(a, b)));
+		assertFalse(rebuilt.equals(bundled));
+		assertFalse(bundled.exists());
+		assertEquals("changed", read(rebuilt, "com/acme/A.class"));
+	}
+
+	private File single(List<File> classpath) {
+		assertEquals(1, classpath.size());
+		return classpath.get(0);
+	}
+
+	private Properties properties(String content) throws IOException {
+		Properties properties = new Properties();
+		properties.load(new StringReader(content));
+		return properties;
+	}
+
+	private String read(File jar, String name) throws IOException {
+		try (JarFile jarFile = new JarFile(jar)) {
+			ZipEntry entry = jarFile.getEntry(name);
+			if (entry == null) {
+				return null;
+			}
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			try (InputStream inputStream = jarFile.getInputStream(entry)) {
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1) {
+					content.write(buffer, 0, read);
+				}
+			}
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private File jar(String name, String... entries) throws IOException {
+		return jar(name, null, entries);
+	}
+
+	/**
+	 * Write a jar with the specified manifest and entries, given as name and content.
+	 */
+	private File jar(String name, Manifest manifest, String... entries) throws IOException {
+		File file = new File(this.temp.getRoot(), name);
+		try (JarOutputStream output = (manifest != null) ? new JarOutputStream(new FileOutputStream(file), manifest)
+				: new JarOutputStream(new FileOutputStream(file))) {
+			for (int i = 0; i < entries.length; i += 2) {
+				output.putNextEntry(new ZipEntry(entries[i]));
+				output.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+				output.closeEntry();
+			}
+		}
+		return file;
+	}
+
+}
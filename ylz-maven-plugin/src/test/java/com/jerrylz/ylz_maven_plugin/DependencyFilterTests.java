@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the single artifact checks of {@link DependencyFilter} and
+ * {@link MatchingGroupIdFilter}, which must agree with their set based filtering.
+ *
+ * @author jerrylz
+ */
+public class DependencyFilterTests {
+
+	private final Artifact core = artifact("com.acme", "core", null);
+
+	private final Artifact coreTests = artifact("com.acme", "core", "tests");
+
+	private final Artifact web = artifact("com.acme", "web", null);
+
+	private final Artifact extra = artifact("com.acme.extra", "core", null);
+
+	private final Artifact other = artifact("org.other", "lib", null);
+
+	@After
+	public void clearCache() {
+		DependencyMatcher.clearCache();
+	}
+
+	@Test
+	public void includeFilterKeepsMatchingArtifacts() throws ArtifactFilterException {
+		IncludeFilter filter = new IncludeFilter(Arrays.asList(include("com.acme", "core", null)));
+		assertTrue(filter.isArtifactIncluded(this.core));
+		assertTrue(filter.isArtifactIncluded(this.coreTests));
+		assertFalse(filter.isArtifactIncluded(this.web));
+		assertAgreesWithFilter(filter);
+	}
+
+	@Test
+	public void excludeFilterDropsMatchingArtifacts() throws ArtifactFilterException {
+		ExcludeFilter filter = new ExcludeFilter(exclude("com.acme", "core", "tests"), exclude("org.*", "*", null));
+		assertTrue(filter.isArtifactIncluded(this.core));
+		assertFalse(filter.isArtifactIncluded(this.coreTests));
+		assertFalse(filter.isArtifactIncluded(this.other));
+		assertAgreesWithFilter(filter);
+	}
+
+	@Test
+	public void matchingGroupIdFilterDropsExactGroupIdsOnly() throws ArtifactFilterException {
+		MatchingGroupIdFilter filter = new MatchingGroupIdFilter("com.acme,org.unknown");
+		assertFalse(filter.isArtifactIncluded(this.core));
+		assertTrue(filter.isArtifactIncluded(this.extra));
+		assertTrue(filter.isArtifactIncluded(this.other));
+		assertAgreesWithFilter(filter);
+	}
+
+	@Test
+	public void filterPreservesOrder() throws ArtifactFilterException {
+		ExcludeFilter filter = new ExcludeFilter(exclude("com.acme", "web", null));
+		assertEquals(Arrays.asList(this.other, this.core, this.extra),
+				new ArrayList<>(filter.filter(artifacts(this.other, this.core, this.web, this.extra))));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void assertAgreesWithFilter(ArtifactsFilter filter) throws ArtifactFilterException {
+		Set<Artifact> artifacts = artifacts(this.core, this.coreTests, this.web, this.extra, this.other);
+		Set<Artifact> filtered = filter.filter(artifacts);
+		for (Artifact artifact : artifacts) {
+			assertEquals(artifact.toString(), filtered.contains(artifact), filter.isArtifactIncluded(artifact));
+		}
+	}
+
+	private Set<Artifact> artifacts(Artifact... artifacts) {
+		return new LinkedHashSet<>(Arrays.asList(artifacts));
+	}
+
+	private static Artifact artifact(String groupId, String artifactId, String classifier) {
+		return new DefaultArtifact(groupId, artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", classifier,
+				new DefaultArtifactHandler("jar"));
+	}
+
+	private static Include include(String groupId, String artifactId, String classifier) {
+		Include include = new Include();
+		include.setGroupId(groupId);
+		include.setArtifactId(artifactId);
+		include.setClassifier(classifier);
+		return include;
+	}
+
+	private static Exclude exclude(String groupId, String artifactId, String classifier) {
+		Exclude exclude = new Exclude();
+		exclude.setGroupId(groupId);
+		exclude.setArtifactId(artifactId);
+		exclude.setClassifier(classifier);
+		return exclude;
+	}
+
+}
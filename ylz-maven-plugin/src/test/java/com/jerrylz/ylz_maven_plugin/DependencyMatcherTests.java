@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DependencyMatcher}.
+ *
+ * @author jerrylz
+ */
+public class DependencyMatcherTests {
+
+	@After
+	public void clearCache() {
+		DependencyMatcher.clearCache();
+	}
+
+	@Test
+	public void exactRuleWithoutClassifierMatchesAnyClassifier() {
+		DependencyMatcher matcher = matcher(include("com.acme", "core", null));
+		assertTrue(matcher.matches("com.acme", "core", null));
+		assertTrue(matcher.matches("com.acme", "core", "tests"));
+		assertFalse(matcher.matches("com.acme", "core-api", null));
+		assertFalse(matcher.matches("com.acme.foo", "core", null));
+	}
+
+	@Test
+	public void exactRuleWithClassifierMatchesThatClassifierOnly() {
+		DependencyMatcher matcher = matcher(include("com.acme", "core", "tests"));
+		assertTrue(matcher.matches("com.acme", "core", "tests"));
+		assertFalse(matcher.matches("com.acme", "core", null));
+		assertFalse(matcher.matches("com.acme", "core", "sources"));
+	}
+
+	@Test
+	public void groupIdPrefixMatchesLongerGroupIds() {
+		DependencyMatcher matcher = matcher(include("org.spring*", "core", null));
+		assertTrue(matcher.matches("org.spring", "core", null));
+		assertTrue(matcher.matches("org.springframework", "core", "tests"));
+		assertFalse(matcher.matches("org.sprin", "core", null));
+		assertFalse(matcher.matches("org.springframework", "beans", null));
+	}
+
+	@Test
+	public void groupIdPrefixesSharingANodeAreAllChecked() {
+		DependencyMatcher matcher = matcher(include("org.*", "a", null), include("org.spring*", "b", null),
+				include("org.springframework*", "c", "tests"));
+		assertTrue(matcher.matches("org.springframework.boot", "a", null));
+		assertTrue(matcher.matches("org.springframework.boot", "b", null));
+		assertTrue(matcher.matches("org.springframework.boot", "c", "tests"));
+		assertFalse(matcher.matches("org.springframework.boot", "c", null));
+		assertFalse(matcher.matches("org.spring", "c", "tests"));
+	}
+
+	@Test
+	public void globMatchesWithinACoordinate() {
+		DependencyMatcher matcher = matcher(include("com.acme", "lib-?", null), include("org.*.core", "*", null));
+		assertTrue(matcher.matches("com.acme", "lib-1", null));
+		assertFalse(matcher.matches("com.acme", "lib-12", null));
+		assertTrue(matcher.matches("org.acme.core", "api", "tests"));
+		assertFalse(matcher.matches("org.acme.core.extra", "api", null));
+	}
+
+	@Test
+	public void globQuotesTheOtherCharacters() {
+		DependencyMatcher matcher = matcher(include("com.ac?e", "a+b", null));
+		assertTrue(matcher.matches("com.acme", "a+b", null));
+		assertFalse(matcher.matches("comXacme", "a+b", null));
+		assertFalse(matcher.matches("com.acme", "aab", null));
+	}
+
+	@Test
+	public void regexMatchesTheWholeCoordinate() {
+		DependencyMatcher matcher = matcher(include("/com\\.acme(\\..*)?/", "/.*-starter/", null));
+		assertTrue(matcher.matches("com.acme", "web-starter", null));
+		assertTrue(matcher.matches("com.acme.boot", "web-starter", "tests"));
+		assertFalse(matcher.matches("com.acmeboot", "web-starter", null));
+		assertFalse(matcher.matches("com.acme", "web-starter-test", null));
+	}
+
+	@Test
+	public void regexBackReferenceOnlyRefersToItsOwnRule() {
+		DependencyMatcher matcher = matcher(include("/(z)/", "z", null), include("/(a+)b/", "/x\\1/", null));
+		assertTrue(matcher.matches("z", "z", null));
+		assertTrue(matcher.matches("aab", "xaa", null));
+		assertFalse(matcher.matches("aab", "xz", null));
+		assertFalse(matcher.matches("ab", "xb", null));
+	}
+
+	@Test
+	public void singleSlashIsALiteral() {
+		DependencyMatcher matcher = matcher(include("/", "core", null));
+		assertTrue(matcher.matches("/", "core", null));
+		assertFalse(matcher.matches("x", "core", null));
+	}
+
+	@Test
+	public void matchersOfTheSameRulesAreShared() {
+		DependencyMatcher matcher = matcher(include("com.acme", "*", null));
+		assertSame(matcher, matcher(include("com.acme", "*", null)));
+		assertNotSame(matcher, matcher(include("com.acme", "*", "tests")));
+	}
+
+	@Test
+	public void matchersOfRulesWithAColonAreDistinct() {
+		//"a:b" + "c" 与 "a" + "b:c" 拼接后相同,但规则不同
+		DependencyMatcher first = matcher(include("/a:b/", "c", null));
+		DependencyMatcher second = matcher(include("a", "/b:c/", null));
+		assertNotSame(first, second);
+	}
+
+	private DependencyMatcher matcher(FilterableDependency... dependencies) {
+		return DependencyMatcher.of(Arrays.asList(dependencies));
+	}
+
+	private Include include(String groupId, String artifactId, String classifier) {
+		Include include = new Include();
+		include.setGroupId(groupId);
+		include.setArtifactId(artifactId);
+		include.setClassifier(classifier);
+		return include;
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ExplodedArchive}.
+ *
+ * @author jerrylz
+ */
+public class ExplodedArchiveTests {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private File layouts;
+
+	private ExplodedArchive explodedArchive;
+
+	@Before
+	public void createExplodedArchive() throws IOException {
+		this.layouts = this.temp.newFolder("layouts");
+		this.explodedArchive = new ExplodedArchive(this.layouts);
+	}
+
+	@Test
+	public void classesAndNestedJarsAreExtracted() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/classes/com/acme/App.class", "app",
+				"BOOT-INF/classes/application.properties", "a=1", "BOOT-INF/lib/a.jar", "a",
+				"org/springframework/boot/loader/JarLauncher.class", "launcher");
+		ExplodedArchive.Layout layout = this.explodedArchive.explode(archive);
+		assertEquals("com.acme.App", layout.getStartClass());
+		List<File> classpath = layout.getClasspath();
+		assertEquals(Arrays.asList("classes/", "a.jar"), names(classpath));
+		assertEquals("app", content(new File(classpath.get(0), "com/acme/App.class")));
+		assertEquals("a=1", content(new File(classpath.get(0), "application.properties")));
+		assertEquals("a", content(classpath.get(1)));
+		assertFalse(new File(classpath.get(0).getParentFile().getParentFile(), "org").exists());
+	}
+
+	@Test
+	public void nestedJarsFollowTheClasspathIndex() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/lib/a.jar", "a", "BOOT-INF/lib/b.jar", "b",
+				"BOOT-INF/lib/c.jar", "c", "BOOT-INF/classpath.idx",
+				"- \"BOOT-INF/lib/c.jar\"\n- \"BOOT-INF/lib/missing.jar\"\n- \"BOOT-INF/lib/a.jar\"\n");
+		assertEquals(Arrays.asList("classes/", "c.jar", "a.jar", "b.jar"),
+				names(this.explodedArchive.explode(archive).getClasspath()));
+	}
+
+	@Test
+	public void classpathIndexWithFileNamesOnly() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/lib/a.jar", "a", "BOOT-INF/lib/b.jar", "b",
+				"BOOT-INF/classpath.idx", "b.jar\na.jar\n");
+		assertEquals(Arrays.asList("classes/", "b.jar", "a.jar"),
+				names(this.explodedArchive.explode(archive).getClasspath()));
+	}
+
+	@Test
+	public void classpathIndexLocationFromManifest() throws IOException {
+		Manifest manifest = manifest("com.acme.App");
+		manifest.getMainAttributes().putValue("Spring-Boot-Classpath-Index", "META-INF/custom.idx");
+		File archive = archive(manifest, "BOOT-INF/lib/a.jar", "a", "BOOT-INF/lib/b.jar", "b",
+				"META-INF/custom.idx", "- \"BOOT-INF/lib/b.jar\"\n", "BOOT-INF/classpath.idx",
+				"- \"BOOT-INF/lib/a.jar\"\n");
+		assertEquals(Arrays.asList("classes/", "b.jar", "a.jar"),
+				names(this.explodedArchive.explode(archive).getClasspath()));
+	}
+
+	@Test
+	public void foldersFromManifest() throws IOException {
+		Manifest manifest = manifest("com.acme.App");
+		manifest.getMainAttributes().putValue("Spring-Boot-Classes", "WEB-INF/classes");
+		manifest.getMainAttributes().putValue("Spring-Boot-Lib", "WEB-INF/lib/");
+		File archive = archive(manifest, "WEB-INF/classes/com/acme/App.class", "app", "WEB-INF/lib/a.jar", "a",
+				"WEB-INF/lib-provided/p.jar", "p");
+		assertEquals(Arrays.asList("classes/", "a.jar"), names(this.explodedArchive.explode(archive).getClasspath()));
+	}
+
+	@Test
+	public void nestedFolderOfLibIsNotOnTheClasspath() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/lib/a.jar", "a", "BOOT-INF/lib/nested/b.jar",
+				"b");
+		assertEquals(Arrays.asList("classes/", "a.jar"), names(this.explodedArchive.explode(archive).getClasspath()));
+	}
+
+	@Test
+	public void archiveWithoutStartClassIsRejected() throws IOException {
+		File archive = archive(new Manifest(), "BOOT-INF/lib/a.jar", "a");
+		try {
+			this.explodedArchive.explode(archive);
+			fail("Expected IOException");
+		}
+		catch (IOException ex) {
+			assertTrue(ex.getMessage().contains("Start-Class"));
+		}
+		assertEquals(0, layoutDirectories().size());
+	}
+
+	@Test
+	public void entryOutsideOfTheLayoutIsRejected() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/lib/../../../evil.jar", "evil");
+		try {
+			this.explodedArchive.explode(archive);
+			fail("Expected IOException");
+		}
+		catch (IOException ex) {
+			assertTrue(ex.getMessage().contains("Invalid entry"));
+		}
+		assertFalse(new File(this.temp.getRoot(), "evil.jar").exists());
+		assertEquals(0, layoutDirectories().size());
+	}
+
+	@Test
+	public void layoutIsReusedForTheSameContent() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/lib/a.jar", "a");
+		File first = this.explodedArchive.explode(archive).getClasspath().get(1);
+		assertTrue(first.delete());
+		assertTrue(archive.setLastModified(archive.lastModified() + 2000));
+		File second = this.explodedArchive.explode(archive).getClasspath().get(1);
+		assertEquals(first, second);
+		assertFalse(second.exists());
+	}
+
+	@Test
+	public void changedArchiveReplacesTheLayout() throws IOException {
+		File archive = archive(manifest("com.acme.App"), "BOOT-INF/lib/a.jar", "a");
+		File first = this.explodedArchive.explode(archive).getClasspath().get(1);
+		archive(manifest("com.acme.App"), "BOOT-INF/lib/a.jar", "changed");
+		assertTrue(archive.setLastModified(archive.lastModified() + 2000));
+		File second = this.explodedArchive.explode(archive).getClasspath().get(1);
+		assertFalse(first.equals(second));
+		assertEquals("changed", content(second));
+		assertFalse(first.exists());
+		assertEquals(1, layoutDirectories().size());
+	}
+
+	private List<File> layoutDirectories() {
+		File[] directories = this.layouts.listFiles(File::isDirectory);
+		return (directories != null) ? Arrays.asList(directories) : new ArrayList<>();
+	}
+
+	private List<String> names(List<File> classpath) {
+		List<String> names = new ArrayList<>();
+		for (File entry : classpath) {
+			//没有类时classes目录不会被创建
+			names.add(entry.getName().endsWith(".jar") ? entry.getName() : entry.getName() + "/");
+		}
+		return names;
+	}
+
+	private String content(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private Manifest manifest(String startClass) {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue("Main-Class", "org.springframework.boot.loader.JarLauncher");
+		manifest.getMainAttributes().putValue("Start-Class", startClass);
+		return manifest;
+	}
+
+	/**
+	 * Write a repackaged jar with the specified manifest and entries, given as name and
+	 * content.
+	 */
+	private File archive(Manifest manifest, String... entries) throws IOException {
+		File file = new File(this.temp.getRoot(), "app.jar");
+		try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file), manifest)) {
+			for (int i = 0; i < entries.length; i += 2) {
+				output.putNextEntry(new ZipEntry(entries[i]));
+				output.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+				output.closeEntry();
+			}
+		}
+		return file;
+	}
+
+}
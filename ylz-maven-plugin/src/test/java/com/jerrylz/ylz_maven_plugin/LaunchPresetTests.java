@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LaunchPreset}.
+ *
+ * @author jerrylz
+ */
+public class LaunchPresetTests {
+
+	private static final long GIGABYTE = 1024L * 1024 * 1024;
+
+	@Test
+	public void optionNameOfXxOptions() {
+		assertEquals("-XX:UseSerialGC", LaunchPreset.getOptionName("-XX:+UseSerialGC"));
+		assertEquals("-XX:UseSerialGC", LaunchPreset.getOptionName("-XX:-UseSerialGC"));
+		assertEquals("-XX:MaxGCPauseMillis", LaunchPreset.getOptionName("-XX:MaxGCPauseMillis=50"));
+	}
+
+	@Test
+	public void optionNameOfSizeOptions() {
+		assertEquals("-Xmx", LaunchPreset.getOptionName("-Xmx512m"));
+		assertEquals("-Xms", LaunchPreset.getOptionName("-Xms1g"));
+		assertEquals("-Xss", LaunchPreset.getOptionName("-Xss512k"));
+	}
+
+	@Test
+	public void optionNameOfOtherOptions() {
+		assertEquals("-Xshare", LaunchPreset.getOptionName("-Xshare:off"));
+		assertEquals("-Xverify", LaunchPreset.getOptionName("-Xverify:none"));
+		assertEquals("-Dfoo", LaunchPreset.getOptionName("-Dfoo=bar"));
+		assertEquals("-ea", LaunchPreset.getOptionName("-ea"));
+	}
+
+	@Test
+	public void mergePutsPresetArgumentsFirst() {
+		List<String> merged = LaunchPreset.merge(Arrays.asList("-XX:TieredStopAtLevel=1", "-Xshare:auto"),
+				Arrays.asList("-Dfoo=bar"));
+		assertEquals(Arrays.asList("-XX:TieredStopAtLevel=1", "-Xshare:auto", "-Dfoo=bar"), merged);
+	}
+
+	@Test
+	public void mergeDropsPresetOptionsSetByTheUser() {
+		List<String> merged = LaunchPreset.merge(
+				Arrays.asList("-XX:TieredStopAtLevel=1", "-Xshare:auto", "-XX:+UseStringDeduplication", "-Xss512k"),
+				Arrays.asList("-XX:TieredStopAtLevel=4", "-Xshare:off", "-XX:-UseStringDeduplication", "-Xss1m"));
+		assertEquals(Arrays.asList("-XX:TieredStopAtLevel=4", "-Xshare:off", "-XX:-UseStringDeduplication", "-Xss1m"),
+				merged);
+	}
+
+	@Test
+	public void mergeDropsPresetInitialHeapWhenUserSetsMaximumHeap() {
+		List<String> merged = LaunchPreset.merge(Arrays.asList("-Xms2048m", "-Xmx2048m"), Arrays.asList("-Xmx256m"));
+		assertEquals(Arrays.asList("-Xmx256m"), merged);
+	}
+
+	@Test
+	public void mergeKeepsPresetMaximumHeapWhenUserSetsInitialHeap() {
+		List<String> merged = LaunchPreset.merge(Arrays.asList("-Xms2048m", "-Xmx2048m"), Arrays.asList("-Xms256m"));
+		assertEquals(Arrays.asList("-Xmx2048m", "-Xms256m"), merged);
+	}
+
+	@Test
+	public void mergeReplacesPresetGcAndItsOptionsWhenUserSelectsGc() {
+		List<String> merged = LaunchPreset.merge(Arrays.asList("-XX:+UseG1GC", "-XX:MaxGCPauseMillis=50",
+				"-XX:+UseStringDeduplication", "-Xmx1024m"), Arrays.asList("-XX:+UseParallelGC"));
+		assertEquals(Arrays.asList("-Xmx1024m", "-XX:+UseParallelGC"), merged);
+	}
+
+	@Test
+	public void mergeWithoutUserArgumentsKeepsPreset() {
+		List<String> preset = LaunchPreset.THROUGHPUT.getJvmArguments();
+		assertEquals(preset, LaunchPreset.merge(preset, Collections.emptyList()));
+	}
+
+	@Test
+	public void fromNameIgnoresCaseAndWhitespace() {
+		assertSame(LaunchPreset.FAST_STARTUP, LaunchPreset.fromName("fast-startup"));
+		assertSame(LaunchPreset.LOW_LATENCY, LaunchPreset.fromName(" Low-Latency "));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fromNameRejectsUnknownPreset() {
+		LaunchPreset.fromName("fast_startup");
+	}
+
+	@Test
+	public void fastStartupDisablesVerificationBeforeJava13() {
+		assertTrue(arguments(LaunchPreset.FAST_STARTUP, 4, 8 * GIGABYTE, 11).contains("-Xverify:none"));
+		assertFalse(arguments(LaunchPreset.FAST_STARTUP, 4, 8 * GIGABYTE, 13).contains("-Xverify:none"));
+	}
+
+	@Test
+	public void throughputSizesHeapAndGcThreadsFromHost() {
+		List<String> arguments = arguments(LaunchPreset.THROUGHPUT, 6, 8 * GIGABYTE, 11);
+		assertTrue(arguments.contains("-XX:ParallelGCThreads=6"));
+		assertTrue(arguments.contains("-Xms2048m"));
+		assertTrue(arguments.contains("-Xmx2048m"));
+	}
+
+	@Test
+	public void lowLatencyUsesZgcFromJava15OnMultipleProcessors() {
+		assertTrue(arguments(LaunchPreset.LOW_LATENCY, 4, 8 * GIGABYTE, 15).contains("-XX:+UseZGC"));
+		assertTrue(arguments(LaunchPreset.LOW_LATENCY, 1, 8 * GIGABYTE, 15).contains("-XX:+UseG1GC"));
+		assertTrue(arguments(LaunchPreset.LOW_LATENCY, 4, 8 * GIGABYTE, 11).contains("-XX:+UseG1GC"));
+	}
+
+	@Test
+	public void lowMemoryBoundsTheHeap() {
+		assertTrue(arguments(LaunchPreset.LOW_MEMORY, 1, 256L * 1024 * 1024, 11).contains("-Xmx64m"));
+		assertTrue(arguments(LaunchPreset.LOW_MEMORY, 1, 2 * GIGABYTE, 11).contains("-Xmx256m"));
+		assertTrue(arguments(LaunchPreset.LOW_MEMORY, 1, 64 * GIGABYTE, 11).contains("-Xmx512m"));
+	}
+
+	private List<String> arguments(LaunchPreset preset, int processors, long memory, int javaVersion) {
+		List<String> arguments = new ArrayList<>();
+		preset.addJvmArguments(arguments, new LaunchPreset.Host(processors, memory), javaVersion);
+		return arguments;
+	}
+
+}
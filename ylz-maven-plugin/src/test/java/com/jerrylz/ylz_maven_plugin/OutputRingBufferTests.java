@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jerrylz.ylz_maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link OutputRingBuffer}.
+ *
+ * @author jerrylz
+ */
+public class OutputRingBufferTests {
+
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	private final WritableByteChannel channel = Channels.newChannel(this.output);
+
+	@Test
+	public void capacityIsRoundedUpToAPowerOfTwo() {
+		OutputRingBuffer buffer = new OutputRingBuffer(1000);
+		assertTrue(buffer.offer(bytes(1024, 0), 0, 1024));
+		assertFalse(buffer.offer(bytes(1, 0), 0, 1));
+	}
+
+	@Test
+	public void offerDropsWhatDoesNotFitAndCountsIt() throws IOException {
+		OutputRingBuffer buffer = new OutputRingBuffer(1024);
+		assertTrue(buffer.offer(bytes(1000, 0), 0, 1000));
+		assertFalse(buffer.offer(bytes(100, 0), 0, 100));
+		assertTrue(buffer.offer(bytes(24, 0), 0, 24));
+		assertFalse(buffer.offer(bytes(1, 0), 0, 1));
+		assertEquals(101, buffer.getDropped());
+		assertEquals(1024, buffer.drainTo(this.channel, Integer.MAX_VALUE));
+		assertTrue(buffer.offer(bytes(100, 0), 0, 100));
+		assertEquals(101, buffer.getDropped());
+	}
+
+	@Test
+	public void drainWrapsAroundTheEndOfTheBuffer() throws IOException {
+		OutputRingBuffer buffer = new OutputRingBuffer(1024);
+		byte[] first = bytes(700, 0);
+		byte[] second = bytes(700, 100);
+		assertTrue(buffer.offer(first, 0, first.length));
+		assertEquals(700, buffer.drainTo(this.channel, Integer.MAX_VALUE));
+		assertTrue(buffer.offer(second, 0, second.length));
+		assertEquals(700, buffer.drainTo(this.channel, Integer.MAX_VALUE));
+		assertArrayEquals(concat(first, second), this.output.toByteArray());
+	}
+
+	@Test
+	public void drainHonorsMaxBytes() throws IOException {
+		OutputRingBuffer buffer = new OutputRingBuffer(1024);
+		byte[] content = bytes(100, 0);
+		buffer.offer(content, 10, 50);
+		assertEquals(30, buffer.drainTo(this.channel, 30));
+		assertEquals(20, buffer.drainTo(this.channel, 30));
+		assertArrayEquals(Arrays.copyOfRange(content, 10, 60), this.output.toByteArray());
+	}
+
+	@Test
+	public void drainReturnsMinusOneOnceClosedAndEmpty() throws IOException {
+		OutputRingBuffer buffer = new OutputRingBuffer(1024);
+		buffer.offer(bytes(10, 0), 0, 10);
+		buffer.close();
+		assertEquals(10, buffer.drainTo(this.channel, Integer.MAX_VALUE));
+		assertEquals(-1, buffer.drainTo(this.channel, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void putWaitsForTheReader() throws Exception {
+		OutputRingBuffer buffer = new OutputRingBuffer(1024);
+		byte[] content = bytes(5000, 0);
+		Thread writer = new Thread(() -> {
+			buffer.put(content, 0, content.length);
+			buffer.close();
+		});
+		writer.start();
+		while (buffer.drainTo(this.channel, 300) != -1) {
+			// drain
+		}
+		writer.join();
+		assertArrayEquals(content, this.output.toByteArray());
+		assertEquals(0, buffer.getDropped());
+	}
+
+	@Test
+	public void putDropsOnceTheReaderAbandoned() throws Exception {
+		OutputRingBuffer buffer = new OutputRingBuffer(1024);
+		assertTrue(buffer.offer(bytes(1024, 0), 0, 1024));
+		Thread writer = new Thread(() -> buffer.put(bytes(100, 0), 0, 100));
+		writer.start();
+		buffer.abandon();
+		writer.join(10000);
+		assertFalse(writer.isAlive());
+		assertEquals(100, buffer.getDropped());
+	}
+
+	private static byte[] bytes(int length, int seed) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) (seed + i);
+		}
+		return bytes;
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, bytes, first.length, second.length);
+		return bytes;
+	}
+
+}